@@ -1,5 +1,8 @@
 package org.iqkv.blog.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,9 +13,751 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Count count = new Count();
+
+    private final Replicas replicas = new Replicas();
+
+    private final Search search = new Search();
+
     // jhipster-needle-application-properties-property
 
+    public Count getCount() {
+        return count;
+    }
+
+    public Replicas getReplicas() {
+        return replicas;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
+    public static class Count {
+
+        /**
+         * How long the total count of an entity is served from the cache, before being refreshed in the background.
+         */
+        private Duration ttl = Duration.ofSeconds(10);
+
+        /**
+         * Whether the total counts are estimated from the table statistics (PostgreSQL only), instead of being counted.
+         */
+        private boolean estimated = false;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public boolean isEstimated() {
+            return estimated;
+        }
+
+        public void setEstimated(boolean estimated) {
+            this.estimated = estimated;
+        }
+    }
+
+    public static class Replicas {
+
+        /**
+         * Whether the read-only transactions are routed to the read replicas.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The R2DBC URLs of the read replicas, which share the credentials and pool settings of {@code spring.r2dbc}.
+         */
+        private List<String> urls = new ArrayList<>();
+
+        /**
+         * The maximum replication lag of a replica, above which its reads are sent to the primary.
+         */
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        /**
+         * How often the replication lag of the replicas is checked.
+         */
+        private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+
+        public Duration getLagCheckInterval() {
+            return lagCheckInterval;
+        }
+
+        public void setLagCheckInterval(Duration lagCheckInterval) {
+            this.lagCheckInterval = lagCheckInterval;
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * The number of hits the searches count exactly; beyond it the total of a search is a lower bound.
+         * 2147483647 counts all the hits, at the cost of visiting every matching document.
+         */
+        private int trackTotalHits = 10000;
+
+        /**
+         * How long the point in time of a cursor based search is kept between two pages, at most 5 minutes.
+         */
+        private Duration pointInTimeKeepAlive = Duration.ofMinutes(1);
+
+        /**
+         * The maximum number of points in time a user can open within the point-in-time-keep-alive, with the first pages
+         * of the cursor based searches and with the exports.
+         */
+        private int maxPointsInTimePerUser = 10;
+
+        /**
+         * The number of hits read per search request by the exports of whole result sets.
+         */
+        private int exportBatchSize = 1000;
+
+        /**
+         * The maximum length of the free text of a search, the longer texts are truncated.
+         */
+        private int maxTextLength = 256;
+
+        /**
+         * The maximum number of tags and of blogs returned by the facets of the post searches.
+         */
+        private int facetSize = 20;
+
+        private final Indexer indexer = new Indexer();
+
+        private final Suggest suggest = new Suggest();
+
+        private final Multi multi = new Multi();
+
+        private final Related related = new Related();
+
+        private final Partition partition = new Partition();
+
+        private final Cache cache = new Cache();
+
+        private final Reconcile reconcile = new Reconcile();
+
+        private final Fallback fallback = new Fallback();
+
+        private final Reindex reindex = new Reindex();
+
+        public int getTrackTotalHits() {
+            return trackTotalHits;
+        }
+
+        public void setTrackTotalHits(int trackTotalHits) {
+            this.trackTotalHits = trackTotalHits;
+        }
+
+        public Duration getPointInTimeKeepAlive() {
+            return pointInTimeKeepAlive;
+        }
+
+        public void setPointInTimeKeepAlive(Duration pointInTimeKeepAlive) {
+            this.pointInTimeKeepAlive = pointInTimeKeepAlive;
+        }
+
+        public int getMaxPointsInTimePerUser() {
+            return maxPointsInTimePerUser;
+        }
+
+        public void setMaxPointsInTimePerUser(int maxPointsInTimePerUser) {
+            this.maxPointsInTimePerUser = maxPointsInTimePerUser;
+        }
+
+        public int getExportBatchSize() {
+            return exportBatchSize;
+        }
+
+        public void setExportBatchSize(int exportBatchSize) {
+            this.exportBatchSize = exportBatchSize;
+        }
+
+        public int getMaxTextLength() {
+            return maxTextLength;
+        }
+
+        public void setMaxTextLength(int maxTextLength) {
+            this.maxTextLength = maxTextLength;
+        }
+
+        public int getFacetSize() {
+            return facetSize;
+        }
+
+        public void setFacetSize(int facetSize) {
+            this.facetSize = facetSize;
+        }
+
+        public Indexer getIndexer() {
+            return indexer;
+        }
+
+        public Reindex getReindex() {
+            return reindex;
+        }
+
+        public Suggest getSuggest() {
+            return suggest;
+        }
+
+        public Multi getMulti() {
+            return multi;
+        }
+
+        public Related getRelated() {
+            return related;
+        }
+
+        public Partition getPartition() {
+            return partition;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public Reconcile getReconcile() {
+            return reconcile;
+        }
+
+        public Fallback getFallback() {
+            return fallback;
+        }
+
+        public static class Indexer {
+
+            /**
+             * Whether the search outbox is drained into Elasticsearch by this instance.
+             */
+            private boolean enabled = true;
+
+            /**
+             * The maximum number of outbox entries indexed with a single bulk request; a full batch is followed
+             * by the next one without waiting.
+             */
+            private int batchSize = 500;
+
+            /**
+             * How long the indexer waits for new outbox entries, once the outbox is drained.
+             */
+            private Duration flushInterval = Duration.ofSeconds(1);
+
+            /**
+             * How many times a failed batch is retried, with a backoff, before its entries are counted as failed.
+             */
+            private int retries = 3;
+
+            /**
+             * The number of failed batches after which an outbox entry is no longer indexed, and left for investigation.
+             */
+            private int maxAttempts = 10;
+
+            /**
+             * How long the outbox entries claimed by an instance are not drained by the other instances; the entries
+             * of an instance stopped while indexing them are drained again once their lease expired. Longer than a
+             * batch with its retries.
+             */
+            private Duration leaseDuration = Duration.ofMinutes(5);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getFlushInterval() {
+                return flushInterval;
+            }
+
+            public void setFlushInterval(Duration flushInterval) {
+                this.flushInterval = flushInterval;
+            }
+
+            public int getRetries() {
+                return retries;
+            }
+
+            public void setRetries(int retries) {
+                this.retries = retries;
+            }
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public Duration getLeaseDuration() {
+                return leaseDuration;
+            }
+
+            public void setLeaseDuration(Duration leaseDuration) {
+                this.leaseDuration = leaseDuration;
+            }
+        }
+
+        public static class Reindex {
+
+            /**
+             * The number of entities read from the database and indexed with a single bulk request.
+             */
+            private int batchSize = 1000;
+
+            /**
+             * The number of bulk requests sent in parallel.
+             */
+            private int concurrency = 4;
+
+            /**
+             * The maximum number of entities indexed per second, to protect the cluster; 0 for no limit.
+             */
+            private int maxRate = 0;
+
+            /**
+             * How many times a failed bulk request is retried, with a backoff, before the reindex is stopped.
+             */
+            private int retries = 3;
+
+            /**
+             * Whether the indexes older than the version of their definition, in {@code config/elasticsearch}, are rebuilt on
+             * startup. As for the indexer, it should only be enabled on a single instance.
+             */
+            private boolean migrateOnStartup = true;
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public int getConcurrency() {
+                return concurrency;
+            }
+
+            public void setConcurrency(int concurrency) {
+                this.concurrency = concurrency;
+            }
+
+            public int getMaxRate() {
+                return maxRate;
+            }
+
+            public void setMaxRate(int maxRate) {
+                this.maxRate = maxRate;
+            }
+
+            public int getRetries() {
+                return retries;
+            }
+
+            public void setRetries(int retries) {
+                this.retries = retries;
+            }
+
+            public boolean isMigrateOnStartup() {
+                return migrateOnStartup;
+            }
+
+            public void setMigrateOnStartup(boolean migrateOnStartup) {
+                this.migrateOnStartup = migrateOnStartup;
+            }
+        }
+
+        public static class Suggest {
+
+            /**
+             * The number of suggestions returned per type.
+             */
+            private int size = 10;
+
+            /**
+             * The maximum number of typed prefixes whose suggestions are cached; the least recently used are evicted.
+             */
+            private int cacheSize = 10000;
+
+            /**
+             * How long the suggestions of a prefix are cached.
+             */
+            private Duration cacheTtl = Duration.ofSeconds(30);
+
+            public int getSize() {
+                return size;
+            }
+
+            public void setSize(int size) {
+                this.size = size;
+            }
+
+            public int getCacheSize() {
+                return cacheSize;
+            }
+
+            public void setCacheSize(int cacheSize) {
+                this.cacheSize = cacheSize;
+            }
+
+            public Duration getCacheTtl() {
+                return cacheTtl;
+            }
+
+            public void setCacheTtl(Duration cacheTtl) {
+                this.cacheTtl = cacheTtl;
+            }
+        }
+
+        public static class Multi {
+
+            /**
+             * The number of hits returned per type by the search of all the types.
+             */
+            private int size = 5;
+
+            /**
+             * The maximum number of hits per type a client can ask for.
+             */
+            private int maxSize = 20;
+
+            /**
+             * How long the search of a type runs on the shards; the types not answered in time return the hits
+             * collected so far.
+             */
+            private Duration timeout = Duration.ofMillis(500);
+
+            public int getSize() {
+                return size;
+            }
+
+            public void setSize(int size) {
+                this.size = size;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+        }
+
+        public static class Related {
+
+            /**
+             * The number of related posts returned for a post.
+             */
+            private int size = 5;
+
+            /**
+             * The maximum number of posts whose related posts are cached; the least recently used are evicted.
+             */
+            private int cacheSize = 10000;
+
+            /**
+             * How long the related posts of a post are cached, unless the post is reindexed before.
+             */
+            private Duration cacheTtl = Duration.ofMinutes(10);
+
+            public int getSize() {
+                return size;
+            }
+
+            public void setSize(int size) {
+                this.size = size;
+            }
+
+            public int getCacheSize() {
+                return cacheSize;
+            }
+
+            public void setCacheSize(int cacheSize) {
+                this.cacheSize = cacheSize;
+            }
+
+            public Duration getCacheTtl() {
+                return cacheTtl;
+            }
+
+            public void setCacheTtl(Duration cacheTtl) {
+                this.cacheTtl = cacheTtl;
+            }
+        }
+
+        public static class Partition {
+
+            /**
+             * Whether the posts are indexed in monthly indexes by their date, behind the post alias. Enabling or
+             * disabling the partitions rebuilds the post index on startup.
+             */
+            private boolean enabled = false;
+
+            /**
+             * The number of months after which a monthly index is force merged to a single segment and made read-only.
+             */
+            private int sealAfterMonths = 3;
+
+            /**
+             * How often the index of the next month is created, and the old indexes are sealed.
+             */
+            private Duration maintenanceInterval = Duration.ofHours(6);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getSealAfterMonths() {
+                return sealAfterMonths;
+            }
+
+            public void setSealAfterMonths(int sealAfterMonths) {
+                this.sealAfterMonths = sealAfterMonths;
+            }
+
+            public Duration getMaintenanceInterval() {
+                return maintenanceInterval;
+            }
+
+            public void setMaintenanceInterval(Duration maintenanceInterval) {
+                this.maintenanceInterval = maintenanceInterval;
+            }
+        }
+
+        public static class Cache {
+
+            /**
+             * Whether the pages of the post, blog and tag searches are cached in memory.
+             */
+            private boolean enabled = true;
+
+            /**
+             * The maximum number of hits held by the cached pages, counted with the page sizes; the least recently
+             * used pages are evicted first.
+             */
+            private int maxHits = 50000;
+
+            /**
+             * How long a page is cached, when its index is not written to by this instance meanwhile.
+             */
+            private Duration ttl = Duration.ofMinutes(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxHits() {
+                return maxHits;
+            }
+
+            public void setMaxHits(int maxHits) {
+                this.maxHits = maxHits;
+            }
+
+            public Duration getTtl() {
+                return ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+        }
+
+        public static class Reconcile {
+
+            /**
+             * Whether the post index is compared with the database by this instance.
+             */
+            private boolean enabled = true;
+
+            /**
+             * How long the reconciler waits between two passes over the posts.
+             */
+            private Duration interval = Duration.ofHours(6);
+
+            /**
+             * The number of posts compared per range of ids.
+             */
+            private int rangeSize = 1000;
+
+            /**
+             * How long the reconciler waits between two ranges, to leave the database and Elasticsearch to the requests.
+             */
+            private Duration rangeDelay = Duration.ofMillis(500);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getInterval() {
+                return interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+
+            public int getRangeSize() {
+                return rangeSize;
+            }
+
+            public void setRangeSize(int rangeSize) {
+                this.rangeSize = rangeSize;
+            }
+
+            public Duration getRangeDelay() {
+                return rangeDelay;
+            }
+
+            public void setRangeDelay(Duration rangeDelay) {
+                this.rangeDelay = rangeDelay;
+            }
+        }
+
+        public static class Fallback {
+
+            /**
+             * Whether the free text searches fall back to PostgreSQL when Elasticsearch fails or is slow.
+             */
+            private boolean enabled = true;
+
+            /**
+             * How long a search waits for Elasticsearch before it is answered by PostgreSQL.
+             */
+            private Duration timeout = Duration.ofSeconds(2);
+
+            /**
+             * The searches slower than this duration count as failures of Elasticsearch.
+             */
+            private Duration slowCallDuration = Duration.ofMillis(500);
+
+            /**
+             * The percentage of failed or slow searches, among the last window-size ones, which opens the circuit:
+             * the searches are then sent to PostgreSQL only.
+             */
+            private int failureRateThreshold = 50;
+
+            /**
+             * The number of last searches the failure rate is computed on.
+             */
+            private int windowSize = 20;
+
+            /**
+             * How long the circuit stays open, before a single search probes Elasticsearch again.
+             */
+            private Duration openDuration = Duration.ofSeconds(30);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+
+            public Duration getSlowCallDuration() {
+                return slowCallDuration;
+            }
+
+            public void setSlowCallDuration(Duration slowCallDuration) {
+                this.slowCallDuration = slowCallDuration;
+            }
+
+            public int getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(int failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public int getWindowSize() {
+                return windowSize;
+            }
+
+            public void setWindowSize(int windowSize) {
+                this.windowSize = windowSize;
+            }
+
+            public Duration getOpenDuration() {
+                return openDuration;
+            }
+
+            public void setOpenDuration(Duration openDuration) {
+                this.openDuration = openDuration;
+            }
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -1,10 +1,20 @@
 package org.iqkv.blog.config;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -12,6 +22,7 @@ import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.convert.WritingConverter;
 import org.springframework.data.elasticsearch.config.ElasticsearchConfigurationSupport;
 import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
+import org.springframework.util.DigestUtils;
 
 @Configuration
 public class ElasticsearchConfiguration extends ElasticsearchConfigurationSupport {
@@ -26,7 +37,9 @@ public class ElasticsearchConfiguration extends ElasticsearchConfigurationSuppor
                 new InstantWritingConverter(),
                 new InstantReadingConverter(),
                 new LocalDateWritingConverter(),
-                new LocalDateReadingConverter()
+                new LocalDateReadingConverter(),
+                new PostWritingConverter(),
+                new PostReadingConverter()
             )
         );
     }
@@ -102,4 +115,92 @@ public class ElasticsearchConfiguration extends ElasticsearchConfigurationSuppor
             return LocalDate.parse(source);
         }
     }
+
+    /**
+     * Writes the posts denormalized with the id, name and handle of their blog, and the ids and names of their tags,
+     * which are not properties of the entity, so the searches can filter on them and return them without reading the
+     * database. The fields are the ones of {@code config/elasticsearch/post-mapping.json}; the tag ids and names are
+     * written in the same order. The {@code hash} of the post is compared with the database by the {@code SearchReconciler}.
+     */
+    @WritingConverter
+    static class PostWritingConverter implements Converter<Post, Map<String, Object>> {
+
+        @Override
+        public Map<String, Object> convert(Post source) {
+            Map<String, Object> document = new LinkedHashMap<>();
+            putIfNotNull(document, "id", source.getId());
+            putIfNotNull(document, "title", source.getTitle());
+            putIfNotNull(document, "content", source.getContent());
+            putIfNotNull(document, "excerpt", source.getExcerpt());
+            putIfNotNull(document, "date", source.getDate() != null ? source.getDate().toString() : null);
+            putIfNotNull(document, "blogId", source.getBlogId());
+            if (source.getBlog() != null) {
+                putIfNotNull(document, "blogName", source.getBlog().getName());
+                putIfNotNull(document, "blogHandle", source.getBlog().getHandle());
+            }
+            List<Long> tagIds = new ArrayList<>();
+            List<String> tagNames = new ArrayList<>();
+            for (Tag tag : source.getTags()) {
+                tagIds.add(tag.getId());
+                tagNames.add(tag.getName());
+            }
+            document.put("tagIds", tagIds);
+            document.put("tagNames", tagNames);
+            document.put("hash", hash(source, tagIds));
+            return document;
+        }
+
+        /**
+         * Hashes the columns of the post and its tag ids, to find the documents which drifted from the database. The
+         * denormalized names are left out: they are updated in place when a blog or a tag is renamed.
+         */
+        static String hash(Post source, List<Long> tagIds) {
+            StringBuilder content = new StringBuilder();
+            Stream.of(source.getId(), source.getTitle(), source.getContent(), source.getExcerpt(), source.getDate(), source.getBlogId())
+                .forEach(value -> content.append(value).append('\u0000'));
+            tagIds.stream().sorted(Comparator.nullsLast(Comparator.naturalOrder())).forEach(tagId -> content.append(tagId).append(','));
+            return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void putIfNotNull(Map<String, Object> document, String field, Object value) {
+            if (value != null) {
+                document.put(field, value);
+            }
+        }
+    }
+
+    /**
+     * Reads the posts written by the {@link PostWritingConverter}, with their blog and tags.
+     */
+    @ReadingConverter
+    static class PostReadingConverter implements Converter<Map<String, Object>, Post> {
+
+        @Override
+        public Post convert(Map<String, Object> source) {
+            Post post = new Post()
+                .id(toLong(source.get("id")))
+                .title((String) source.get("title"))
+                .content((String) source.get("content"))
+                .excerpt((String) source.get("excerpt"));
+            if (source.get("date") != null) {
+                post.setDate(Instant.parse((String) source.get("date")));
+            }
+            Long blogId = toLong(source.get("blogId"));
+            if (blogId != null && source.get("blogName") != null) {
+                post.setBlog(new Blog().id(blogId).name((String) source.get("blogName")).handle((String) source.get("blogHandle")));
+            } else {
+                post.setBlogId(blogId);
+            }
+            List<?> tagIds = source.get("tagIds") instanceof List<?> ids ? ids : List.of();
+            List<?> tagNames = source.get("tagNames") instanceof List<?> names ? names : List.of();
+            for (int i = 0; i < tagIds.size(); i++) {
+                post.addTag(new Tag().id(toLong(tagIds.get(i))).name(i < tagNames.size() ? (String) tagNames.get(i) : null));
+            }
+            return post;
+        }
+
+        private static Long toLong(Object value) {
+            return value != null ? ((Number) value).longValue() : null;
+        }
+    }
 }
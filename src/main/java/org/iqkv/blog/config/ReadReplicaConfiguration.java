@@ -0,0 +1,103 @@
+package org.iqkv.blog.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes the read-only transactions to the read replicas of {@code application.replicas.urls},
+ * see {@link ReadReplicaRoutingConnectionFactory}.
+ * <p>
+ * The primary and every replica have their own connection pool, configured with {@code spring.r2dbc.pool}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(ReadReplicaConfiguration.class);
+
+    @Bean
+    public ReadReplicaRoutingConnectionFactory connectionFactory(
+        R2dbcProperties r2dbcProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Replicas replicas = applicationProperties.getReplicas();
+        log.info("Routing the read-only transactions to {} read replica(s)", replicas.getUrls().size());
+        ConnectionPool primary = createPool(r2dbcProperties, r2dbcProperties.getUrl(), ReadReplicaRoutingConnectionFactory.PRIMARY);
+        // every pool has its own name, for its metrics
+        List<ConnectionPool> replicaPools = IntStream.range(0, replicas.getUrls().size())
+            .mapToObj(i -> createPool(r2dbcProperties, replicas.getUrls().get(i), ReadReplicaRoutingConnectionFactory.replicaName(i)))
+            .toList();
+        ReadReplicaRoutingConnectionFactory connectionFactory = new ReadReplicaRoutingConnectionFactory(
+            primary,
+            replicaPools,
+            replicas.getMaxLag(),
+            replicas.getLagCheckInterval()
+        );
+        connectionFactory.start(meterRegistry);
+        return connectionFactory;
+    }
+
+    @Bean
+    public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
+        return new ReadOnlyRoutingTransactionManager(connectionFactory);
+    }
+
+    private static ConnectionPool createPool(R2dbcProperties properties, String url, String name) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(url)
+            .username(properties.getUsername())
+            .password(properties.getPassword())
+            .build();
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory).name(name);
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getInitialSize()).to(builder::initialSize);
+        map.from(pool.getMaxSize()).to(builder::maxSize);
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).to(builder::validationQuery);
+        map.from(pool.getValidationDepth()).to(builder::validationDepth);
+        return new ConnectionPool(builder.build());
+    }
+
+    /**
+     * Transaction manager telling the {@link ReadReplicaRoutingConnectionFactory} whether the connection of a new
+     * transaction is read-only: the read-only flag is only synchronized after the connection is obtained.
+     */
+    static class ReadOnlyRoutingTransactionManager extends R2dbcTransactionManager {
+
+        ReadOnlyRoutingTransactionManager(ConnectionFactory connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Override
+        protected Mono<Void> doBegin(
+            TransactionSynchronizationManager synchronizationManager,
+            Object transaction,
+            TransactionDefinition definition
+        ) {
+            return super
+                .doBegin(synchronizationManager, transaction, definition)
+                .contextWrite(context -> context.put(ReadReplicaRoutingConnectionFactory.READ_ONLY_CONTEXT_KEY, definition.isReadOnly()));
+        }
+    }
+}
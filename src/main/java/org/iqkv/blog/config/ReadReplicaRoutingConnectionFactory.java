@@ -0,0 +1,176 @@
+package org.iqkv.blog.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Connection factory sending the read-only transactions to the read replicas, in turn, and everything else to the primary.
+ * <p>
+ * A transaction is known to be read-only from the {@link #READ_ONLY_CONTEXT_KEY} of the Reactor context, written by the
+ * {@link ReadReplicaConfiguration.ReadOnlyRoutingTransactionManager} when it begins the transaction. The replication lag
+ * of the replicas is checked periodically: a replica lagging by more than the allowed lag, or failing the check, is
+ * skipped until it catches up, and the reads go to the primary when all the replicas are skipped.
+ */
+public class ReadReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory implements DisposableBean {
+
+    public static final String READ_ONLY_CONTEXT_KEY = ReadReplicaRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+    static final String PRIMARY = "primary";
+
+    // Replication lag of a replica, in milliseconds: 0 on the primary or a replica which replayed everything it received
+    private static final String LAG_QUERY =
+        "SELECT CAST(CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) * 1000 END AS bigint)";
+
+    private final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingConnectionFactory.class);
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Duration maxLag;
+    private final Duration lagCheckInterval;
+    private Disposable lagCheck;
+
+    public ReadReplicaRoutingConnectionFactory(
+        ConnectionPool primary,
+        List<ConnectionPool> replicaPools,
+        Duration maxLag,
+        Duration lagCheckInterval
+    ) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.lagCheckInterval = lagCheckInterval;
+        Map<String, ConnectionPool> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaPools.size(); i++) {
+            Replica replica = new Replica(replicaName(i), replicaPools.get(i));
+            replicas.add(replica);
+            targets.put(replica.name, replica.pool);
+        }
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(primary);
+    }
+
+    /**
+     * The name of a replica, as routing key and as name of its connection pool and metrics.
+     * @param index the index of the replica in {@code application.replicas.urls}.
+     * @return the name of the replica.
+     */
+    static String replicaName(int index) {
+        return "replica-" + index;
+    }
+
+    /**
+     * Registers the pool and replication lag metrics of every target, and starts checking the replication lag.
+     * @param meterRegistry the meter registry.
+     */
+    public void start(MeterRegistry meterRegistry) {
+        new ConnectionPoolMetrics(primary, PRIMARY, List.of()).bindTo(meterRegistry);
+        for (Replica replica : replicas) {
+            new ConnectionPoolMetrics(replica.pool, replica.name, List.of()).bindTo(meterRegistry);
+            Gauge.builder("r2dbc.replica.lag", replica, r -> r.lagMillis)
+                .description("Replication lag of the read replica, negative when it could not be checked.")
+                .baseUnit("milliseconds")
+                .tag("name", replica.name)
+                .register(meterRegistry);
+        }
+        lagCheck = Flux.interval(Duration.ZERO, lagCheckInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> checkLag())
+            .subscribe();
+    }
+
+    /**
+     * Checks the replication lag of every replica once.
+     * @return a Mono to signal the check, which does not fail.
+     */
+    Mono<Void> checkLag() {
+        return Flux.fromIterable(replicas).flatMap(this::checkLag).then();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> {
+            if (!context.getOrDefault(READ_ONLY_CONTEXT_KEY, false)) {
+                return Mono.just(PRIMARY);
+            }
+            return Mono.just(nextReplicaKey());
+        });
+    }
+
+    private String nextReplicaKey() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    private Mono<Void> checkLag(Replica replica) {
+        return Mono.usingWhen(
+            replica.pool.create(),
+            connection -> Mono.from(connection.createStatement(LAG_QUERY).execute()).flatMap(result ->
+                Mono.from(result.map((row, metadata) -> row.get(0, Number.class).longValue()))
+            ),
+            Connection::close
+        )
+            .timeout(lagCheckInterval)
+            .doOnNext(lag -> replica.update(lag, lag <= maxLag.toMillis()))
+            .doOnError(e -> {
+                log.warn("Could not check the replication lag of {} : {}", replica.name, e.getMessage());
+                replica.update(-1, false);
+            })
+            .onErrorComplete()
+            .then();
+    }
+
+    @Override
+    public void destroy() {
+        if (lagCheck != null) {
+            lagCheck.dispose();
+        }
+        primary.dispose();
+        replicas.forEach(replica -> replica.pool.dispose());
+    }
+
+    private final class Replica {
+
+        private final String name;
+        private final ConnectionPool pool;
+        private volatile long lagMillis;
+        private volatile boolean available = true;
+
+        private Replica(String name, ConnectionPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        private void update(long lagMillis, boolean available) {
+            if (this.available != available) {
+                log.info("Read replica {} is {}, replication lag: {} ms", name, available ? "back" : "skipped", lagMillis);
+            }
+            this.lagMillis = lagMillis;
+            this.available = available;
+        }
+    }
+}
@@ -12,6 +12,8 @@ import org.springframework.data.relational.core.mapping.Table;
  */
 @Table("blog")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "blog")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "config/elasticsearch/index-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "config/elasticsearch/blog-mapping.json")
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Blog implements Serializable {
 
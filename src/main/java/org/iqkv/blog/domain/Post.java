@@ -16,6 +16,8 @@ import org.springframework.data.relational.core.mapping.Table;
  */
 @Table("post")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "post")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "config/elasticsearch/index-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "config/elasticsearch/post-mapping.json")
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Post implements Serializable {
 
@@ -34,6 +36,9 @@ public class Post implements Serializable {
     @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
     private String content;
 
+    @Column("excerpt")
+    private String excerpt;
+
     @NotNull(message = "must not be null")
     @Column("date")
     private Instant date;
@@ -90,6 +95,19 @@ public class Post implements Serializable {
         this.content = content;
     }
 
+    public String getExcerpt() {
+        return this.excerpt;
+    }
+
+    public Post excerpt(String excerpt) {
+        this.setExcerpt(excerpt);
+        return this;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
     public Instant getDate() {
         return this.date;
     }
@@ -174,6 +192,7 @@ public class Post implements Serializable {
             "id=" + getId() +
             ", title='" + getTitle() + "'" +
             ", content='" + getContent() + "'" +
+            ", excerpt='" + getExcerpt() + "'" +
             ", date='" + getDate() + "'" +
             "}";
     }
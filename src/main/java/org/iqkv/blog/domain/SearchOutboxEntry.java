@@ -0,0 +1,151 @@
+package org.iqkv.blog.domain;
+
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A SearchOutboxEntry: an entity to reindex in Elasticsearch, written in the same transaction as the change of the entity.
+ * The indexer reloads the entity from the database, so an entry covers creations, updates and deletions alike.
+ */
+@Table("search_outbox")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class SearchOutboxEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @NotNull(message = "must not be null")
+    @Size(max = 50)
+    @Column("entity_type")
+    private String entityType;
+
+    @NotNull(message = "must not be null")
+    @Column("entity_id")
+    private Long entityId;
+
+    @NotNull(message = "must not be null")
+    @Column("created_date")
+    private Instant createdDate = Instant.now();
+
+    @NotNull(message = "must not be null")
+    @Column("attempts")
+    private Integer attempts = 0;
+
+    @Column("claimed_until")
+    private Instant claimedUntil;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public SearchOutboxEntry id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return this.entityType;
+    }
+
+    public SearchOutboxEntry entityType(String entityType) {
+        this.setEntityType(entityType);
+        return this;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return this.entityId;
+    }
+
+    public SearchOutboxEntry entityId(Long entityId) {
+        this.setEntityId(entityId);
+        return this;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public SearchOutboxEntry createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Integer getAttempts() {
+        return this.attempts;
+    }
+
+    public SearchOutboxEntry attempts(Integer attempts) {
+        this.setAttempts(attempts);
+        return this;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getClaimedUntil() {
+        return this.claimedUntil;
+    }
+
+    public SearchOutboxEntry claimedUntil(Instant claimedUntil) {
+        this.setClaimedUntil(claimedUntil);
+        return this;
+    }
+
+    public void setClaimedUntil(Instant claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchOutboxEntry)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((SearchOutboxEntry) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchOutboxEntry{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId=" + getEntityId() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", attempts=" + getAttempts() +
+            ", claimedUntil='" + getClaimedUntil() + "'" +
+            "}";
+    }
+}
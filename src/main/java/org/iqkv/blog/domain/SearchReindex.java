@@ -0,0 +1,205 @@
+package org.iqkv.blog.domain;
+
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+import org.iqkv.blog.domain.enumeration.ReindexStatus;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A SearchReindex: the rebuild of the index of an entity type from the database, into a new versioned index.
+ * The last indexed id is recorded as the reindex progresses, so a failed reindex is resumed where it stopped.
+ */
+@Table("search_reindex")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class SearchReindex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @NotNull(message = "must not be null")
+    @Size(max = 50)
+    @Column("entity_type")
+    private String entityType;
+
+    @NotNull(message = "must not be null")
+    @Size(max = 255)
+    @Column("index_name")
+    private String indexName;
+
+    @NotNull(message = "must not be null")
+    @Column("status")
+    private ReindexStatus status;
+
+    @Column("last_id")
+    private Long lastId;
+
+    @NotNull(message = "must not be null")
+    @Column("indexed")
+    private Long indexed = 0L;
+
+    @Column("total")
+    private Long total;
+
+    @NotNull(message = "must not be null")
+    @Column("started_date")
+    private Instant startedDate = Instant.now();
+
+    @Column("finished_date")
+    private Instant finishedDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public SearchReindex id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return this.entityType;
+    }
+
+    public SearchReindex entityType(String entityType) {
+        this.setEntityType(entityType);
+        return this;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getIndexName() {
+        return this.indexName;
+    }
+
+    public SearchReindex indexName(String indexName) {
+        this.setIndexName(indexName);
+        return this;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public ReindexStatus getStatus() {
+        return this.status;
+    }
+
+    public SearchReindex status(ReindexStatus status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(ReindexStatus status) {
+        this.status = status;
+    }
+
+    public Long getLastId() {
+        return this.lastId;
+    }
+
+    public SearchReindex lastId(Long lastId) {
+        this.setLastId(lastId);
+        return this;
+    }
+
+    public void setLastId(Long lastId) {
+        this.lastId = lastId;
+    }
+
+    public Long getIndexed() {
+        return this.indexed;
+    }
+
+    public SearchReindex indexed(Long indexed) {
+        this.setIndexed(indexed);
+        return this;
+    }
+
+    public void setIndexed(Long indexed) {
+        this.indexed = indexed;
+    }
+
+    public Long getTotal() {
+        return this.total;
+    }
+
+    public SearchReindex total(Long total) {
+        this.setTotal(total);
+        return this;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public Instant getStartedDate() {
+        return this.startedDate;
+    }
+
+    public SearchReindex startedDate(Instant startedDate) {
+        this.setStartedDate(startedDate);
+        return this;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return this.finishedDate;
+    }
+
+    public SearchReindex finishedDate(Instant finishedDate) {
+        this.setFinishedDate(finishedDate);
+        return this;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchReindex)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((SearchReindex) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchReindex{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", indexName='" + getIndexName() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", lastId=" + getLastId() +
+            ", indexed=" + getIndexed() +
+            ", total=" + getTotal() +
+            ", startedDate='" + getStartedDate() + "'" +
+            ", finishedDate='" + getFinishedDate() + "'" +
+            "}";
+    }
+}
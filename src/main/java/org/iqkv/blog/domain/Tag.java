@@ -15,6 +15,8 @@ import org.springframework.data.relational.core.mapping.Table;
  */
 @Table("tag")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "tag")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "config/elasticsearch/index-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "config/elasticsearch/tag-mapping.json")
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Tag implements Serializable {
 
@@ -22,6 +22,8 @@ import org.springframework.data.relational.core.mapping.Table;
  */
 @Table("jhi_user")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "user")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "config/elasticsearch/index-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "config/elasticsearch/user-mapping.json")
 public class User extends AbstractAuditingEntity<Long> implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -0,0 +1,11 @@
+package org.iqkv.blog.domain.enumeration;
+
+/**
+ * The ReindexStatus enumeration.
+ */
+public enum ReindexStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    ABANDONED,
+}
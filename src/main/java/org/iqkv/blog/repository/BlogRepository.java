@@ -1,5 +1,6 @@
 package org.iqkv.blog.repository;
 
+import java.util.Collection;
 import org.iqkv.blog.domain.Blog;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
@@ -16,9 +17,15 @@ import reactor.core.publisher.Mono;
 public interface BlogRepository extends ReactiveCrudRepository<Blog, Long>, BlogRepositoryInternal {
     Flux<Blog> findAllBy(Pageable pageable);
 
+    @Override
+    Flux<Blog> findAllBy(Keyset keyset);
+
     @Override
     Mono<Blog> findOneWithEagerRelationships(Long id);
 
+    @Override
+    Flux<Blog> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids);
+
     @Override
     Flux<Blog> findAllWithEagerRelationships();
 
@@ -31,6 +38,12 @@ public interface BlogRepository extends ReactiveCrudRepository<Blog, Long>, Blog
     @Query("SELECT * FROM blog entity WHERE entity.user_id IS NULL")
     Flux<Blog> findAllWhereUserIsNull();
 
+    @Override
+    Flux<Blog> findAllByNameLike(String pattern, Pageable pageable);
+
+    @Query("SELECT COUNT(*) FROM blog entity WHERE entity.name ILIKE :pattern OR entity.handle ILIKE :pattern")
+    Mono<Long> countByNameLike(String pattern);
+
     @Override
     <S extends Blog> Mono<S> save(S entity);
 
@@ -49,6 +62,10 @@ interface BlogRepositoryInternal {
 
     Flux<Blog> findAllBy(Pageable pageable);
 
+    Flux<Blog> findAllBy(Keyset keyset);
+
+    Flux<Blog> findAllByNameLike(String pattern, Pageable pageable);
+
     Flux<Blog> findAll();
 
     Mono<Blog> findById(Long id);
@@ -57,6 +74,8 @@ interface BlogRepositoryInternal {
 
     Mono<Blog> findOneWithEagerRelationships(Long id);
 
+    Flux<Blog> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids);
+
     Flux<Blog> findAllWithEagerRelationships();
 
     Flux<Blog> findAllWithEagerRelationships(Pageable page);
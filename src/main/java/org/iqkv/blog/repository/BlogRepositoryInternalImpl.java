@@ -2,20 +2,23 @@ package org.iqkv.blog.repository;
 
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.util.Collection;
 import java.util.List;
 import org.iqkv.blog.domain.Blog;
 import org.iqkv.blog.repository.rowmapper.BlogRowMapper;
 import org.iqkv.blog.repository.rowmapper.UserRowMapper;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository;
 import org.springframework.data.relational.core.sql.Column;
-import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
@@ -39,6 +42,9 @@ class BlogRepositoryInternalImpl extends SimpleR2dbcRepository<Blog, Long> imple
     private final BlogRowMapper blogMapper;
 
     private static final Table entityTable = Table.aliased("blog", EntityManager.ENTITY_ALIAS);
+    private static final Condition idCondition = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":id"));
+    private static final Condition nameLikeCondition = Conditions.just("(e.name ILIKE :pattern OR e.handle ILIKE :pattern)");
+    private static final Condition idsCondition = Conditions.in(entityTable.column("id"), SQL.bindMarker(":ids"));
     private static final Table userTable = Table.aliased("jhi_user", "e_user");
 
     public BlogRepositoryInternalImpl(
@@ -63,32 +69,72 @@ class BlogRepositoryInternalImpl extends SimpleR2dbcRepository<Blog, Long> imple
 
     @Override
     public Flux<Blog> findAllBy(Pageable pageable) {
-        return createQuery(pageable, null).all();
+        return createQuery("all", pageable, null).all();
     }
 
-    RowsFetchSpec<Blog> createQuery(Pageable pageable, Condition whereClause) {
+    @Override
+    public Flux<Blog> findAllBy(Keyset keyset) {
+        return createKeysetQuery("all", keyset, null).all();
+    }
+
+    /**
+     * Finds the blogs whose name or handle matches the pattern, the fallback of the Elasticsearch blog search. The page is
+     * sorted as requested, by name when unsorted, and then by id so the pages never overlap.
+     */
+    @Override
+    public Flux<Blog> findAllByNameLike(String pattern, Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("name");
+        if (sort.getOrderFor("id") == null) {
+            sort = sort.and(Sort.by("id"));
+        }
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+        String select = entityManager.createSelect(
+            "byNameLike",
+            BlogRepositoryInternalImpl::createSelectFrom,
+            Blog.class,
+            page,
+            nameLikeCondition
+        );
+        return entityManager.bindPage(db.sql(select), page).bind("pattern", pattern).map(this::process).all();
+    }
+
+    RowsFetchSpec<Blog> createQuery(String shape, Pageable pageable, Condition whereClause) {
+        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
+        String select = entityManager.createSelect(shape, BlogRepositoryInternalImpl::createSelectFrom, Blog.class, pageable, whereClause);
+        return entityManager.bindPage(db.sql(select), pageable).map(this::process);
+    }
+
+    RowsFetchSpec<Blog> createKeysetQuery(String shape, Keyset keyset, Condition whereClause) {
+        String select = entityManager.createSelect(shape, BlogRepositoryInternalImpl::createSelectFrom, Blog.class, keyset, whereClause);
+        return entityManager.bindKeyset(db.sql(select), Blog.class, keyset).map(this::process);
+    }
+
+    private static SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = BlogSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(UserSqlHelper.getColumns(userTable, "user"));
-        SelectFromAndJoinCondition selectFrom = Select.builder()
+        return Select.builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(userTable)
             .on(Column.create("user_id", entityTable))
             .equals(Column.create("id", userTable));
-        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Blog.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
     }
 
     @Override
     public Flux<Blog> findAll() {
-        return findAllBy(null);
+        return findAllBy((Pageable) null);
     }
 
     @Override
     public Mono<Blog> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.createSelect(
+            "byId",
+            BlogRepositoryInternalImpl::createSelectFrom,
+            Blog.class,
+            (Pageable) null,
+            idCondition
+        );
+        return db.sql(select).bind("id", id).map(this::process).one();
     }
 
     @Override
@@ -96,6 +142,18 @@ class BlogRepositoryInternalImpl extends SimpleR2dbcRepository<Blog, Long> imple
         return findById(id);
     }
 
+    @Override
+    public Flux<Blog> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids) {
+        String select = entityManager.createSelect(
+            "byIds",
+            BlogRepositoryInternalImpl::createSelectFrom,
+            Blog.class,
+            (Pageable) null,
+            idsCondition
+        );
+        return db.sql(select).bind("ids", ids).map(this::process).all();
+    }
+
     @Override
     public Flux<Blog> findAllWithEagerRelationships() {
         return findAll();
@@ -1,26 +1,47 @@
 package org.iqkv.blog.repository;
 
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.sql.BindMarker;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Condition;
+import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
 import org.springframework.data.relational.core.sql.OrderByField;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectWhere;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
-import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
@@ -36,6 +57,28 @@ public class EntityManager {
     public static final String ENTITY_ALIAS = "e";
     public static final String ALIAS_PREFIX = "e_";
 
+    private static final String KEYSET_ID_MARKER = "keysetId";
+    private static final String KEYSET_VALUE_MARKER = "keysetValue";
+    private static final String LIMIT_MARKER = "pageLimit";
+    private static final String OFFSET_MARKER = "pageOffset";
+
+    private static final int MAX_RENDERED_SELECTS = 512;
+
+    /**
+     * How a select statement is paged, which changes the clauses appended to it.
+     */
+    private enum Paging {
+        NONE,
+        OFFSET,
+        KEYSET_FIRST,
+        KEYSET_SEEK,
+    }
+
+    /**
+     * The shape of a select statement: the select, its joins and its where condition, named by the caller, then its order and paging.
+     */
+    private record SelectKey(String shape, Class<?> entityType, Sort sort, Paging paging) {}
+
     public static class LinkTable {
 
         final String tableName;
@@ -52,80 +95,124 @@ public class EntityManager {
         }
     }
 
+    private final Logger log = LoggerFactory.getLogger(EntityManager.class);
+
     private final SqlRenderer sqlRenderer;
     private final UpdateMapper updateMapper;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
+    private final R2dbcDialect dialect;
+    private final Map<SelectKey, String> renderedSelects = new ConcurrentHashMap<>();
+    private final AtomicBoolean renderedSelectsFull = new AtomicBoolean();
 
-    public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
+    public EntityManager(
+        SqlRenderer sqlRenderer,
+        UpdateMapper updateMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        R2dbcDialect dialect
+    ) {
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.dialect = dialect;
         this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
     }
 
     /**
      * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * <p>
+     * The rendered statement is cached per query shape: the select, its joins and its where condition, named by the caller,
+     * the entity type, the sort, and whether the query is paged. The page limit and offset are bind markers, which have
+     * to be bound with {@link #bindPage(DatabaseClient.GenericExecuteSpec, Pageable)}, so the same statement is sent for
+     * every page; for the same reason the where condition must be a constant, with bind markers for its values.
+     * @param shape the name of the select, its joins and its where condition, unique for the entity type: two statements
+     * with the same name and entity type share their rendered SQL.
+     * @param selectFrom supplies a representation of a select statement, only called when the statement is not cached yet.
      * @param entityType the entity type which holds the table name.
      * @param pageable page parameter, or null, if everything needs to be returned.
      * @param where condition or null. The condition to apply as where clause.
      * @return sql select statement
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, Condition where) {
-        if (pageable != null) {
-            if (where != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(where),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
-            }
-        } else {
-            if (where != null) {
-                return createSelectImpl(selectFrom.where(where), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
-            }
+    public String createSelect(
+        String shape,
+        Supplier<? extends SelectWhere> selectFrom,
+        Class<?> entityType,
+        Pageable pageable,
+        Condition where
+    ) {
+        boolean paged = pageable != null && pageable.isPaged();
+        Sort sort = pageable != null ? pageable.getSort() : Sort.unsorted();
+        return getOrRenderSelect(new SelectKey(shape, entityType, sort, paged ? Paging.OFFSET : Paging.NONE), () -> {
+            SelectOrdered select = where != null ? selectFrom.get().where(where) : selectFrom.get();
+            String sql = createSelectImpl(select, entityType, sort);
+            return paged ? sql + " LIMIT :" + LIMIT_MARKER + " OFFSET :" + OFFSET_MARKER : sql;
+        });
+    }
+
+    /**
+     * Binds the limit and offset of the page to a statement created by {@link #createSelect(String, Supplier, Class, Pageable, Condition)}.
+     * @param spec the statement to bind.
+     * @param pageable page parameter, or null, if everything needs to be returned.
+     * @return the bound statement.
+     */
+    public DatabaseClient.GenericExecuteSpec bindPage(DatabaseClient.GenericExecuteSpec spec, Pageable pageable) {
+        if (pageable == null || pageable.isUnpaged()) {
+            return spec;
         }
+        return spec.bind(LIMIT_MARKER, pageable.getPageSize()).bind(OFFSET_MARKER, pageable.getOffset());
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Creates an SQL select statement which seeks to the given keyset, instead of skipping rows with an offset.
+     * The statement is cached like {@link #createSelect(String, Supplier, Class, Pageable, Condition)}, the page size and the keyset
+     * values have to be bound to the statement with {@link #bindKeyset(DatabaseClient.GenericExecuteSpec, Class, Keyset)}.
+     * @param shape the name of the select, its joins and its where condition, unique for the entity type.
+     * @param selectFrom supplies a representation of a select statement, only called when the statement is not cached yet.
      * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
+     * @param keyset the position and size of the page, sorted by {@code id} or by a {@link NotNull} property: the row value
+     * comparison of the seek would skip the rows with a {@code NULL} value.
      * @param where condition or null. The condition to apply as where clause.
      * @return sql select statement
+     * @throws IllegalArgumentException if the keyset is sorted by a nullable property.
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, Condition where) {
-        if (pageable != null) {
-            if (where != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(where),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
-            }
-        } else {
-            if (where != null) {
-                return createSelectImpl(selectFrom.where(where), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
-            }
+    public String createSelect(
+        String shape,
+        Supplier<? extends SelectWhere> selectFrom,
+        Class<?> entityType,
+        Keyset keyset,
+        Condition where
+    ) {
+        if (!keyset.isSortedById()) {
+            getKeysetProperty(entityType, keyset);
+        }
+        Paging paging = keyset.isFirst() ? Paging.KEYSET_FIRST : Paging.KEYSET_SEEK;
+        return getOrRenderSelect(new SelectKey(shape, entityType, keyset.getSort(), paging), () -> {
+            Condition condition = createKeysetCondition(entityType, keyset, where);
+            SelectOrdered select = condition != null ? selectFrom.get().where(condition) : selectFrom.get();
+            return createSelectImpl(select, entityType, keyset.getSort()) + " LIMIT :" + LIMIT_MARKER;
+        });
+    }
+
+    /**
+     * Binds the page size and the values of the keyset to a statement created by
+     * {@link #createSelect(String, Supplier, Class, Keyset, Condition)}.
+     * @param spec the statement to bind.
+     * @param entityType the entity type which holds the sort property.
+     * @param keyset the position of the page.
+     * @return the bound statement.
+     */
+    public DatabaseClient.GenericExecuteSpec bindKeyset(DatabaseClient.GenericExecuteSpec spec, Class<?> entityType, Keyset keyset) {
+        spec = spec.bind(LIMIT_MARKER, keyset.getSize());
+        if (keyset.isFirst()) {
+            return spec;
+        }
+        spec = spec.bind(KEYSET_ID_MARKER, keyset.getId());
+        if (keyset.isSortedById()) {
+            return spec;
         }
+        RelationalPersistentProperty property = getKeysetProperty(entityType, keyset);
+        Object value = convertKeysetValue(keyset.getValue(), property.getType());
+        return spec.bind(KEYSET_VALUE_MARKER, r2dbcEntityTemplate.getConverter().writeValue(value, property.getTypeInformation()));
     }
 
     /**
@@ -137,6 +224,35 @@ public class EntityManager {
         return sqlRenderer.render(select);
     }
 
+    /**
+     * Count all the entities with the given type.
+     * @param entityType the entity type which holds the table name.
+     * @return the number of entities.
+     */
+    public Mono<Long> count(Class<?> entityType) {
+        return r2dbcEntityTemplate.count(Query.empty(), entityType);
+    }
+
+    /**
+     * Estimate the number of entities with the given type from the table statistics of PostgreSQL ({@code pg_class.reltuples}),
+     * which does not scan the table. Other databases, and tables which were never analyzed, fall back to an exact count.
+     * @param entityType the entity type which holds the table name.
+     * @return the estimated number of entities.
+     */
+    public Mono<Long> estimateCount(Class<?> entityType) {
+        if (!(dialect instanceof PostgresDialect)) {
+            return count(entityType);
+        }
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST(:tableName AS regclass)")
+            .bind("tableName", getPersistentEntity(entityType).getTableName().getReference())
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .filter(estimate -> estimate >= 0)
+            .switchIfEmpty(Mono.defer(() -> count(entityType)));
+    }
+
     /**
      * Delete all the entity with the given type, and return the number of deletions.
      * @param entityType the entity type which holds the table name.
@@ -168,27 +284,70 @@ public class EntityManager {
 
     /**
      * Updates the table, which links the entity with the referred entities.
+     * The current links are diffed with the requested ones: the removed links are deleted with a single statement,
+     * the new links are inserted with a single multi-row statement, and nothing is sent when both sets match.
      * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
      * @param entityId the id of the entity, for which the links are created.
      * @param referencedIds the id of the referred entities.
-     * @return the number of inserted rows.
+     * @return the number of inserted and deleted rows.
      */
     public Mono<Long> updateLinkTable(LinkTable table, Object entityId, Stream<?> referencedIds) {
-        return deleteFromLinkTable(table, entityId).then(
-            Flux.fromStream(referencedIds)
-                .flatMap((Object referenceId) -> {
-                    StatementMapper.InsertSpec insert = r2dbcEntityTemplate
-                        .getDataAccessStrategy()
-                        .getStatementMapper()
-                        .createInsert(table.tableName)
-                        .withColumn(table.idColumn, Parameter.from(entityId))
-                        .withColumn(table.referenceColumn, Parameter.from(referenceId));
-
-                    return r2dbcEntityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(insert)).fetch().rowsUpdated();
-                })
-                .collectList()
-                .map((List<Long> updates) -> updates.stream().reduce(Long::sum).orElse(0l))
+        Assert.notNull(entityId, "entityId is null");
+        Set<Object> requestedIds = referencedIds.filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        return findLinkedIds(table, entityId)
+            .collect(Collectors.toSet())
+            .flatMap(currentIds -> {
+                List<Object> removedIds = currentIds.stream().filter(id -> !requestedIds.contains(id)).toList();
+                List<Object> addedIds = requestedIds.stream().filter(id -> !currentIds.contains(id)).toList();
+                return deleteFromLinkTable(table, entityId, removedIds).flatMap(
+                    deleted -> insertIntoLinkTable(table, entityId, addedIds).map(inserted -> deleted + inserted)
+                );
+            });
+    }
+
+    private Flux<Object> findLinkedIds(LinkTable table, Object entityId) {
+        String sql = "SELECT " + table.referenceColumn + " FROM " + table.tableName + " WHERE " + table.idColumn + " = :entityId";
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(sql)
+            .bind("entityId", entityId)
+            .map(row -> row.get(0))
+            .all();
+    }
+
+    private Mono<Long> deleteFromLinkTable(LinkTable table, Object entityId, Collection<?> referencedIds) {
+        if (referencedIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        String sql = String.format(
+            "DELETE FROM %s WHERE %s = :entityId AND %s IN (:referenceIds)",
+            table.tableName,
+            table.idColumn,
+            table.referenceColumn
         );
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(sql)
+            .bind("entityId", entityId)
+            .bind("referenceIds", referencedIds)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    private Mono<Long> insertIntoLinkTable(LinkTable table, Object entityId, List<?> referencedIds) {
+        if (referencedIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < referencedIds.size(); i++) {
+            values.add("(:entityId, :referenceId" + i + ")");
+        }
+        String sql = "INSERT INTO " + table.tableName + " (" + table.idColumn + ", " + table.referenceColumn + ") VALUES " + values;
+        DatabaseClient.GenericExecuteSpec insert = r2dbcEntityTemplate.getDatabaseClient().sql(sql).bind("entityId", entityId);
+        for (int i = 0; i < referencedIds.size(); i++) {
+            insert = insert.bind("referenceId" + i, referencedIds.get(i));
+        }
+        return insert.fetch().rowsUpdated();
     }
 
     public Mono<Void> deleteFromLinkTable(LinkTable table, Object entityId) {
@@ -201,6 +360,27 @@ public class EntityManager {
         return r2dbcEntityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(deleteSpec)).then();
     }
 
+    private String getOrRenderSelect(SelectKey key, Supplier<String> renderer) {
+        String select = renderedSelects.get(key);
+        if (select != null) {
+            return select;
+        }
+        select = renderer.get();
+        // bounded, as the sort comes from the request parameters
+        if (renderedSelects.size() < MAX_RENDERED_SELECTS) {
+            renderedSelects.putIfAbsent(key, select);
+        } else if (renderedSelectsFull.compareAndSet(false, true)) {
+            log.warn(
+                "{} select statements are cached, the next ones are rendered for every query, starting with the {} of {} sorted by {}",
+                MAX_RENDERED_SELECTS,
+                key.shape(),
+                key.entityType().getSimpleName(),
+                key.sort()
+            );
+        }
+        return select;
+    }
+
     private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
         if (sortParameter != null && sortParameter.isSorted()) {
             RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
@@ -214,6 +394,43 @@ public class EntityManager {
         return createSelect(selectFrom.build());
     }
 
+    private Condition createKeysetCondition(Class<?> entityType, Keyset keyset, Condition where) {
+        if (keyset.isFirst()) {
+            return where;
+        }
+        Condition seek;
+        if (keyset.isSortedById()) {
+            Column id = Column.create(Keyset.ID_PROPERTY, Table.create(ENTITY_ALIAS));
+            BindMarker marker = SQL.bindMarker(":" + KEYSET_ID_MARKER);
+            seek = keyset.getOrder().isAscending() ? Conditions.isGreater(id, marker) : Conditions.isLess(id, marker);
+        } else {
+            // row value comparison, so the database can seek on a (sort column, id) index
+            String column = getKeysetProperty(entityType, keyset).getColumnName().getReference();
+            Expression left = Expressions.just("(" + ENTITY_ALIAS + "." + column + ", " + ENTITY_ALIAS + "." + Keyset.ID_PROPERTY + ")");
+            Expression right = Expressions.just("(:" + KEYSET_VALUE_MARKER + ", :" + KEYSET_ID_MARKER + ")");
+            seek = keyset.getOrder().isAscending() ? Conditions.isGreater(left, right) : Conditions.isLess(left, right);
+        }
+        return where != null ? where.and(seek) : seek;
+    }
+
+    private RelationalPersistentProperty getKeysetProperty(Class<?> entityType, Keyset keyset) {
+        RelationalPersistentProperty property = getPersistentEntity(entityType).getRequiredPersistentProperty(
+            keyset.getOrder().getProperty()
+        );
+        Assert.isTrue(
+            property.isAnnotationPresent(NotNull.class),
+            () -> "A keyset can only be sorted by a not null property, " + entityType.getSimpleName() + "." + property.getName() + " is not"
+        );
+        return property;
+    }
+
+    private Object convertKeysetValue(String value, Class<?> type) {
+        if (Instant.class.equals(type)) {
+            return Instant.parse(value);
+        }
+        return r2dbcEntityTemplate.getConverter().getConversionService().convert(value, type);
+    }
+
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
         return r2dbcEntityTemplate.getConverter().getMappingContext().getPersistentEntity(entityType);
     }
@@ -0,0 +1,137 @@
+package org.iqkv.blog.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
+
+/**
+ * Position of a keyset (seek) pagination: instead of skipping {@code OFFSET} rows, the next page is selected
+ * with a {@code WHERE (sort column, id) > (last value, last id)} condition, so deep pages cost the same as the first one.
+ * <p>
+ * A keyset is exchanged with the clients as an opaque cursor, see {@link #toCursor()} and {@link #fromCursor(String, int)}.
+ * The sort property must be not null, the row value comparison would skip the rows with a {@code NULL} value.
+ */
+public final class Keyset {
+
+    public static final String ID_PROPERTY = "id";
+
+    private static final String SEPARATOR = "\n";
+
+    private final Sort.Order order;
+    private final String value;
+    private final Long id;
+    private final int size;
+
+    private Keyset(Sort.Order order, String value, Long id, int size) {
+        Assert.notNull(order, "order is null");
+        Assert.isTrue(size > 0, "size must be positive");
+        this.order = order;
+        this.value = value;
+        this.id = id;
+        this.size = size;
+    }
+
+    /**
+     * Creates the keyset of the first page.
+     * @param order the order of the listing, on a single property; {@code id} is always used as tiebreaker.
+     * @param size the page size.
+     * @return the keyset of the first page.
+     */
+    public static Keyset first(Sort.Order order, int size) {
+        return new Keyset(order, null, null, size);
+    }
+
+    /**
+     * Creates the keyset of the page following the given row.
+     * @param order the order of the listing.
+     * @param value the value of the sort property of the last row, ignored when sorting by {@code id}.
+     * @param id the id of the last row.
+     * @param size the page size.
+     * @return the keyset of the next page.
+     * @throws IllegalArgumentException if the value is {@code null}: the listings seek on not null properties only.
+     */
+    public static Keyset after(Sort.Order order, String value, Long id, int size) {
+        Assert.notNull(id, "id is null");
+        Assert.isTrue(ID_PROPERTY.equals(order.getProperty()) || value != null, "value is null");
+        return new Keyset(order, ID_PROPERTY.equals(order.getProperty()) ? null : value, id, size);
+    }
+
+    /**
+     * Decodes a cursor created with {@link #toCursor()}.
+     * @param cursor the opaque cursor sent by the client.
+     * @param size the page size.
+     * @return the decoded keyset.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static Keyset fromCursor(String cursor, int size) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR, 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        Sort.Order order = new Sort.Order(Sort.Direction.fromString(parts[1]), parts[0]);
+        String value = parts.length == 4 ? parts[3] : null;
+        if (!ID_PROPERTY.equals(order.getProperty()) && value == null) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return after(order, value, Long.valueOf(parts[2]), size);
+    }
+
+    /**
+     * Encodes this keyset as an URL-safe opaque cursor.
+     * @return the cursor.
+     */
+    public String toCursor() {
+        Assert.state(id != null, "The first page has no cursor");
+        StringBuilder builder = new StringBuilder()
+            .append(order.getProperty())
+            .append(SEPARATOR)
+            .append(order.getDirection().name())
+            .append(SEPARATOR)
+            .append(id);
+        if (value != null) {
+            builder.append(SEPARATOR).append(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the sort to apply on the query: the keyset order, followed by {@code id} in the same direction.
+     */
+    public Sort getSort() {
+        if (isSortedById()) {
+            return Sort.by(order);
+        }
+        return Sort.by(order, new Sort.Order(order.getDirection(), ID_PROPERTY));
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public boolean isSortedById() {
+        return ID_PROPERTY.equals(order.getProperty());
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "Keyset{" + "order=" + order + ", value='" + value + "'" + ", id=" + id + ", size=" + size + "}";
+    }
+}
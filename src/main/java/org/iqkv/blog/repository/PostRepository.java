@@ -1,6 +1,9 @@
 package org.iqkv.blog.repository;
 
+import java.util.Collection;
 import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.repository.search.PostSearchCriteria;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
@@ -16,15 +19,39 @@ import reactor.core.publisher.Mono;
 public interface PostRepository extends ReactiveCrudRepository<Post, Long>, PostRepositoryInternal {
     Flux<Post> findAllBy(Pageable pageable);
 
+    @Override
+    Flux<Post> findAllBy(Keyset keyset);
+
+    @Override
+    Flux<Post> findAllSummariesBy(Pageable pageable);
+
+    @Override
+    Flux<Post> findAllSummariesBy(Keyset keyset);
+
     @Override
     Mono<Post> findOneWithEagerRelationships(Long id);
 
+    @Override
+    Flux<Post> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids);
+
     @Override
     Flux<Post> findAllWithEagerRelationships();
 
     @Override
     Flux<Post> findAllWithEagerRelationships(Pageable page);
 
+    @Override
+    Flux<Post> findAllWithEagerRelationshipsBy(Keyset keyset);
+
+    @Override
+    Flux<Post> findAllSummariesWithEagerRelationships(Pageable page);
+
+    @Override
+    Flux<Post> findAllSummariesWithEagerRelationshipsBy(Keyset keyset);
+
+    @Override
+    Mono<Page<Post>> searchText(PostSearchCriteria criteria, Pageable pageable);
+
     @Query("SELECT * FROM post entity WHERE entity.blog_id = :id")
     Flux<Post> findByBlog(Long id);
 
@@ -52,6 +79,12 @@ interface PostRepositoryInternal {
 
     Flux<Post> findAllBy(Pageable pageable);
 
+    Flux<Post> findAllBy(Keyset keyset);
+
+    Flux<Post> findAllSummariesBy(Pageable pageable);
+
+    Flux<Post> findAllSummariesBy(Keyset keyset);
+
     Flux<Post> findAll();
 
     Mono<Post> findById(Long id);
@@ -60,9 +93,19 @@ interface PostRepositoryInternal {
 
     Mono<Post> findOneWithEagerRelationships(Long id);
 
+    Flux<Post> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids);
+
     Flux<Post> findAllWithEagerRelationships();
 
     Flux<Post> findAllWithEagerRelationships(Pageable page);
 
+    Flux<Post> findAllWithEagerRelationshipsBy(Keyset keyset);
+
+    Flux<Post> findAllSummariesWithEagerRelationships(Pageable page);
+
+    Flux<Post> findAllSummariesWithEagerRelationshipsBy(Keyset keyset);
+
+    Mono<Page<Post>> searchText(PostSearchCriteria criteria, Pageable pageable);
+
     Mono<Void> deleteById(Long id);
 }
@@ -2,21 +2,33 @@ package org.iqkv.blog.repository;
 
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.iqkv.blog.domain.Post;
 import org.iqkv.blog.domain.Tag;
 import org.iqkv.blog.repository.rowmapper.BlogRowMapper;
 import org.iqkv.blog.repository.rowmapper.PostRowMapper;
+import org.iqkv.blog.repository.rowmapper.TagRowMapper;
+import org.iqkv.blog.repository.search.PostSearchCriteria;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository;
 import org.springframework.data.relational.core.sql.Column;
-import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
@@ -25,6 +37,7 @@ import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.RowsFetchSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 /**
  * Spring Data R2DBC custom repository implementation for the Post entity.
@@ -38,9 +51,24 @@ class PostRepositoryInternalImpl extends SimpleR2dbcRepository<Post, Long> imple
 
     private final BlogRowMapper blogMapper;
     private final PostRowMapper postMapper;
+    private final TagRowMapper tagMapper;
+
+    private final String tagsSelect;
 
     private static final Table entityTable = Table.aliased("post", EntityManager.ENTITY_ALIAS);
+    private static final Condition idCondition = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":id"));
+    private static final Condition idsCondition = Conditions.in(entityTable.column("id"), SQL.bindMarker(":ids"));
     private static final Table blogTable = Table.aliased("blog", "blog");
+    private static final Table tagTable = Table.aliased("tag", "tag");
+    private static final Table tagLinkTable = Table.aliased("rel_post__tag", "rel");
+
+    // the sortable properties of the search fallback, with their column
+    private static final Map<String, String> SEARCH_SORT_COLUMNS = Map.of("id", "e.id", "title", "e.title", "date", "e.date");
+
+    /**
+     * The maximum length of the excerpt of the content, stored along the content and read by the post summaries.
+     */
+    static final int EXCERPT_LENGTH = 300;
 
     private static final EntityManager.LinkTable tagLink = new EntityManager.LinkTable("rel_post__tag", "post_id", "tag_id");
 
@@ -49,6 +77,7 @@ class PostRepositoryInternalImpl extends SimpleR2dbcRepository<Post, Long> imple
         EntityManager entityManager,
         BlogRowMapper blogMapper,
         PostRowMapper postMapper,
+        TagRowMapper tagMapper,
         R2dbcEntityOperations entityOperations,
         R2dbcConverter converter
     ) {
@@ -62,51 +91,264 @@ class PostRepositoryInternalImpl extends SimpleR2dbcRepository<Post, Long> imple
         this.entityManager = entityManager;
         this.blogMapper = blogMapper;
         this.postMapper = postMapper;
+        this.tagMapper = tagMapper;
+        this.tagsSelect = entityManager.createSelect(createTagsSelect());
     }
 
     @Override
     public Flux<Post> findAllBy(Pageable pageable) {
-        return createQuery(pageable, null).all();
+        return createQuery("all", pageable, null).all();
+    }
+
+    @Override
+    public Flux<Post> findAllBy(Keyset keyset) {
+        return createKeysetQuery("all", keyset, null).all();
+    }
+
+    /**
+     * Post summaries are selected without their content, which can be large, but with its excerpt.
+     */
+    @Override
+    public Flux<Post> findAllSummariesBy(Pageable pageable) {
+        String select = entityManager.createSelect(
+            "summaries",
+            PostRepositoryInternalImpl::createSummarySelectFrom,
+            Post.class,
+            pageable,
+            null
+        );
+        return entityManager.bindPage(db.sql(select), pageable).map(this::process).all();
+    }
+
+    @Override
+    public Flux<Post> findAllSummariesBy(Keyset keyset) {
+        String select = entityManager.createSelect(
+            "summaries",
+            PostRepositoryInternalImpl::createSummarySelectFrom,
+            Post.class,
+            keyset,
+            null
+        );
+        return entityManager.bindKeyset(db.sql(select), Post.class, keyset).map(this::process).all();
     }
 
-    RowsFetchSpec<Post> createQuery(Pageable pageable, Condition whereClause) {
-        List<Expression> columns = PostSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+    RowsFetchSpec<Post> createQuery(String shape, Pageable pageable, Condition whereClause) {
+        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
+        String select = entityManager.createSelect(shape, PostRepositoryInternalImpl::createSelectFrom, Post.class, pageable, whereClause);
+        return entityManager.bindPage(db.sql(select), pageable).map(this::process);
+    }
+
+    RowsFetchSpec<Post> createKeysetQuery(String shape, Keyset keyset, Condition whereClause) {
+        String select = entityManager.createSelect(shape, PostRepositoryInternalImpl::createSelectFrom, Post.class, keyset, whereClause);
+        return entityManager.bindKeyset(db.sql(select), Post.class, keyset).map(this::process);
+    }
+
+    private static SelectFromAndJoinCondition createSelectFrom() {
+        return createSelectFrom(PostSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS));
+    }
+
+    private static SelectFromAndJoinCondition createSummarySelectFrom() {
+        return createSelectFrom(PostSqlHelper.getSummaryColumns(entityTable, EntityManager.ENTITY_ALIAS));
+    }
+
+    private static SelectFromAndJoinCondition createSelectFrom(List<Expression> columns) {
         columns.addAll(BlogSqlHelper.getColumns(blogTable, "blog"));
-        SelectFromAndJoinCondition selectFrom = Select.builder()
+        return Select.builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(blogTable)
             .on(Column.create("blog_id", entityTable))
             .equals(Column.create("id", blogTable));
-        // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Post.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
     }
 
     @Override
     public Flux<Post> findAll() {
-        return findAllBy(null);
+        return findAllBy((Pageable) null);
     }
 
     @Override
     public Mono<Post> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.createSelect(
+            "byId",
+            PostRepositoryInternalImpl::createSelectFrom,
+            Post.class,
+            (Pageable) null,
+            idCondition
+        );
+        return db.sql(select).bind("id", id).map(this::process).one();
     }
 
     @Override
     public Mono<Post> findOneWithEagerRelationships(Long id) {
-        return findById(id);
+        return findById(id).flatMap(post -> fetchTags(List.of(post)).thenReturn(post));
+    }
+
+    @Override
+    public Flux<Post> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids) {
+        String select = entityManager.createSelect(
+            "byIds",
+            PostRepositoryInternalImpl::createSelectFrom,
+            Post.class,
+            (Pageable) null,
+            idsCondition
+        );
+        return fetchTags(db.sql(select).bind("ids", ids).map(this::process).all());
     }
 
     @Override
     public Flux<Post> findAllWithEagerRelationships() {
-        return findAll();
+        return fetchTags(findAll());
     }
 
     @Override
     public Flux<Post> findAllWithEagerRelationships(Pageable page) {
-        return findAllBy(page);
+        return fetchTags(findAllBy(page));
+    }
+
+    @Override
+    public Flux<Post> findAllWithEagerRelationshipsBy(Keyset keyset) {
+        return fetchTags(findAllBy(keyset));
+    }
+
+    @Override
+    public Flux<Post> findAllSummariesWithEagerRelationships(Pageable page) {
+        return fetchTags(findAllSummariesBy(page));
+    }
+
+    @Override
+    public Flux<Post> findAllSummariesWithEagerRelationshipsBy(Keyset keyset) {
+        return fetchTags(findAllSummariesBy(keyset));
+    }
+
+    /**
+     * Searches the posts with the PostgreSQL full-text search, the fallback of the Elasticsearch post search. The free
+     * text is matched against the {@code search_vector} column, generated from the title and the content, and the posts
+     * are sorted as requested, or by relevance when unsorted; by date without text. The ids of the page are selected
+     * first, then their posts are loaded with their blog and tags.
+     */
+    @Override
+    public Mono<Page<Post>> searchText(PostSearchCriteria criteria, Pageable pageable) {
+        boolean hasText = criteria.text() != null && !criteria.text().isBlank();
+        StringBuilder where = new StringBuilder(" WHERE TRUE");
+        if (hasText) {
+            where.append(" AND e.search_vector @@ websearch_to_tsquery('simple', :text)");
+        }
+        if (criteria.blogId() != null) {
+            where.append(" AND e.blog_id = :blogId");
+        }
+        if (criteria.tagIds() != null && !criteria.tagIds().isEmpty()) {
+            where.append(" AND EXISTS (SELECT 1 FROM rel_post__tag rel WHERE rel.post_id = e.id AND rel.tag_id IN (:tagIds))");
+        }
+        if (criteria.fromDate() != null) {
+            where.append(" AND e.date >= :fromDate");
+        }
+        if (criteria.toDate() != null) {
+            where.append(" AND e.date < :toDate");
+        }
+        String order;
+        if (pageable.getSort().isSorted()) {
+            order = searchOrder(pageable.getSort());
+        } else if (hasText) {
+            order = " ORDER BY ts_rank(e.search_vector, websearch_to_tsquery('simple', :text)) DESC, e.id";
+        } else {
+            order = " ORDER BY e.date DESC, e.id";
+        }
+        String select = "SELECT e.id FROM post e" + where + order + " LIMIT :limit OFFSET :offset";
+        Mono<List<Long>> ids = bindSearch(db.sql(select), criteria, hasText)
+            .bind("limit", pageable.getPageSize())
+            .bind("offset", pageable.getOffset())
+            .map(row -> row.get("id", Long.class))
+            .all()
+            .collectList();
+        Mono<Long> total = bindSearch(db.sql("SELECT COUNT(*) AS total FROM post e" + where), criteria, hasText)
+            .map(row -> row.get("total", Long.class))
+            .one();
+        return Mono.zip(ids, total).flatMap(idsAndTotal -> {
+            List<Long> pageIds = idsAndTotal.getT1();
+            Mono<List<Post>> posts = pageIds.isEmpty()
+                ? Mono.just(List.of())
+                : findAllWithEagerRelationshipsByIdIn(pageIds)
+                    .collectMap(Post::getId)
+                    // in the order of the ids, the posts deleted meanwhile are skipped
+                    .map(postsById -> pageIds.stream().map(postsById::get).filter(Objects::nonNull).toList());
+            return posts.<Page<Post>>map(content -> new PageImpl<>(content, pageable, idsAndTotal.getT2()));
+        });
+    }
+
+    /**
+     * Orders the posts of a search as requested, then by id. The missing values come last, as in Elasticsearch.
+     */
+    private static String searchOrder(Sort sort) {
+        StringJoiner order = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order sortOrder : sort) {
+            String column = SEARCH_SORT_COLUMNS.get(sortOrder.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("The posts can not be sorted by " + sortOrder.getProperty());
+            }
+            order.add(column + (sortOrder.isAscending() ? " ASC" : " DESC") + " NULLS LAST");
+        }
+        if (sort.getOrderFor("id") == null) {
+            order.add("e.id");
+        }
+        return order.toString();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindSearch(
+        DatabaseClient.GenericExecuteSpec spec,
+        PostSearchCriteria criteria,
+        boolean hasText
+    ) {
+        if (hasText) {
+            spec = spec.bind("text", criteria.text());
+        }
+        if (criteria.blogId() != null) {
+            spec = spec.bind("blogId", criteria.blogId());
+        }
+        if (criteria.tagIds() != null && !criteria.tagIds().isEmpty()) {
+            spec = spec.bind("tagIds", criteria.tagIds());
+        }
+        if (criteria.fromDate() != null) {
+            spec = spec.bind("fromDate", criteria.fromDate());
+        }
+        if (criteria.toDate() != null) {
+            spec = spec.bind("toDate", criteria.toDate());
+        }
+        return spec;
+    }
+
+    private Flux<Post> fetchTags(Flux<Post> posts) {
+        return posts.collectList().flatMapMany(list -> fetchTags(list).thenMany(Flux.fromIterable(list)));
+    }
+
+    /**
+     * Loads the tags of all the given posts with a single query on the link table, instead of one query per post.
+     */
+    private Mono<Void> fetchTags(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<Long, Post> postsById = posts.stream().collect(Collectors.toMap(Post::getId, Function.identity()));
+        return db
+            .sql(tagsSelect)
+            .bind("postIds", postsById.keySet())
+            .map((row, metadata) -> Tuples.of(row.get("post_id", Long.class), tagMapper.apply(row, "tag")))
+            .all()
+            .doOnNext(postWithTag -> postsById.get(postWithTag.getT1()).addTag(postWithTag.getT2()))
+            .then();
+    }
+
+    private static Select createTagsSelect() {
+        List<Expression> columns = new ArrayList<>();
+        columns.add(Column.aliased(tagLink.idColumn, tagLinkTable, "post_id"));
+        columns.addAll(TagSqlHelper.getColumns(tagTable, "tag"));
+        return Select.builder()
+            .select(columns)
+            .from(tagLinkTable)
+            .join(tagTable)
+            .on(Column.create(tagLink.referenceColumn, tagLinkTable))
+            .equals(Column.create("id", tagTable))
+            .where(Conditions.in(Column.create(tagLink.idColumn, tagLinkTable), SQL.bindMarker(":postIds")))
+            .build();
     }
 
     private Post process(Row row, RowMetadata metadata) {
@@ -117,9 +359,21 @@ class PostRepositoryInternalImpl extends SimpleR2dbcRepository<Post, Long> imple
 
     @Override
     public <S extends Post> Mono<S> save(S entity) {
+        entity.setExcerpt(createExcerpt(entity.getContent()));
         return super.save(entity).flatMap((S e) -> updateRelations(e));
     }
 
+    /**
+     * The excerpt counts characters as PostgreSQL does, in code points, see the backfill of the
+     * {@code 20261016090000_updated_entity_Post.xml} changelog.
+     */
+    static String createExcerpt(String content) {
+        if (content == null || content.codePointCount(0, content.length()) <= EXCERPT_LENGTH) {
+            return content;
+        }
+        return content.substring(0, content.offsetByCodePoints(0, EXCERPT_LENGTH - 1)) + "\u2026";
+    }
+
     protected <S extends Post> Mono<S> updateRelations(S entity) {
         Mono<Void> result = entityManager.updateLinkTable(tagLink, entity.getId(), entity.getTags().stream().map(Tag::getId)).then();
         return result.thenReturn(entity);
@@ -0,0 +1,49 @@
+package org.iqkv.blog.repository;
+
+import java.util.Collection;
+import org.iqkv.blog.domain.SearchOutboxEntry;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the SearchOutboxEntry entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface SearchOutboxRepository extends R2dbcRepository<SearchOutboxEntry, Long> {
+    /**
+     * Claims the oldest pending entries which are not claimed, or whose lease expired, for a lease. The entries locked
+     * by a concurrent claim are skipped, so the instances draining the outbox together never claim the same entries.
+     *
+     * @param maxAttempts the attempts after which an entry is no longer indexed.
+     * @param limit the maximum number of claimed entries.
+     * @param leaseSeconds the duration of the lease.
+     * @return the claimed entries.
+     */
+    @Query(
+        "UPDATE search_outbox SET claimed_until = now() + :leaseSeconds * INTERVAL '1 second' WHERE id IN (" +
+        "SELECT id FROM search_outbox WHERE attempts < :maxAttempts AND (claimed_until IS NULL OR claimed_until < now()) " +
+        "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING *"
+    )
+    Flux<SearchOutboxEntry> claimPending(int maxAttempts, int limit, long leaseSeconds);
+
+    @Query("SELECT * FROM search_outbox WHERE attempts < :maxAttempts ORDER BY id LIMIT 1")
+    Mono<SearchOutboxEntry> findOldestPending(int maxAttempts);
+
+    @Query("SELECT COUNT(*) FROM search_outbox WHERE attempts >= :maxAttempts")
+    Mono<Long> countAbandoned(int maxAttempts);
+
+    /**
+     * Counts a failed attempt of the entries, and releases their lease so they are retried with the next batches.
+     *
+     * @param ids the ids of the entries.
+     * @return the number of updated entries.
+     */
+    @Modifying
+    @Query("UPDATE search_outbox SET attempts = attempts + 1, claimed_until = NULL WHERE id IN (:ids)")
+    Mono<Long> incrementAttempts(Collection<Long> ids);
+}
@@ -0,0 +1,14 @@
+package org.iqkv.blog.repository;
+
+import org.iqkv.blog.domain.SearchReindex;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the {@link SearchReindex} entity.
+ */
+@Repository
+public interface SearchReindexRepository extends R2dbcRepository<SearchReindex, Long> {
+    Mono<SearchReindex> findFirstByEntityTypeOrderByIdDesc(String entityType);
+}
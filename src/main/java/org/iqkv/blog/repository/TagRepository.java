@@ -2,6 +2,7 @@ package org.iqkv.blog.repository;
 
 import org.iqkv.blog.domain.Tag;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -15,6 +16,15 @@ import reactor.core.publisher.Mono;
 public interface TagRepository extends ReactiveCrudRepository<Tag, Long>, TagRepositoryInternal {
     Flux<Tag> findAllBy(Pageable pageable);
 
+    @Override
+    Flux<Tag> findAllBy(Keyset keyset);
+
+    @Override
+    Flux<Tag> findAllByNameLike(String pattern, Pageable pageable);
+
+    @Query("SELECT COUNT(*) FROM tag entity WHERE entity.name ILIKE :pattern")
+    Mono<Long> countByNameLike(String pattern);
+
     @Override
     <S extends Tag> Mono<S> save(S entity);
 
@@ -33,6 +43,10 @@ interface TagRepositoryInternal {
 
     Flux<Tag> findAllBy(Pageable pageable);
 
+    Flux<Tag> findAllBy(Keyset keyset);
+
+    Flux<Tag> findAllByNameLike(String pattern, Pageable pageable);
+
     Flux<Tag> findAll();
 
     Mono<Tag> findById(Long id);
@@ -5,15 +5,17 @@ import io.r2dbc.spi.RowMetadata;
 import java.util.List;
 import org.iqkv.blog.domain.Tag;
 import org.iqkv.blog.repository.rowmapper.TagRowMapper;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository;
-import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.Table;
@@ -36,6 +38,8 @@ class TagRepositoryInternalImpl extends SimpleR2dbcRepository<Tag, Long> impleme
     private final TagRowMapper tagMapper;
 
     private static final Table entityTable = Table.aliased("tag", EntityManager.ENTITY_ALIAS);
+    private static final Condition idCondition = Conditions.isEqual(entityTable.column("id"), SQL.bindMarker(":id"));
+    private static final Condition nameLikeCondition = Conditions.just("e.name ILIKE :pattern");
 
     public TagRepositoryInternalImpl(
         R2dbcEntityTemplate template,
@@ -57,26 +61,66 @@ class TagRepositoryInternalImpl extends SimpleR2dbcRepository<Tag, Long> impleme
 
     @Override
     public Flux<Tag> findAllBy(Pageable pageable) {
-        return createQuery(pageable, null).all();
+        return createQuery("all", pageable, null).all();
     }
 
-    RowsFetchSpec<Tag> createQuery(Pageable pageable, Condition whereClause) {
-        List<Expression> columns = TagSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+    @Override
+    public Flux<Tag> findAllBy(Keyset keyset) {
+        return createKeysetQuery("all", keyset, null).all();
+    }
+
+    /**
+     * Finds the tags whose name matches the pattern, the fallback of the Elasticsearch tag search. The page is
+     * sorted as requested, by name when unsorted, and then by id so the pages never overlap.
+     */
+    @Override
+    public Flux<Tag> findAllByNameLike(String pattern, Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("name");
+        if (sort.getOrderFor("id") == null) {
+            sort = sort.and(Sort.by("id"));
+        }
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+        String select = entityManager.createSelect(
+            "byNameLike",
+            TagRepositoryInternalImpl::createSelectFrom,
+            Tag.class,
+            page,
+            nameLikeCondition
+        );
+        return entityManager.bindPage(db.sql(select), page).bind("pattern", pattern).map(this::process).all();
+    }
+
+    RowsFetchSpec<Tag> createQuery(String shape, Pageable pageable, Condition whereClause) {
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, Tag.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
+        String select = entityManager.createSelect(shape, TagRepositoryInternalImpl::createSelectFrom, Tag.class, pageable, whereClause);
+        return entityManager.bindPage(db.sql(select), pageable).map(this::process);
+    }
+
+    RowsFetchSpec<Tag> createKeysetQuery(String shape, Keyset keyset, Condition whereClause) {
+        String select = entityManager.createSelect(shape, TagRepositoryInternalImpl::createSelectFrom, Tag.class, keyset, whereClause);
+        return entityManager.bindKeyset(db.sql(select), Tag.class, keyset).map(this::process);
+    }
+
+    private static SelectFromAndJoin createSelectFrom() {
+        List<Expression> columns = TagSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        return Select.builder().select(columns).from(entityTable);
     }
 
     @Override
     public Flux<Tag> findAll() {
-        return findAllBy(null);
+        return findAllBy((Pageable) null);
     }
 
     @Override
     public Mono<Tag> findById(Long id) {
-        Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
-        return createQuery(null, whereClause).one();
+        String select = entityManager.createSelect(
+            "byId",
+            TagRepositoryInternalImpl::createSelectFrom,
+            Tag.class,
+            (Pageable) null,
+            idCondition
+        );
+        return db.sql(select).bind("id", id).map(this::process).one();
     }
 
     private Tag process(Row row, RowMetadata metadata) {
@@ -5,22 +5,21 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.apache.commons.beanutils.BeanComparator;
 import org.iqkv.blog.domain.Authority;
 import org.iqkv.blog.domain.User;
 import org.springframework.data.domain.*;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
 /**
@@ -42,6 +41,8 @@ public interface UserRepository extends R2dbcRepository<User, Long>, UserReposit
 
     Flux<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
 
+    Flux<User> findAllByIdGreaterThan(Long id, Pageable pageable);
+
     Mono<Long> count();
 
     @Query("INSERT INTO jhi_user_authority VALUES(:userId, :authority)")
@@ -70,12 +71,10 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
-    private final R2dbcConverter r2dbcConverter;
 
-    public UserRepositoryInternalImpl(DatabaseClient db, R2dbcEntityTemplate r2dbcEntityTemplate, R2dbcConverter r2dbcConverter) {
+    public UserRepositoryInternalImpl(DatabaseClient db, R2dbcEntityTemplate r2dbcEntityTemplate) {
         this.db = db;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
-        this.r2dbcConverter = r2dbcConverter;
     }
 
     @Override
@@ -88,31 +87,47 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
         return findOneWithAuthoritiesBy("email", email.toLowerCase());
     }
 
+    /**
+     * Selects a page of users in SQL, then loads their authorities. The sort properties are checked by the callers.
+     */
     @Override
     public Flux<User> findAllWithAuthorities(Pageable pageable) {
-        String property = pageable.getSort().stream().map(Sort.Order::getProperty).findFirst().orElse("id");
-        String direction = String.valueOf(
-            pageable.getSort().stream().map(Sort.Order::getDirection).findFirst().orElse(Sort.DEFAULT_DIRECTION)
-        );
-        long page = pageable.getPageNumber();
-        long size = pageable.getPageSize();
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor("id") == null) {
+            // id as tiebreaker, so the pages are stable
+            sort = sort.and(Sort.by("id"));
+        }
+        var pageQuery = query(Criteria.empty()).sort(sort);
+        if (pageable.isPaged()) {
+            pageQuery = pageQuery.limit(pageable.getPageSize()).offset(pageable.getOffset());
+        }
+        return r2dbcEntityTemplate
+            .select(User.class)
+            .matching(pageQuery)
+            .all()
+            .collectList()
+            .flatMapMany(users -> fetchAuthorities(users).thenMany(Flux.fromIterable(users)));
+    }
 
+    /**
+     * Loads the authorities of the given users with a single query.
+     */
+    private Mono<Void> fetchAuthorities(List<User> users) {
+        if (users.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<Long, User> usersById = users.stream().collect(Collectors.toMap(User::getId, Function.identity()));
         return db
-            .sql("SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id")
-            .map(
-                (row, metadata) ->
-                    Tuples.of(r2dbcConverter.read(User.class, row, metadata), Optional.ofNullable(row.get("authority_name", String.class)))
-            )
+            .sql("SELECT user_id, authority_name FROM jhi_user_authority WHERE user_id IN (:userIds)")
+            .bind("userIds", usersById.keySet())
+            .map((row, metadata) -> Tuples.of(row.get("user_id", Long.class), row.get("authority_name", String.class)))
             .all()
-            .groupBy(t -> t.getT1().getLogin())
-            .flatMap(l -> l.collectList().map(t -> updateUserWithAuthorities(t.get(0).getT1(), t)))
-            .sort(
-                Sort.Direction.fromString(direction) == Sort.DEFAULT_DIRECTION
-                    ? new BeanComparator<>(property)
-                    : new BeanComparator<>(property).reversed()
-            )
-            .skip(page * size)
-            .take(size);
+            .doOnNext(userWithAuthority -> {
+                Authority authority = new Authority();
+                authority.setName(userWithAuthority.getT2());
+                usersById.get(userWithAuthority.getT1()).getAuthorities().add(authority);
+            })
+            .then();
     }
 
     @Override
@@ -125,32 +140,8 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
     }
 
     private Mono<User> findOneWithAuthoritiesBy(String fieldName, Object fieldValue) {
-        return db
-            .sql("SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id WHERE u." + fieldName + " = :" + fieldName)
-            .bind(fieldName, fieldValue)
-            .map(
-                (row, metadata) ->
-                    Tuples.of(r2dbcConverter.read(User.class, row, metadata), Optional.ofNullable(row.get("authority_name", String.class)))
-            )
-            .all()
-            .collectList()
-            .filter(l -> !l.isEmpty())
-            .map(l -> updateUserWithAuthorities(l.get(0).getT1(), l));
-    }
-
-    private User updateUserWithAuthorities(User user, List<Tuple2<User, Optional<String>>> tuples) {
-        user.setAuthorities(
-            tuples
-                .stream()
-                .filter(t -> t.getT2().isPresent())
-                .map(t -> {
-                    Authority authority = new Authority();
-                    authority.setName(t.getT2().orElseThrow());
-                    return authority;
-                })
-                .collect(Collectors.toSet())
-        );
-
-        return user;
+        return r2dbcEntityTemplate
+            .selectOne(query(where(fieldName).is(fieldValue)), User.class)
+            .flatMap(user -> fetchAuthorities(List.of(user)).thenReturn(user));
     }
 }
@@ -1,6 +1,7 @@
 package org.iqkv.blog.repository.rowmapper;
 
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.util.function.BiFunction;
 import org.iqkv.blog.domain.Blog;
 import org.springframework.stereotype.Service;
@@ -11,10 +12,10 @@ import org.springframework.stereotype.Service;
 @Service
 public class BlogRowMapper implements BiFunction<Row, String, Blog> {
 
-    private final ColumnConverter converter;
+    private final ColumnReaders<Columns> columnReaders;
 
     public BlogRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        this.columnReaders = new ColumnReaders<>((metadata, prefix) -> new Columns(converter, metadata, prefix));
     }
 
     /**
@@ -23,11 +24,27 @@ public class BlogRowMapper implements BiFunction<Row, String, Blog> {
      */
     @Override
     public Blog apply(Row row, String prefix) {
+        Columns columns = columnReaders.get(row, prefix);
         Blog entity = new Blog();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setName(converter.fromRow(row, prefix + "_name", String.class));
-        entity.setHandle(converter.fromRow(row, prefix + "_handle", String.class));
-        entity.setUserId(converter.fromRow(row, prefix + "_user_id", Long.class));
+        entity.setId(columns.id.read(row));
+        entity.setName(columns.name.read(row));
+        entity.setHandle(columns.handle.read(row));
+        entity.setUserId(columns.userId.read(row));
         return entity;
     }
+
+    private static final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> name;
+        private final ColumnReader<String> handle;
+        private final ColumnReader<Long> userId;
+
+        private Columns(ColumnConverter converter, RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            name = converter.reader(metadata, prefix + "_name", String.class);
+            handle = converter.reader(metadata, prefix + "_handle", String.class);
+            userId = converter.reader(metadata, prefix + "_user_id", Long.class);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package org.iqkv.blog.repository.rowmapper;
 
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
@@ -48,8 +49,34 @@ public class ColumnConverter implements ColumnConverterReactive {
         return conversionService.convert(value, target);
     }
 
+    /**
+     * Resolves the reader of a column, which reads the column by index with a conversion resolved once.
+     * Readers are meant to be resolved once per result, see the row mappers.
+     * @param metadata the metadata of the result.
+     * @param columnName the name of the column.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the column reader.
+     */
+    public <T> ColumnReader<T> reader(RowMetadata metadata, String columnName, Class<T> target) {
+        return ColumnReader.of(metadata, columnName, target, this);
+    }
+
+    /**
+     * Resolves the reader of a column which is not selected by all the queries, it reads {@code null} when the column is absent.
+     * @param metadata the metadata of the result.
+     * @param columnName the name of the column.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the column reader.
+     */
+    public <T> ColumnReader<T> optionalReader(RowMetadata metadata, String columnName, Class<T> target) {
+        return ColumnReader.ofOptional(metadata, columnName, target, this);
+    }
+
     /**
      * Convert a value from the {@link Row} to a type - throws an exception, if it's impossible.
+     * The column is looked up for each call, prefer a {@link ColumnReader} for reading many rows.
      * @param row which contains the column values.
      * @param target class.
      * @param columnName the name of the column which to convert.
@@ -57,12 +84,6 @@ public class ColumnConverter implements ColumnConverterReactive {
      * @return the value which can be constructed from the input.
      */
     public <T> T fromRow(Row row, String columnName, Class<T> target) {
-        try {
-            // try, directly the driver
-            return row.get(columnName, target);
-        } catch (Exception e) {
-            Object obj = row.get(columnName);
-            return convert(obj, target);
-        }
+        return reader(row.getMetadata(), columnName, target).read(row);
     }
 }
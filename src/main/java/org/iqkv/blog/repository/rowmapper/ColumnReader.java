@@ -0,0 +1,105 @@
+package org.iqkv.blog.repository.rowmapper;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a column of a result by its index, with the conversion resolved once for the shape of the result.
+ * <p>
+ * When the driver reports a Java type compatible with the target type, the value is read directly from the driver.
+ * Otherwise the driver is probed once: if it can't decode the column to the target type, the raw value is converted
+ * with the {@link ColumnConverter} for the following rows.
+ *
+ * @param <T> the target type.
+ */
+public final class ColumnReader<T> {
+
+    private enum Mode {
+        ABSENT,
+        DIRECT,
+        PROBE,
+        CONVERT,
+    }
+
+    private final int index;
+    private final Class<T> target;
+    private final ColumnConverter converter;
+    private volatile Mode mode;
+
+    private ColumnReader(int index, Class<T> target, ColumnConverter converter, Mode mode) {
+        this.index = index;
+        this.target = target;
+        this.converter = converter;
+        this.mode = mode;
+    }
+
+    /**
+     * Resolves the reader of a column.
+     * @param metadata the metadata of the result.
+     * @param columnName the name of the column, case insensitive.
+     * @param target the target type.
+     * @param converter the converter used when the driver can't decode the column to the target type.
+     * @param <T> the target type.
+     * @return the column reader.
+     * @throws NoSuchElementException if the result has no such column.
+     */
+    static <T> ColumnReader<T> of(RowMetadata metadata, String columnName, Class<T> target, ColumnConverter converter) {
+        ColumnReader<T> reader = ofOptional(metadata, columnName, target, converter);
+        if (reader.mode == Mode.ABSENT) {
+            throw new NoSuchElementException("Column " + columnName + " does not exist");
+        }
+        return reader;
+    }
+
+    /**
+     * Resolves the reader of a column which is not selected by all the queries, such as a large column left out of a summary.
+     * @param metadata the metadata of the result.
+     * @param columnName the name of the column, case insensitive.
+     * @param target the target type.
+     * @param converter the converter used when the driver can't decode the column to the target type.
+     * @param <T> the target type.
+     * @return the column reader, which reads {@code null} if the result has no such column.
+     */
+    static <T> ColumnReader<T> ofOptional(RowMetadata metadata, String columnName, Class<T> target, ColumnConverter converter) {
+        List<? extends ColumnMetadata> columns = metadata.getColumnMetadatas();
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnMetadata column = columns.get(index);
+            if (column.getName().equalsIgnoreCase(columnName)) {
+                Class<?> javaType = column.getJavaType();
+                Mode mode = javaType != null && target.isAssignableFrom(javaType) ? Mode.DIRECT : Mode.PROBE;
+                return new ColumnReader<>(index, target, converter, mode);
+            }
+        }
+        return new ColumnReader<>(-1, target, converter, Mode.ABSENT);
+    }
+
+    /**
+     * Reads the column value of a row.
+     * @param row a row of the result this reader was resolved for.
+     * @return the converted value.
+     */
+    public T read(Row row) {
+        Mode current = mode;
+        if (current == Mode.ABSENT) {
+            return null;
+        }
+        if (current == Mode.DIRECT) {
+            return row.get(index, target);
+        }
+        if (current == Mode.PROBE) {
+            try {
+                T value = row.get(index, target);
+                if (value != null) {
+                    mode = Mode.DIRECT;
+                }
+                return value;
+            } catch (RuntimeException e) {
+                mode = Mode.CONVERT;
+            }
+        }
+        return converter.convert(row.get(index), target);
+    }
+}
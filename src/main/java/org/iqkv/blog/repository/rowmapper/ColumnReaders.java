@@ -0,0 +1,44 @@
+package org.iqkv.blog.repository.rowmapper;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Cache of the column readers of a row mapper, resolved once per column prefix and result shape.
+ * <p>
+ * Drivers share the same {@link RowMetadata} between the rows of a result, so the readers of the last result are
+ * found by identity; the readers of a new result are looked up by its column names.
+ *
+ * @param <C> the type holding the column readers of an entity.
+ */
+final class ColumnReaders<C> {
+
+    private record Shape(String prefix, List<String> columnNames) {}
+
+    private record Resolved<C>(RowMetadata metadata, C columns) {}
+
+    private final BiFunction<RowMetadata, String, C> resolver;
+    private final Map<String, Resolved<C>> lastByPrefix = new ConcurrentHashMap<>();
+    private final Map<Shape, C> byShape = new ConcurrentHashMap<>();
+
+    ColumnReaders(BiFunction<RowMetadata, String, C> resolver) {
+        this.resolver = resolver;
+    }
+
+    C get(Row row, String prefix) {
+        RowMetadata metadata = row.getMetadata();
+        Resolved<C> last = lastByPrefix.get(prefix);
+        if (last != null && last.metadata() == metadata) {
+            return last.columns();
+        }
+        List<String> columnNames = metadata.getColumnMetadatas().stream().map(ColumnMetadata::getName).toList();
+        C columns = byShape.computeIfAbsent(new Shape(prefix, columnNames), shape -> resolver.apply(metadata, prefix));
+        lastByPrefix.put(prefix, new Resolved<>(metadata, columns));
+        return columns;
+    }
+}
@@ -1,6 +1,7 @@
 package org.iqkv.blog.repository.rowmapper;
 
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
 import java.util.function.BiFunction;
 import org.iqkv.blog.domain.Post;
@@ -12,10 +13,10 @@ import org.springframework.stereotype.Service;
 @Service
 public class PostRowMapper implements BiFunction<Row, String, Post> {
 
-    private final ColumnConverter converter;
+    private final ColumnReaders<Columns> columnReaders;
 
     public PostRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        this.columnReaders = new ColumnReaders<>((metadata, prefix) -> new Columns(converter, metadata, prefix));
     }
 
     /**
@@ -24,12 +25,34 @@ public class PostRowMapper implements BiFunction<Row, String, Post> {
      */
     @Override
     public Post apply(Row row, String prefix) {
+        Columns columns = columnReaders.get(row, prefix);
         Post entity = new Post();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setTitle(converter.fromRow(row, prefix + "_title", String.class));
-        entity.setContent(converter.fromRow(row, prefix + "_content", String.class));
-        entity.setDate(converter.fromRow(row, prefix + "_date", Instant.class));
-        entity.setBlogId(converter.fromRow(row, prefix + "_blog_id", Long.class));
+        entity.setId(columns.id.read(row));
+        entity.setTitle(columns.title.read(row));
+        entity.setContent(columns.content.read(row));
+        entity.setExcerpt(columns.excerpt.read(row));
+        entity.setDate(columns.date.read(row));
+        entity.setBlogId(columns.blogId.read(row));
         return entity;
     }
+
+    private static final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> title;
+        private final ColumnReader<String> content;
+        private final ColumnReader<String> excerpt;
+        private final ColumnReader<Instant> date;
+        private final ColumnReader<Long> blogId;
+
+        private Columns(ColumnConverter converter, RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            title = converter.reader(metadata, prefix + "_title", String.class);
+            // the summaries of the posts are selected without their content
+            content = converter.optionalReader(metadata, prefix + "_content", String.class);
+            excerpt = converter.reader(metadata, prefix + "_excerpt", String.class);
+            date = converter.reader(metadata, prefix + "_date", Instant.class);
+            blogId = converter.reader(metadata, prefix + "_blog_id", Long.class);
+        }
+    }
 }
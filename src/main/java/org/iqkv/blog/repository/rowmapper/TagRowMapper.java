@@ -1,6 +1,7 @@
 package org.iqkv.blog.repository.rowmapper;
 
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.util.function.BiFunction;
 import org.iqkv.blog.domain.Tag;
 import org.springframework.stereotype.Service;
@@ -11,10 +12,10 @@ import org.springframework.stereotype.Service;
 @Service
 public class TagRowMapper implements BiFunction<Row, String, Tag> {
 
-    private final ColumnConverter converter;
+    private final ColumnReaders<Columns> columnReaders;
 
     public TagRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        this.columnReaders = new ColumnReaders<>((metadata, prefix) -> new Columns(converter, metadata, prefix));
     }
 
     /**
@@ -23,9 +24,21 @@ public class TagRowMapper implements BiFunction<Row, String, Tag> {
      */
     @Override
     public Tag apply(Row row, String prefix) {
+        Columns columns = columnReaders.get(row, prefix);
         Tag entity = new Tag();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setName(converter.fromRow(row, prefix + "_name", String.class));
+        entity.setId(columns.id.read(row));
+        entity.setName(columns.name.read(row));
         return entity;
     }
+
+    private static final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> name;
+
+        private Columns(ColumnConverter converter, RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            name = converter.reader(metadata, prefix + "_name", String.class);
+        }
+    }
 }
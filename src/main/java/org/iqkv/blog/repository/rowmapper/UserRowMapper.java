@@ -1,6 +1,7 @@
 package org.iqkv.blog.repository.rowmapper;
 
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
 import java.util.function.BiFunction;
 import org.iqkv.blog.domain.User;
@@ -12,10 +13,10 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserRowMapper implements BiFunction<Row, String, User> {
 
-    private final ColumnConverter converter;
+    private final ColumnReaders<Columns> columnReaders;
 
     public UserRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        this.columnReaders = new ColumnReaders<>((metadata, prefix) -> new Columns(converter, metadata, prefix));
     }
 
     /**
@@ -24,19 +25,51 @@ public class UserRowMapper implements BiFunction<Row, String, User> {
      */
     @Override
     public User apply(Row row, String prefix) {
+        Columns columns = columnReaders.get(row, prefix);
         User entity = new User();
-        entity.setId(row.get(prefix + "_id", Long.class));
-        entity.setLogin(converter.fromRow(row, prefix + "_login", String.class));
-        entity.setPassword(converter.fromRow(row, prefix + "_password", String.class));
-        entity.setFirstName(converter.fromRow(row, prefix + "_first_name", String.class));
-        entity.setLastName(converter.fromRow(row, prefix + "_last_name", String.class));
-        entity.setEmail(converter.fromRow(row, prefix + "_email", String.class));
-        entity.setActivated(Boolean.TRUE.equals(converter.fromRow(row, prefix + "_activated", Boolean.class)));
-        entity.setLangKey(converter.fromRow(row, prefix + "_lang_key", String.class));
-        entity.setImageUrl(converter.fromRow(row, prefix + "_image_url", String.class));
-        entity.setActivationKey(converter.fromRow(row, prefix + "_activation_key", String.class));
-        entity.setResetKey(converter.fromRow(row, prefix + "_reset_key", String.class));
-        entity.setResetDate(converter.fromRow(row, prefix + "_reset_date", Instant.class));
+        entity.setId(columns.id.read(row));
+        entity.setLogin(columns.login.read(row));
+        entity.setPassword(columns.password.read(row));
+        entity.setFirstName(columns.firstName.read(row));
+        entity.setLastName(columns.lastName.read(row));
+        entity.setEmail(columns.email.read(row));
+        entity.setActivated(Boolean.TRUE.equals(columns.activated.read(row)));
+        entity.setLangKey(columns.langKey.read(row));
+        entity.setImageUrl(columns.imageUrl.read(row));
+        entity.setActivationKey(columns.activationKey.read(row));
+        entity.setResetKey(columns.resetKey.read(row));
+        entity.setResetDate(columns.resetDate.read(row));
         return entity;
     }
+
+    private static final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> login;
+        private final ColumnReader<String> password;
+        private final ColumnReader<String> firstName;
+        private final ColumnReader<String> lastName;
+        private final ColumnReader<String> email;
+        private final ColumnReader<Boolean> activated;
+        private final ColumnReader<String> langKey;
+        private final ColumnReader<String> imageUrl;
+        private final ColumnReader<String> activationKey;
+        private final ColumnReader<String> resetKey;
+        private final ColumnReader<Instant> resetDate;
+
+        private Columns(ColumnConverter converter, RowMetadata metadata, String prefix) {
+            id = converter.reader(metadata, prefix + "_id", Long.class);
+            login = converter.reader(metadata, prefix + "_login", String.class);
+            password = converter.reader(metadata, prefix + "_password", String.class);
+            firstName = converter.reader(metadata, prefix + "_first_name", String.class);
+            lastName = converter.reader(metadata, prefix + "_last_name", String.class);
+            email = converter.reader(metadata, prefix + "_email", String.class);
+            activated = converter.reader(metadata, prefix + "_activated", Boolean.class);
+            langKey = converter.reader(metadata, prefix + "_lang_key", String.class);
+            imageUrl = converter.reader(metadata, prefix + "_image_url", String.class);
+            activationKey = converter.reader(metadata, prefix + "_activation_key", String.class);
+            resetKey = converter.reader(metadata, prefix + "_reset_key", String.class);
+            resetDate = converter.reader(metadata, prefix + "_reset_date", Instant.class);
+        }
+    }
 }
@@ -1,14 +1,22 @@
 package org.iqkv.blog.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import java.util.List;
+import java.util.Set;
+import org.iqkv.blog.config.ApplicationProperties;
 import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.repository.BlogRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Blog} entity.
@@ -16,28 +24,96 @@ import reactor.core.publisher.Flux;
 public interface BlogSearchRepository extends ReactiveElasticsearchRepository<Blog, Long>, BlogSearchRepositoryInternal {}
 
 interface BlogSearchRepositoryInternal {
-    Flux<Blog> search(String query, Pageable pageable);
+    Mono<Page<Blog>> search(String text, Pageable pageable);
+
+    Mono<Page<Blog>> searchQueryString(String query, Pageable pageable);
 
     Flux<Blog> search(Query query);
+
+    Flux<Blog> suggest(String prefix, int size);
 }
 
 class BlogSearchRepositoryInternalImpl implements BlogSearchRepositoryInternal {
 
+    static final List<String> TEXT_FIELDS = List.of("name^2", "name.en^2", "name.ru^2", "name.uk^2", "handle");
+
+    private static final Set<String> TEXT_PROPERTIES = Set.of("name", "handle");
+
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "name", "handle");
+
     private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
 
-    BlogSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
+    private final BlogRepository blogRepository;
+
+    private final SearchCircuitBreaker searchCircuitBreaker;
+
+    private final int trackTotalHits;
+
+    private final int maxTextLength;
+
+    BlogSearchRepositoryInternalImpl(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        BlogRepository blogRepository,
+        SearchCircuitBreaker searchCircuitBreaker,
+        ApplicationProperties applicationProperties
+    ) {
         this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.blogRepository = blogRepository;
+        this.searchCircuitBreaker = searchCircuitBreaker;
+        this.trackTotalHits = applicationProperties.getSearch().getTrackTotalHits();
+        this.maxTextLength = applicationProperties.getSearch().getMaxTextLength();
     }
 
     @Override
-    public Flux<Blog> search(String query, Pageable pageable) {
-        NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
-        nativeQuery.setPageable(pageable);
-        return search(nativeQuery);
+    public Mono<Page<Blog>> search(String text, Pageable pageable) {
+        return SearchSort.requireSortable(
+            pageable,
+            SORT_PROPERTIES,
+            searchCircuitBreaker.run(
+                Blog.class,
+                search(SearchQueries.text(text, maxTextLength, TEXT_FIELDS), pageable),
+                () -> searchDatabase(text, pageable)
+            )
+        );
+    }
+
+    /**
+     * Searches the blogs whose name or handle contains the text in the database, while Elasticsearch is unavailable.
+     */
+    private Mono<Page<Blog>> searchDatabase(String text, Pageable pageable) {
+        String pattern = SearchQueries.containsPattern(text, maxTextLength);
+        return Mono.zip(
+            blogRepository.findAllByNameLike(pattern, pageable).collectList(),
+            blogRepository.countByNameLike(pattern)
+        ).<Page<Blog>>map(page -> new PageImpl<>(page.getT1(), pageable, page.getT2()));
+    }
+
+    @Override
+    public Mono<Page<Blog>> searchQueryString(String query, Pageable pageable) {
+        return search(SearchQueries.queryString(query), pageable);
+    }
+
+    private Mono<Page<Blog>> search(co.elastic.clients.elasticsearch._types.query_dsl.Query query, Pageable pageable) {
+        NativeQuery nativeQuery = new NativeQuery(query);
+        nativeQuery.setPageable(SearchSort.onKeywords(pageable, TEXT_PROPERTIES));
+        // the total comes with the hits, counted exactly up to track-total-hits
+        nativeQuery.setTrackTotalHitsUpTo(trackTotalHits);
+        return reactiveElasticsearchTemplate.searchForPage(nativeQuery, Blog.class).map(page -> page.map(SearchHit::getContent));
     }
 
     @Override
     public Flux<Blog> search(Query query) {
         return reactiveElasticsearchTemplate.search(query, Blog.class).map(SearchHit::getContent);
     }
+
+    @Override
+    public Flux<Blog> suggest(String prefix, int size) {
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(SearchQueries.prefix(prefix, maxTextLength, "name.suggest"))
+            .withSourceFilter(new FetchSourceFilter(new String[] { "id", "name" }, null))
+            .withPageable(PageRequest.of(0, size))
+            .withTrackTotalHits(false)
+            .build();
+        return reactiveElasticsearchTemplate.search(nativeQuery, Blog.class).map(SearchHit::getContent);
+    }
 }
@@ -0,0 +1,17 @@
+package org.iqkv.blog.repository.search;
+
+import java.util.function.Function;
+import org.springframework.data.domain.Page;
+
+/**
+ * A page of a search, with the facets of the whole result set.
+ *
+ * @param page the hits of the page.
+ * @param facets the facets of the search.
+ * @param <T> the type of the hits.
+ */
+public record FacetedSearchPage<T>(Page<T> page, PostSearchFacets facets) {
+    public <U> FacetedSearchPage<U> map(Function<? super T, ? extends U> converter) {
+        return new FacetedSearchPage<>(page.map(converter), facets);
+    }
+}
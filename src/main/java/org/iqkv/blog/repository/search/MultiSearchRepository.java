@@ -0,0 +1,174 @@
+package org.iqkv.blog.repository.search;
+
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.domain.User;
+import org.iqkv.blog.repository.BlogRepository;
+import org.iqkv.blog.repository.PostRepository;
+import org.iqkv.blog.repository.TagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository searching the post, blog, tag and user indexes with a single {@code _msearch} request.
+ * <p>
+ * The free text is matched on the same fields as the search of each type. Each search runs within
+ * {@code application.search.multi.timeout} on the shards: a slow or failed index returns the hits collected so far, or
+ * none, and does not hold up the others. The request goes through the {@link SearchCircuitBreaker}: while Elasticsearch is
+ * unavailable, the posts, blogs and tags are searched in the database, and the users, which have no database search, are
+ * returned as a partial empty group.
+ */
+@Repository
+public class MultiSearchRepository {
+
+    private final Logger log = LoggerFactory.getLogger(MultiSearchRepository.class);
+
+    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private final ElasticsearchConverter elasticsearchConverter;
+
+    private final PostRepository postRepository;
+
+    private final BlogRepository blogRepository;
+
+    private final TagRepository tagRepository;
+
+    private final SearchCircuitBreaker searchCircuitBreaker;
+
+    private final int trackTotalHits;
+
+    private final int maxTextLength;
+
+    private final Duration timeout;
+
+    public MultiSearchRepository(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        PostRepository postRepository,
+        BlogRepository blogRepository,
+        TagRepository tagRepository,
+        SearchCircuitBreaker searchCircuitBreaker,
+        ApplicationProperties applicationProperties
+    ) {
+        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.elasticsearchConverter = reactiveElasticsearchTemplate.getElasticsearchConverter();
+        this.postRepository = postRepository;
+        this.blogRepository = blogRepository;
+        this.tagRepository = tagRepository;
+        this.searchCircuitBreaker = searchCircuitBreaker;
+        this.trackTotalHits = applicationProperties.getSearch().getTrackTotalHits();
+        this.maxTextLength = applicationProperties.getSearch().getMaxTextLength();
+        this.timeout = applicationProperties.getSearch().getMulti().getTimeout();
+    }
+
+    /**
+     * Searches the posts, blogs, tags and users matching a free text.
+     *
+     * @param text the free text, {@code null} or blank to match all the documents.
+     * @param size the number of hits returned per type.
+     * @return the hits, grouped by type.
+     */
+    public Mono<MultiSearchResult> search(String text, int size) {
+        return searchCircuitBreaker.run(
+            MultiSearchResult.class,
+            Mono.defer(() -> searchIndexes(text, size)),
+            () -> searchDatabase(text, size)
+        );
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Mono<MultiSearchResult> searchIndexes(String text, int size) {
+        MsearchRequest request = MsearchRequest.of(msearch -> {
+            // the order of the searches is the order of their responses
+            addSearch(msearch, Post.class, PostSearchRepositoryInternalImpl.TEXT_FIELDS, text, size);
+            addSearch(msearch, Blog.class, BlogSearchRepositoryInternalImpl.TEXT_FIELDS, text, size);
+            addSearch(msearch, Tag.class, TagSearchRepositoryInternalImpl.TEXT_FIELDS, text, size);
+            addSearch(msearch, User.class, UserSearchRepositoryInternalImpl.TEXT_FIELDS, text, size);
+            return msearch;
+        });
+        return Mono.from(reactiveElasticsearchTemplate.execute(client -> client.msearch(request, Map.class))).map(response -> {
+            List<MultiSearchResponseItem<Map>> responses = response.responses();
+            return new MultiSearchResult(
+                group(responses.get(0), Post.class),
+                group(responses.get(1), Blog.class),
+                group(responses.get(2), Tag.class),
+                group(responses.get(3), User.class)
+            );
+        });
+    }
+
+    /**
+     * Searches the posts, blogs and tags in the database, while Elasticsearch is unavailable.
+     */
+    private Mono<MultiSearchResult> searchDatabase(String text, int size) {
+        Pageable pageable = PageRequest.of(0, size);
+        String pattern = SearchQueries.containsPattern(text, maxTextLength);
+        return Mono.zip(
+            postRepository.searchText(PostSearchCriteria.text(text), pageable).map(MultiSearchRepository::group),
+            group(blogRepository.findAllByNameLike(pattern, pageable).collectList(), blogRepository.countByNameLike(pattern)),
+            group(tagRepository.findAllByNameLike(pattern, pageable).collectList(), tagRepository.countByNameLike(pattern))
+        ).map(groups -> {
+            // the users are searched in Elasticsearch only
+            MultiSearchResult.Group<User> users = new MultiSearchResult.Group<>(List.of(), 0, true);
+            return new MultiSearchResult(groups.getT1(), groups.getT2(), groups.getT3(), users);
+        });
+    }
+
+    private static <T> Mono<MultiSearchResult.Group<T>> group(Mono<List<T>> content, Mono<Long> total) {
+        return Mono.zip(content, total).map(group -> new MultiSearchResult.Group<>(group.getT1(), group.getT2(), false));
+    }
+
+    private static <T> MultiSearchResult.Group<T> group(Page<T> page) {
+        return new MultiSearchResult.Group<>(page.getContent(), page.getTotalElements(), false);
+    }
+
+    private void addSearch(MsearchRequest.Builder msearch, Class<?> entityType, List<String> fields, String text, int size) {
+        String index = reactiveElasticsearchTemplate.getIndexCoordinatesFor(entityType).getIndexName();
+        msearch.searches(search ->
+            search
+                .header(header -> header.index(index))
+                .body(body ->
+                    body
+                        .query(SearchQueries.text(text, maxTextLength, fields))
+                        .size(size)
+                        .trackTotalHits(trackHits -> trackHits.count(trackTotalHits))
+                        .timeout(timeout.toMillis() + "ms")
+                )
+        );
+    }
+
+    @SuppressWarnings("rawtypes")
+    private <T> MultiSearchResult.Group<T> group(MultiSearchResponseItem<Map> item, Class<T> entityType) {
+        if (item.isFailure()) {
+            log.warn("Could not search the {} index : {}", entityType.getSimpleName(), item.failure().error().reason());
+            return new MultiSearchResult.Group<>(List.of(), 0, true);
+        }
+        HitsMetadata<Map> hits = item.result().hits();
+        List<T> content = hits.hits().stream().map(hit -> read(hit, entityType)).toList();
+        long total = hits.total() != null ? hits.total().value() : content.size();
+        return new MultiSearchResult.Group<>(content, total, item.result().timedOut());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private <T> T read(Hit<Map> hit, Class<T> entityType) {
+        Document document = Document.from(hit.source());
+        document.setId(hit.id());
+        return elasticsearchConverter.read(entityType, document);
+    }
+}
@@ -0,0 +1,32 @@
+package org.iqkv.blog.repository.search;
+
+import java.util.List;
+import java.util.function.Function;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.domain.User;
+
+/**
+ * The hits of a search of all the types, grouped by type.
+ *
+ * @param posts the hits of the post index.
+ * @param blogs the hits of the blog index.
+ * @param tags the hits of the tag index.
+ * @param users the hits of the user index.
+ */
+public record MultiSearchResult(Group<Post> posts, Group<Blog> blogs, Group<Tag> tags, Group<User> users) {
+    /**
+     * The hits of a type.
+     *
+     * @param content the first hits.
+     * @param total the total of the matching documents, a lower bound beyond {@code track-total-hits}.
+     * @param partial whether the search of the type timed out or failed: its hits are the ones collected before.
+     * @param <T> the type of the hits.
+     */
+    public record Group<T>(List<T> content, long total, boolean partial) {
+        public <U> Group<U> map(Function<? super T, ? extends U> converter) {
+            return new Group<>(content.stream().<U>map(converter).toList(), total, partial);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.iqkv.blog.repository.search;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * The criteria of a post search: a free text, matched against the title, the content, the blog name and the tag names
+ * of the posts, and filters, which do not contribute to the score and are cached by Elasticsearch.
+ *
+ * @param text the free text, {@code null} to match all the posts.
+ * @param blogId the id of the blog of the posts.
+ * @param tagIds the ids of the tags of the posts, a post matches with any of them.
+ * @param fromDate the lowest date of the posts, inclusive.
+ * @param toDate the highest date of the posts, exclusive.
+ */
+public record PostSearchCriteria(String text, Long blogId, Set<Long> tagIds, Instant fromDate, Instant toDate) {
+    /**
+     * Creates the criteria matching a free text only.
+     *
+     * @param text the free text.
+     * @return the criteria.
+     */
+    public static PostSearchCriteria text(String text) {
+        return new PostSearchCriteria(text, null, null, null, null);
+    }
+}
@@ -0,0 +1,24 @@
+package org.iqkv.blog.repository.search;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The facets of a post search: the number of matching posts per tag, per blog and per month, computed by aggregations
+ * of the search request itself.
+ *
+ * @param tags the number of posts per tag id, the most frequent tags first.
+ * @param blogs the number of posts per blog id, the most frequent blogs first.
+ * @param months the number of posts per month, by the first instant of the month (UTC), the oldest month first.
+ */
+public record PostSearchFacets(List<Bucket<Long>> tags, List<Bucket<Long>> blogs, List<Bucket<Instant>> months) implements Serializable {
+    /**
+     * A value of a facet.
+     *
+     * @param key the value.
+     * @param count the number of matching posts with the value.
+     * @param <K> the type of the value.
+     */
+    public record Bucket<K extends Serializable>(K key, long count) implements Serializable {}
+}
@@ -1,14 +1,50 @@
 package org.iqkv.blog.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.IdsQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MoreLikeThisQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermsQuery;
+import co.elastic.clients.json.JsonData;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Blog;
 import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.repository.PostRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.DocValueField;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
+import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Post} entity.
@@ -16,28 +52,494 @@ import reactor.core.publisher.Flux;
 public interface PostSearchRepository extends ReactiveElasticsearchRepository<Post, Long>, PostSearchRepositoryInternal {}
 
 interface PostSearchRepositoryInternal {
-    Flux<Post> search(String query, Pageable pageable);
+    Mono<Page<Post>> search(PostSearchCriteria criteria, Pageable pageable);
+
+    Mono<FacetedSearchPage<Post>> searchWithFacets(PostSearchCriteria criteria, Pageable pageable);
+
+    Mono<Page<Post>> searchQueryString(String query, Pageable pageable);
+
+    Mono<SearchCursorPage<Post>> search(PostSearchCriteria criteria, SearchCursor cursor);
+
+    Flux<Post> searchAll(PostSearchCriteria criteria);
 
     Flux<Post> search(Query query);
+
+    Flux<Post> suggest(String prefix, int size);
+
+    Flux<Post> searchRelated(Long id, int size);
+
+    Flux<SearchHit<Post>> findIndexed(Collection<Long> ids, IndexCoordinates index);
+
+    Mono<Map<Long, String>> findHashes(Long afterId, Long toId);
+
+    Mono<Long> updateBlog(Blog blog, IndexCoordinates index);
+
+    Mono<Long> updateTag(Tag tag, IndexCoordinates index);
+
+    Mono<Set<String>> findIndexesOfBlogs(Collection<Long> blogIds, IndexCoordinates index);
+
+    Mono<Set<String>> findIndexesOfTags(Collection<Long> tagIds, IndexCoordinates index);
 }
 
 class PostSearchRepositoryInternalImpl implements PostSearchRepositoryInternal {
 
+    private static final Set<String> TEXT_PROPERTIES = Set.of("title");
+
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "title", "date");
+
+    // every page of a cursor extends its point in time, which pins the segments of the index meanwhile
+    private static final Duration MAX_POINT_IN_TIME_KEEP_ALIVE = Duration.ofMinutes(5);
+
+    static final List<String> TEXT_FIELDS = List.of(
+        "title^2",
+        "title.en^2",
+        "title.ru^2",
+        "title.uk^2",
+        "content",
+        "content.en",
+        "content.ru",
+        "content.uk",
+        "blogName",
+        "tagNames"
+    );
+
+    private static final String UPDATE_BLOG_SCRIPT =
+        "if (ctx._source.blogName == params.name && ctx._source.blogHandle == params.handle) { ctx.op = 'noop'; } " +
+        "else { ctx._source.blogName = params.name; ctx._source.blogHandle = params.handle; }";
+
+    // the tag names are in the order of the tag ids
+    private static final String UPDATE_TAG_SCRIPT =
+        "if (ctx._source.tagNames != null) { for (int i = 0; i < ctx._source.tagIds.size(); i++) { " +
+        "if (ctx._source.tagIds[i] == params.id && ctx._source.tagNames[i] != params.name) { " +
+        "ctx._source.tagNames[i] = params.name; return; } } } ctx.op = 'noop';";
+
+    // the language neutral fields: the subfields of a language would count the same terms again
+    private static final List<String> RELATED_FIELDS = List.of("title", "content", "tagNames");
+
+    private static final String TAGS_FACET = "tags";
+
+    private static final String BLOGS_FACET = "blogs";
+
+    private static final String MONTHS_FACET = "months";
+
+    private static final String INDEXES_AGGREGATION = "indexes";
+
+    // more than the monthly indexes of a generation
+    private static final int MAX_INDEXES = 10_000;
+
+    // id breaks the ties between equal scores, so the pages of a cursor are stable
+    private static final Sort CURSOR_SORT = Sort.by(Sort.Order.desc("_score"), Sort.Order.asc("id"));
+
     private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
 
-    PostSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
+    private final PostRepository postRepository;
+
+    private final SearchCircuitBreaker searchCircuitBreaker;
+
+    private final int trackTotalHits;
+
+    private final Duration pointInTimeKeepAlive;
+
+    private final int exportBatchSize;
+
+    private final int maxTextLength;
+
+    private final int facetSize;
+
+    PostSearchRepositoryInternalImpl(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        PostRepository postRepository,
+        SearchCircuitBreaker searchCircuitBreaker,
+        ApplicationProperties applicationProperties
+    ) {
         this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.postRepository = postRepository;
+        this.searchCircuitBreaker = searchCircuitBreaker;
+        this.trackTotalHits = applicationProperties.getSearch().getTrackTotalHits();
+        this.pointInTimeKeepAlive = applicationProperties.getSearch().getPointInTimeKeepAlive();
+        Assert.isTrue(
+            pointInTimeKeepAlive.compareTo(MAX_POINT_IN_TIME_KEEP_ALIVE) <= 0,
+            "application.search.point-in-time-keep-alive must be at most " + MAX_POINT_IN_TIME_KEEP_ALIVE
+        );
+        this.exportBatchSize = applicationProperties.getSearch().getExportBatchSize();
+        this.maxTextLength = applicationProperties.getSearch().getMaxTextLength();
+        this.facetSize = applicationProperties.getSearch().getFacetSize();
+    }
+
+    /**
+     * Search for the posts matching the criteria. The searches bounded by date read the post alias too: with monthly
+     * indexes, the date range lets Elasticsearch skip the shards of the other months in its can_match phase, which runs
+     * as soon as a sealed, read-only, index is searched.
+     *
+     * @param criteria the free text and the filters of the search.
+     * @param pageable the pagination information.
+     * @return the page of posts.
+     */
+    @Override
+    public Mono<Page<Post>> search(PostSearchCriteria criteria, Pageable pageable) {
+        return SearchSort.requireSortable(
+            pageable,
+            SORT_PROPERTIES,
+            searchCircuitBreaker.run(Post.class, search(toQuery(criteria), pageable), () -> postRepository.searchText(criteria, pageable))
+        );
+    }
+
+    @Override
+    public Mono<FacetedSearchPage<Post>> searchWithFacets(PostSearchCriteria criteria, Pageable pageable) {
+        // the facets are aggregated by the request of the hits, over the whole result set
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(toQuery(criteria))
+            .withPageable(SearchSort.onKeywords(pageable, TEXT_PROPERTIES))
+            .withTrackTotalHitsUpTo(trackTotalHits)
+            .withAggregation(TAGS_FACET, Aggregation.of(aggregation -> aggregation.terms(terms -> terms.field("tagIds").size(facetSize))))
+            .withAggregation(BLOGS_FACET, Aggregation.of(aggregation -> aggregation.terms(terms -> terms.field("blogId").size(facetSize))))
+            .withAggregation(
+                MONTHS_FACET,
+                Aggregation.of(aggregation ->
+                    aggregation.dateHistogram(histogram -> histogram.field("date").calendarInterval(CalendarInterval.Month).minDocCount(1))
+                )
+            )
+            .build();
+        return reactiveElasticsearchTemplate
+            .searchForPage(nativeQuery, Post.class)
+            .map(page -> {
+                ElasticsearchAggregations aggregations = (ElasticsearchAggregations) page.getSearchHits().getAggregations();
+                PostSearchFacets facets = new PostSearchFacets(
+                    idBuckets(aggregations, TAGS_FACET),
+                    idBuckets(aggregations, BLOGS_FACET),
+                    monthBuckets(aggregations)
+                );
+                return new FacetedSearchPage<>(page.map(SearchHit::getContent), facets);
+            });
+    }
+
+    private static List<PostSearchFacets.Bucket<Long>> idBuckets(ElasticsearchAggregations aggregations, String name) {
+        Aggregate aggregate = aggregations == null ? null : aggregations.get(name).aggregation().getAggregate();
+        if (aggregate == null || !aggregate.isLterms()) {
+            // no posts are indexed with the field yet
+            return List.of();
+        }
+        return aggregate
+            .lterms()
+            .buckets()
+            .array()
+            .stream()
+            .map(bucket -> new PostSearchFacets.Bucket<>(bucket.key(), bucket.docCount()))
+            .toList();
+    }
+
+    private static List<PostSearchFacets.Bucket<Instant>> monthBuckets(ElasticsearchAggregations aggregations) {
+        if (aggregations == null) {
+            return List.of();
+        }
+        return aggregations
+            .get(MONTHS_FACET)
+            .aggregation()
+            .getAggregate()
+            .dateHistogram()
+            .buckets()
+            .array()
+            .stream()
+            .map(bucket -> new PostSearchFacets.Bucket<>(Instant.ofEpochMilli(bucket.key()), bucket.docCount()))
+            .toList();
+    }
+
+    @Override
+    public Mono<Page<Post>> searchQueryString(String query, Pageable pageable) {
+        return search(SearchQueries.queryString(query), pageable);
+    }
+
+    private Mono<Page<Post>> search(co.elastic.clients.elasticsearch._types.query_dsl.Query query, Pageable pageable) {
+        NativeQuery nativeQuery = new NativeQuery(query);
+        nativeQuery.setPageable(SearchSort.onKeywords(pageable, TEXT_PROPERTIES));
+        // the total comes with the hits, counted exactly up to track-total-hits
+        nativeQuery.setTrackTotalHitsUpTo(trackTotalHits);
+        return reactiveElasticsearchTemplate.searchForPage(nativeQuery, Post.class).map(page -> page.map(SearchHit::getContent));
     }
 
+    /**
+     * Search for a page of the posts matching the criteria. The first page opens a point in time on the post alias, the
+     * next pages read it.
+     *
+     * @param criteria the free text and the filters of the search.
+     * @param cursor the position of the page.
+     * @return the page of posts, with the cursor of the next page.
+     */
     @Override
-    public Flux<Post> search(String query, Pageable pageable) {
-        NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
-        nativeQuery.setPageable(pageable);
-        return search(nativeQuery);
+    public Mono<SearchCursorPage<Post>> search(PostSearchCriteria criteria, SearchCursor cursor) {
+        Mono<String> pointInTimeId = cursor.isFirst()
+            ? reactiveElasticsearchTemplate.openPointInTime(
+                reactiveElasticsearchTemplate.getIndexCoordinatesFor(Post.class),
+                pointInTimeKeepAlive
+            )
+            : Mono.just(cursor.getPointInTimeId());
+        return pointInTimeId.flatMap(id -> {
+            NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(toQuery(criteria))
+                .withPointInTime(new Query.PointInTime(id, pointInTimeKeepAlive))
+                .withSort(CURSOR_SORT)
+                .withPageable(PageRequest.of(0, cursor.getSize()))
+                .withTrackTotalHits(false);
+            if (!cursor.isFirst()) {
+                builder.withSearchAfter(cursor.getSearchAfter());
+            }
+            return reactiveElasticsearchTemplate
+                .searchForHits(builder.build(), Post.class)
+                .flatMap(hits ->
+                    hits
+                        .getSearchHits()
+                        .collectList()
+                        .flatMap(page -> {
+                            if (page.size() < cursor.getSize()) {
+                                // last page, the point in time is released instead of waiting for its keep alive
+                                return reactiveElasticsearchTemplate
+                                    .closePointInTime(hits.getPointInTimeId())
+                                    .onErrorReturn(false)
+                                    .thenReturn(new SearchCursorPage<>(page.stream().map(SearchHit::getContent).toList(), null));
+                            }
+                            SearchCursor next = SearchCursor.after(
+                                hits.getPointInTimeId(),
+                                page.get(page.size() - 1).getSortValues(),
+                                cursor.getSize()
+                            );
+                            return Mono.just(new SearchCursorPage<>(page.stream().map(SearchHit::getContent).toList(), next));
+                        })
+                );
+        });
+    }
+
+    @Override
+    public Flux<Post> searchAll(PostSearchCriteria criteria) {
+        return search(criteria, SearchCursor.first(exportBatchSize))
+            .expand(page -> page.next() == null ? Mono.empty() : search(criteria, page.next()))
+            .concatMapIterable(SearchCursorPage::content);
     }
 
     @Override
     public Flux<Post> search(Query query) {
         return reactiveElasticsearchTemplate.search(query, Post.class).map(SearchHit::getContent);
     }
+
+    @Override
+    public Flux<Post> suggest(String prefix, int size) {
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(SearchQueries.prefix(prefix, maxTextLength, "title.suggest"))
+            .withSourceFilter(new FetchSourceFilter(new String[] { "id", "title" }, null))
+            .withPageable(PageRequest.of(0, size))
+            .withTrackTotalHits(false)
+            .build();
+        return reactiveElasticsearchTemplate.search(nativeQuery, Post.class).map(SearchHit::getContent);
+    }
+
+    /**
+     * Searches the posts related to a post, with a {@code more_like_this} query on the terms of its indexed document. The
+     * post itself is excluded, and the content of the related posts is not read.
+     *
+     * @param id the id of the post.
+     * @param size the maximum number of related posts.
+     * @return the related posts, the most similar first; none when the post is not indexed.
+     */
+    @Override
+    public Flux<Post> searchRelated(Long id, int size) {
+        // the document is read from its index, the alias can point to the monthly indexes of the posts
+        return findIndexed(List.of(id), reactiveElasticsearchTemplate.getIndexCoordinatesFor(Post.class))
+            .next()
+            .flatMapMany(hit -> searchRelated(id, hit.getIndex(), size));
+    }
+
+    private Flux<Post> searchRelated(Long id, String index, int size) {
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(
+                MoreLikeThisQuery.of(moreLikeThis ->
+                    moreLikeThis
+                        .fields(RELATED_FIELDS)
+                        .like(like -> like.document(document -> document.index(index).id(String.valueOf(id))))
+                        .minTermFreq(1)
+                        .minDocFreq(2)
+                        .maxQueryTerms(25)
+                )._toQuery()
+            )
+            .withSourceFilter(new FetchSourceFilter(null, new String[] { "content" }))
+            .withPageable(PageRequest.of(0, size))
+            .withTrackTotalHits(false)
+            .build();
+        return reactiveElasticsearchTemplate.search(nativeQuery, Post.class).map(SearchHit::getContent);
+    }
+
+    /**
+     * Finds the indexes holding the documents of posts, reading their ids only. A post is found in two indexes when its
+     * date moved it to another monthly index, until its previous document is deleted.
+     *
+     * @param ids the ids of the posts.
+     * @param index the index or alias to search, possibly with wildcards.
+     * @return the hits, with their index and id.
+     */
+    @Override
+    public Flux<SearchHit<Post>> findIndexed(Collection<Long> ids, IndexCoordinates index) {
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(IdsQuery.of(idsQuery -> idsQuery.values(ids.stream().map(String::valueOf).toList()))._toQuery())
+            .withSourceFilter(new FetchSourceFilter(new String[] { "id" }, null))
+            .withPageable(Pageable.unpaged())
+            .build();
+        return reactiveElasticsearchTemplate.search(nativeQuery, Post.class, index);
+    }
+
+    /**
+     * Reads the content hashes of the indexed posts in a range of ids, from their doc values. The range is read with a
+     * scroll, as it can hold more documents than the database when the index drifted.
+     *
+     * @param afterId the lowest id of the range, exclusive, {@code null} for no lower bound.
+     * @param toId the highest id of the range, inclusive, {@code null} for no upper bound.
+     * @return the hashes by post id, empty for the posts indexed without a hash.
+     */
+    @Override
+    public Mono<Map<Long, String>> findHashes(Long afterId, Long toId) {
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(
+                RangeQuery.of(range -> {
+                    range.field("id");
+                    if (afterId != null) {
+                        range.gt(JsonData.of(afterId));
+                    }
+                    if (toId != null) {
+                        range.lte(JsonData.of(toId));
+                    }
+                    return range;
+                })._toQuery()
+            )
+            .withSourceFilter(new FetchSourceFilter(new String[] { "id" }, null))
+            .withDocValueFields(List.of(new DocValueField("hash")))
+            .withPageable(Pageable.unpaged())
+            .build();
+        return reactiveElasticsearchTemplate
+            .search(nativeQuery, Post.class)
+            .collectMap(
+                hit -> Long.valueOf(hit.getId()),
+                hit -> {
+                    List<Object> hash = hit.getFields().get("hash");
+                    return hash != null && !hash.isEmpty() ? (String) hash.get(0) : "";
+                }
+            );
+    }
+
+    /**
+     * Updates the denormalized blog of its posts, after a rename. The posts which are already up to date are left
+     * unchanged; the posts changed meanwhile are skipped, as they are reindexed from the database.
+     */
+    @Override
+    public Mono<Long> updateBlog(Blog blog, IndexCoordinates index) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", blog.getName());
+        params.put("handle", blog.getHandle());
+        return updateByQuery(TermQuery.of(term -> term.field("blogId").value(blog.getId()))._toQuery(), UPDATE_BLOG_SCRIPT, params, index);
+    }
+
+    /**
+     * Updates the denormalized tag of its posts, after a rename, like {@link #updateBlog(Blog, IndexCoordinates)}.
+     */
+    @Override
+    public Mono<Long> updateTag(Tag tag, IndexCoordinates index) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", tag.getId());
+        params.put("name", tag.getName());
+        return updateByQuery(TermQuery.of(term -> term.field("tagIds").value(tag.getId()))._toQuery(), UPDATE_TAG_SCRIPT, params, index);
+    }
+
+    /**
+     * Find the indexes holding the posts of some blogs, before their posts are updated by query.
+     *
+     * @param blogIds the ids of the blogs.
+     * @param index the index or alias to search, possibly with wildcards.
+     * @return the names of the indexes holding at least one of the posts.
+     */
+    @Override
+    public Mono<Set<String>> findIndexesOfBlogs(Collection<Long> blogIds, IndexCoordinates index) {
+        return findIndexes("blogId", blogIds, index);
+    }
+
+    /**
+     * Find the indexes holding the posts of some tags, like {@link #findIndexesOfBlogs(Collection, IndexCoordinates)}.
+     */
+    @Override
+    public Mono<Set<String>> findIndexesOfTags(Collection<Long> tagIds, IndexCoordinates index) {
+        return findIndexes("tagIds", tagIds, index);
+    }
+
+    /**
+     * The indexes are aggregated from the matching posts, without reading any hit.
+     */
+    private Mono<Set<String>> findIndexes(String field, Collection<Long> ids, IndexCoordinates index) {
+        List<FieldValue> values = ids.stream().map(FieldValue::of).toList();
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(TermsQuery.of(terms -> terms.field(field).terms(termsValues -> termsValues.value(values)))._toQuery())
+            .withAggregation(
+                INDEXES_AGGREGATION,
+                Aggregation.of(aggregation -> aggregation.terms(terms -> terms.field("_index").size(MAX_INDEXES)))
+            )
+            .withMaxResults(0)
+            .withTrackTotalHits(false)
+            .build();
+        return reactiveElasticsearchTemplate
+            .searchForPage(nativeQuery, Post.class, index)
+            .map(page -> {
+                ElasticsearchAggregations aggregations = (ElasticsearchAggregations) page.getSearchHits().getAggregations();
+                Aggregate aggregate = aggregations == null ? null : aggregations.get(INDEXES_AGGREGATION).aggregation().getAggregate();
+                if (aggregate == null || !aggregate.isSterms()) {
+                    return Set.<String>of();
+                }
+                return aggregate
+                    .sterms()
+                    .buckets()
+                    .array()
+                    .stream()
+                    .map(bucket -> bucket.key().stringValue())
+                    .collect(Collectors.toSet());
+            });
+    }
+
+    private Mono<Long> updateByQuery(
+        co.elastic.clients.elasticsearch._types.query_dsl.Query query,
+        String script,
+        Map<String, Object> params,
+        IndexCoordinates index
+    ) {
+        UpdateQuery updateQuery = UpdateQuery.builder(new NativeQuery(query))
+            .withScriptType(ScriptType.INLINE)
+            .withLang("painless")
+            .withScript(script)
+            .withParams(params)
+            .withAbortOnVersionConflict(false)
+            .build();
+        return reactiveElasticsearchTemplate.updateByQuery(updateQuery, index).map(ByQueryResponse::getUpdated);
+    }
+
+    /**
+     * The text is scored in the query context, the filters run in the filter context: they do not score, and their
+     * results are cached as bitsets by Elasticsearch.
+     */
+    private co.elastic.clients.elasticsearch._types.query_dsl.Query toQuery(PostSearchCriteria criteria) {
+        List<co.elastic.clients.elasticsearch._types.query_dsl.Query> filters = new ArrayList<>();
+        if (criteria.blogId() != null) {
+            filters.add(TermQuery.of(term -> term.field("blogId").value(criteria.blogId()))._toQuery());
+        }
+        if (criteria.tagIds() != null && !criteria.tagIds().isEmpty()) {
+            List<FieldValue> tagIds = criteria.tagIds().stream().map(FieldValue::of).toList();
+            filters.add(TermsQuery.of(terms -> terms.field("tagIds").terms(values -> values.value(tagIds)))._toQuery());
+        }
+        if (criteria.fromDate() != null || criteria.toDate() != null) {
+            filters.add(
+                RangeQuery.of(range -> {
+                    range.field("date");
+                    if (criteria.fromDate() != null) {
+                        range.gte(JsonData.of(criteria.fromDate().toString()));
+                    }
+                    if (criteria.toDate() != null) {
+                        range.lt(JsonData.of(criteria.toDate().toString()));
+                    }
+                    return range;
+                })._toQuery()
+            );
+        }
+        return BoolQuery.of(bool -> bool.must(SearchQueries.text(criteria.text(), maxTextLength, TEXT_FIELDS)).filter(filters))._toQuery();
+    }
 }
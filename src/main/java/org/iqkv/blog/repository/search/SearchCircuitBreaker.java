@@ -0,0 +1,245 @@
+package org.iqkv.blog.repository.search;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breaker sending the free text searches to their PostgreSQL fallback while Elasticsearch fails or is slow.
+ * <p>
+ * A search failing with a timeout, a connection error or a server error, or slower than
+ * {@code application.search.fallback.slow-call-duration}, counts as a failure; a search not answered within {@code timeout}
+ * is cancelled. Both are answered by the fallback. The other errors, such as a query rejected by Elasticsearch, are passed
+ * to the caller: the fallback would not answer them any better. Once {@code failure-rate-threshold}
+ * percent of the last {@code window-size} searches failed, the circuit opens: the searches go to the fallback only. After
+ * {@code open-duration}, a single search probes Elasticsearch again, and closes the circuit when it succeeds.
+ * <p>
+ * The fallback runs in a read-only transaction, routed to the read replicas: the searches themselves run outside of a
+ * transaction, so the ones answered by Elasticsearch or by the {@code SearchResultCache} do not take a database connection.
+ */
+@Component
+public class SearchCircuitBreaker {
+
+    /**
+     * The states of the circuit, exported by the {@code search.circuit.state} gauge with their ordinal.
+     */
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN,
+    }
+
+    private final Logger log = LoggerFactory.getLogger(SearchCircuitBreaker.class);
+
+    private final ApplicationProperties.Search.Fallback properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final TransactionalOperator fallbackTransaction;
+
+    private final Map<Class<?>, Counter> fallbackCounters = new ConcurrentHashMap<>();
+
+    private final Map<State, Counter> transitionCounters = new ConcurrentHashMap<>();
+
+    private final boolean[] failures;
+
+    private int calls;
+
+    private int failed;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private boolean probing;
+
+    public SearchCircuitBreaker(
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        ReactiveTransactionManager transactionManager
+    ) {
+        this.properties = applicationProperties.getSearch().getFallback();
+        this.meterRegistry = meterRegistry;
+        DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRED);
+        readOnly.setReadOnly(true);
+        this.fallbackTransaction = TransactionalOperator.create(transactionManager, readOnly);
+        this.failures = new boolean[Math.max(1, properties.getWindowSize())];
+        Gauge.builder("search.circuit.state", this, circuitBreaker -> circuitBreaker.getState().ordinal())
+            .description("State of the Elasticsearch circuit: 0 closed, 1 half open, 2 open on the PostgreSQL fallback.")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs a search on Elasticsearch, or on its fallback when the circuit is open or the search fails.
+     *
+     * @param entityType the type of the searched entities.
+     * @param search the Elasticsearch search.
+     * @param fallback the PostgreSQL search.
+     * @param <T> the type of the result.
+     * @return the result of the search or of its fallback.
+     */
+    public <T> Mono<T> run(Class<?> entityType, Mono<T> search, Supplier<Mono<T>> fallback) {
+        if (!properties.isEnabled()) {
+            return search;
+        }
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return fallback(entityType, fallback);
+            }
+            long start = System.nanoTime();
+            return search
+                .timeout(properties.getTimeout())
+                .doOnSuccess(result -> record(System.nanoTime() - start > properties.getSlowCallDuration().toNanos()))
+                .doOnCancel(this::release)
+                .onErrorResume(e -> {
+                    if (!isUnavailable(e)) {
+                        // Elasticsearch answered, the search itself is wrong
+                        record(false);
+                        return Mono.error(e);
+                    }
+                    String type = entityType.getSimpleName();
+                    log.warn("Could not search the {} index, falling back to the database : {}", type, e.getMessage());
+                    record(true);
+                    return fallback(entityType, fallback);
+                });
+        });
+    }
+
+    /**
+     * Whether an error tells that Elasticsearch is unavailable: a timeout, a connection error, or a server error, including
+     * the {@code 408 (Request Timeout)} and {@code 429 (Too Many Requests)} answers of an overloaded cluster.
+     *
+     * @param error the error of a search.
+     * @return {@code true} if the search should be answered by the fallback.
+     */
+    static boolean isUnavailable(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (
+                e instanceof TimeoutException ||
+                e instanceof IOException ||
+                e instanceof DataAccessResourceFailureException ||
+                e instanceof TransientDataAccessException
+            ) {
+                return true;
+            }
+            Integer status = statusOf(e);
+            if (status != null) {
+                return status >= 500 || status == 408 || status == 429;
+            }
+        }
+        return false;
+    }
+
+    private static Integer statusOf(Throwable e) {
+        if (e instanceof UncategorizedElasticsearchException uncategorized) {
+            return uncategorized.getStatusCode();
+        }
+        if (e instanceof ElasticsearchException elasticsearch) {
+            return elasticsearch.status();
+        }
+        return null;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private <T> Mono<T> fallback(Class<?> entityType, Supplier<Mono<T>> fallback) {
+        fallbackCounters
+            .computeIfAbsent(entityType, type ->
+                Counter.builder("search.fallback")
+                    .description("Number of searches answered by the PostgreSQL fallback.")
+                    .tag("type", type.getSimpleName())
+                    .register(meterRegistry)
+            )
+            .increment();
+        return fallbackTransaction.transactional(Mono.defer(fallback));
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= properties.getOpenDuration().toNanos()) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            // a single search probes Elasticsearch, the others keep going to the fallback
+            if (probing) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    private synchronized void record(boolean failure) {
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                probing = false;
+                transition(failure ? State.OPEN : State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // a search started before the circuit opened
+            return;
+        }
+        int index = calls % failures.length;
+        if (calls >= failures.length && failures[index]) {
+            failed--;
+        }
+        failures[index] = failure;
+        if (failure) {
+            failed++;
+        }
+        calls++;
+        if (calls >= failures.length && failed * 100 >= properties.getFailureRateThreshold() * failures.length) {
+            transition(State.OPEN);
+        }
+    }
+
+    private synchronized void release() {
+        // the probe was cancelled by its client, before it could tell whether Elasticsearch recovered
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    private void transition(State to) {
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+            log.warn("Elasticsearch is failing or slow, the searches are answered by the database");
+        } else if (to == State.CLOSED) {
+            calls = 0;
+            failed = 0;
+            log.info("Elasticsearch recovered, the searches are answered by Elasticsearch again");
+        }
+        state = to;
+        transitionCounters
+            .computeIfAbsent(to, target ->
+                Counter.builder("search.circuit.transitions")
+                    .description("Number of transitions of the Elasticsearch circuit to a state.")
+                    .tag("state", target.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+            )
+            .increment();
+    }
+}
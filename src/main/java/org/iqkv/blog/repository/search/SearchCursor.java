@@ -0,0 +1,114 @@
+package org.iqkv.blog.repository.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.springframework.util.Assert;
+
+/**
+ * Position of a cursor based search: instead of skipping {@code from} hits, the next page is selected with the
+ * {@code search_after} sort values of the last hit, in a point in time of the index, so deep pages cost the same as the
+ * first one, and are not limited by {@code max_result_window}.
+ * <p>
+ * A search cursor is exchanged with the clients as an opaque cursor, see {@link #toCursor()} and
+ * {@link #fromCursor(String, int)}. It expires with its point in time, when it is not used for its keep alive.
+ */
+public final class SearchCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final String pointInTimeId;
+    private final List<Object> searchAfter;
+    private final int size;
+
+    private SearchCursor(String pointInTimeId, List<Object> searchAfter, int size) {
+        Assert.isTrue(size > 0, "size must be positive");
+        this.pointInTimeId = pointInTimeId;
+        this.searchAfter = searchAfter;
+        this.size = size;
+    }
+
+    /**
+     * Creates the cursor of the first page, which opens a new point in time.
+     * @param size the page size.
+     * @return the cursor of the first page.
+     */
+    public static SearchCursor first(int size) {
+        return new SearchCursor(null, List.of(), size);
+    }
+
+    /**
+     * Creates the cursor of the page following the given hit.
+     * @param pointInTimeId the id of the point in time, as returned by the last search.
+     * @param searchAfter the sort values of the last hit.
+     * @param size the page size.
+     * @return the cursor of the next page.
+     */
+    public static SearchCursor after(String pointInTimeId, List<Object> searchAfter, int size) {
+        Assert.hasText(pointInTimeId, "pointInTimeId is empty");
+        Assert.notEmpty(searchAfter, "searchAfter is empty");
+        return new SearchCursor(pointInTimeId, List.copyOf(searchAfter), size);
+    }
+
+    /**
+     * Decodes a cursor created with {@link #toCursor()}.
+     * @param cursor the opaque cursor sent by the client.
+     * @param size the page size.
+     * @return the decoded search cursor.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static SearchCursor fromCursor(String cursor, int size) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        List<Object> searchAfter = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            searchAfter.add(parseSortValue(parts[i]));
+        }
+        return after(parts[0], searchAfter, size);
+    }
+
+    // the sort values are the score, the id and the shard doc tiebreaker of the point in time
+    private static Object parseSortValue(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return Double.valueOf(value);
+        }
+    }
+
+    /**
+     * Encodes this search cursor as an URL-safe opaque cursor.
+     * @return the cursor.
+     */
+    public String toCursor() {
+        Assert.state(!isFirst(), "The first page has no cursor");
+        StringBuilder builder = new StringBuilder().append(pointInTimeId);
+        searchAfter.forEach(value -> builder.append(SEPARATOR).append(value));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return pointInTimeId == null;
+    }
+
+    public String getPointInTimeId() {
+        return pointInTimeId;
+    }
+
+    public List<Object> getSearchAfter() {
+        return searchAfter;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCursor{" + "pointInTimeId='" + pointInTimeId + "'" + ", searchAfter=" + searchAfter + ", size=" + size + "}";
+    }
+}
@@ -0,0 +1,17 @@
+package org.iqkv.blog.repository.search;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of a cursor based search.
+ *
+ * @param content the hits of the page.
+ * @param next the cursor of the next page, {@code null} on the last page.
+ * @param <T> the type of the hits.
+ */
+public record SearchCursorPage<T>(List<T> content, SearchCursor next) {
+    public <U> SearchCursorPage<U> map(Function<? super T, ? extends U> converter) {
+        return new SearchCursorPage<>(content.stream().<U>map(converter).toList(), next);
+    }
+}
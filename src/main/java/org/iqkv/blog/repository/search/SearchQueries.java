@@ -0,0 +1,80 @@
+package org.iqkv.blog.repository.search;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.MatchAllQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import java.util.List;
+
+/**
+ * Utility class building the queries of the search repositories.
+ * <p>
+ * The free text of a search is matched with a {@code multi_match} query on a fixed list of fields, where it has no syntax:
+ * it can not send wildcard, regular expression or fuzzy queries, and its length is bounded. The raw {@code query_string}
+ * queries are reserved to the admins, and can not start with a wildcard either.
+ */
+final class SearchQueries {
+
+    private SearchQueries() {}
+
+    /**
+     * Builds the query matching a free text.
+     *
+     * @param text the free text, {@code null} or blank to match all the documents.
+     * @param maxLength the maximum length of the text, the rest is ignored.
+     * @param fields the fields the text is matched against, with their boosts.
+     * @return the query.
+     */
+    static Query text(String text, int maxLength, List<String> fields) {
+        if (text == null || text.isBlank()) {
+            return MatchAllQuery.of(matchAll -> matchAll)._toQuery();
+        }
+        String boundedText = text.length() > maxLength ? text.substring(0, maxLength) : text;
+        // most_fields sums the scores of the subfields, which analyze the same text for each language
+        return MultiMatchQuery.of(multiMatch -> multiMatch.query(boundedText).fields(fields).type(TextQueryType.MostFields))._toQuery();
+    }
+
+    /**
+     * Builds the query matching the words being typed: the last word is a prefix, the others are full words.
+     *
+     * @param prefix the typed text.
+     * @param maxLength the maximum length of the text, the rest is ignored.
+     * @param field the {@code search_as_you_type} field the text is matched against.
+     * @return the query.
+     */
+    static Query prefix(String prefix, int maxLength, String field) {
+        String boundedPrefix = prefix.length() > maxLength ? prefix.substring(0, maxLength) : prefix;
+        // the shingle subfields score the hits matching consecutive words higher
+        return MultiMatchQuery.of(multiMatch ->
+            multiMatch.query(boundedPrefix).type(TextQueryType.BoolPrefix).fields(field, field + "._2gram", field + "._3gram")
+        )._toQuery();
+    }
+
+    /**
+     * Builds the SQL {@code LIKE} pattern matching the names containing a free text, for the database fallback of the
+     * searches.
+     *
+     * @param text the free text, {@code null} to match all the names.
+     * @param maxLength the maximum length of the text, the rest is ignored.
+     * @return the pattern, with the wildcards of the text escaped.
+     */
+    static String containsPattern(String text, int maxLength) {
+        if (text == null || text.isBlank()) {
+            return "%";
+        }
+        String strippedText = text.strip();
+        String boundedText = strippedText.length() > maxLength ? strippedText.substring(0, maxLength) : strippedText;
+        return "%" + boundedText.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Builds a raw {@code query_string} query.
+     *
+     * @param query the query, in the Lucene syntax.
+     * @return the query.
+     */
+    static Query queryString(String query) {
+        return QueryStringQuery.of(queryString -> queryString.query(query).allowLeadingWildcard(false))._toQuery();
+    }
+}
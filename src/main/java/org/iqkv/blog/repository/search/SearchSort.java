@@ -0,0 +1,54 @@
+package org.iqkv.blog.repository.search;
+
+import java.util.Set;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class mapping the sort of the search requests to the fields of the indexes: a text field is sorted on its
+ * {@code keyword} subfield, see {@code config/elasticsearch}, so a sort never loads the fielddata of a text field.
+ */
+final class SearchSort {
+
+    static final String KEYWORD_SUBFIELD = ".keyword";
+
+    private SearchSort() {}
+
+    /**
+     * Sorts the text properties of a page on their keyword subfield.
+     *
+     * @param pageable the pagination information of the request.
+     * @param textProperties the properties indexed as text, with a keyword subfield.
+     * @return the pagination information of the search.
+     */
+    static Pageable onKeywords(Pageable pageable, Set<String> textProperties) {
+        if (pageable.isUnpaged() || pageable.getSort().isUnsorted()) {
+            return pageable;
+        }
+        Sort sort = Sort.by(pageable.getSort().stream().map(order -> onKeyword(order, textProperties)).toList());
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    /**
+     * Rejects a sort which the database fallback of a search can not apply, so a search is sorted the same way whether
+     * Elasticsearch or its fallback answers it.
+     *
+     * @param pageable the pagination information of the request.
+     * @param sortableProperties the properties the fallback can sort on.
+     * @param search the search.
+     * @param <T> the type of the result.
+     * @return the search, or an {@link UnsupportedSortException} error.
+     */
+    static <T> Mono<T> requireSortable(Pageable pageable, Set<String> sortableProperties, Mono<T> search) {
+        if (pageable.getSort().stream().allMatch(order -> sortableProperties.contains(order.getProperty()))) {
+            return search;
+        }
+        return Mono.error(new UnsupportedSortException(pageable.getSort()));
+    }
+
+    private static Sort.Order onKeyword(Sort.Order order, Set<String> textProperties) {
+        return textProperties.contains(order.getProperty()) ? order.withProperty(order.getProperty() + KEYWORD_SUBFIELD) : order;
+    }
+}
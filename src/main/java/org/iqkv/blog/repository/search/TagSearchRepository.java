@@ -1,14 +1,22 @@
 package org.iqkv.blog.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import java.util.List;
+import java.util.Set;
+import org.iqkv.blog.config.ApplicationProperties;
 import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.repository.TagRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Tag} entity.
@@ -16,28 +24,96 @@ import reactor.core.publisher.Flux;
 public interface TagSearchRepository extends ReactiveElasticsearchRepository<Tag, Long>, TagSearchRepositoryInternal {}
 
 interface TagSearchRepositoryInternal {
-    Flux<Tag> search(String query, Pageable pageable);
+    Mono<Page<Tag>> search(String text, Pageable pageable);
+
+    Mono<Page<Tag>> searchQueryString(String query, Pageable pageable);
 
     Flux<Tag> search(Query query);
+
+    Flux<Tag> suggest(String prefix, int size);
 }
 
 class TagSearchRepositoryInternalImpl implements TagSearchRepositoryInternal {
 
+    static final List<String> TEXT_FIELDS = List.of("name", "name.en", "name.ru", "name.uk");
+
+    private static final Set<String> TEXT_PROPERTIES = Set.of("name");
+
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "name");
+
     private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
 
-    TagSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
+    private final TagRepository tagRepository;
+
+    private final SearchCircuitBreaker searchCircuitBreaker;
+
+    private final int trackTotalHits;
+
+    private final int maxTextLength;
+
+    TagSearchRepositoryInternalImpl(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        TagRepository tagRepository,
+        SearchCircuitBreaker searchCircuitBreaker,
+        ApplicationProperties applicationProperties
+    ) {
         this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.tagRepository = tagRepository;
+        this.searchCircuitBreaker = searchCircuitBreaker;
+        this.trackTotalHits = applicationProperties.getSearch().getTrackTotalHits();
+        this.maxTextLength = applicationProperties.getSearch().getMaxTextLength();
     }
 
     @Override
-    public Flux<Tag> search(String query, Pageable pageable) {
-        NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
-        nativeQuery.setPageable(pageable);
-        return search(nativeQuery);
+    public Mono<Page<Tag>> search(String text, Pageable pageable) {
+        return SearchSort.requireSortable(
+            pageable,
+            SORT_PROPERTIES,
+            searchCircuitBreaker.run(
+                Tag.class,
+                search(SearchQueries.text(text, maxTextLength, TEXT_FIELDS), pageable),
+                () -> searchDatabase(text, pageable)
+            )
+        );
+    }
+
+    /**
+     * Searches the tags whose name contains the text in the database, while Elasticsearch is unavailable.
+     */
+    private Mono<Page<Tag>> searchDatabase(String text, Pageable pageable) {
+        String pattern = SearchQueries.containsPattern(text, maxTextLength);
+        return Mono.zip(
+            tagRepository.findAllByNameLike(pattern, pageable).collectList(),
+            tagRepository.countByNameLike(pattern)
+        ).<Page<Tag>>map(page -> new PageImpl<>(page.getT1(), pageable, page.getT2()));
+    }
+
+    @Override
+    public Mono<Page<Tag>> searchQueryString(String query, Pageable pageable) {
+        return search(SearchQueries.queryString(query), pageable);
+    }
+
+    private Mono<Page<Tag>> search(co.elastic.clients.elasticsearch._types.query_dsl.Query query, Pageable pageable) {
+        NativeQuery nativeQuery = new NativeQuery(query);
+        nativeQuery.setPageable(SearchSort.onKeywords(pageable, TEXT_PROPERTIES));
+        // the total comes with the hits, counted exactly up to track-total-hits
+        nativeQuery.setTrackTotalHitsUpTo(trackTotalHits);
+        return reactiveElasticsearchTemplate.searchForPage(nativeQuery, Tag.class).map(page -> page.map(SearchHit::getContent));
     }
 
     @Override
     public Flux<Tag> search(Query query) {
         return reactiveElasticsearchTemplate.search(query, Tag.class).map(SearchHit::getContent);
     }
+
+    @Override
+    public Flux<Tag> suggest(String prefix, int size) {
+        NativeQuery nativeQuery = NativeQuery.builder()
+            .withQuery(SearchQueries.prefix(prefix, maxTextLength, "name.suggest"))
+            .withSourceFilter(new FetchSourceFilter(new String[] { "id", "name" }, null))
+            .withPageable(PageRequest.of(0, size))
+            .withTrackTotalHits(false)
+            .build();
+        return reactiveElasticsearchTemplate.search(nativeQuery, Tag.class).map(SearchHit::getContent);
+    }
 }
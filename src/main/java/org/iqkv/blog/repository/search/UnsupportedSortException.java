@@ -0,0 +1,15 @@
+package org.iqkv.blog.repository.search;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Thrown when a search is sorted by a property its database fallback can not sort on.
+ */
+public class UnsupportedSortException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedSortException(Sort sort) {
+        super("The search can not be sorted by " + sort);
+    }
+}
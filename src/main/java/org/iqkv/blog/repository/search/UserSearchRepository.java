@@ -1,12 +1,16 @@
 package org.iqkv.blog.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import java.util.List;
+import java.util.Set;
+import org.iqkv.blog.config.ApplicationProperties;
 import org.iqkv.blog.domain.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the User entity.
@@ -14,20 +18,40 @@ import reactor.core.publisher.Flux;
 public interface UserSearchRepository extends ReactiveElasticsearchRepository<User, Long>, UserSearchRepositoryInternal {}
 
 interface UserSearchRepositoryInternal {
-    Flux<User> search(String query);
+    Mono<Page<User>> search(String text, Pageable pageable);
 }
 
 class UserSearchRepositoryInternalImpl implements UserSearchRepositoryInternal {
 
+    static final List<String> TEXT_FIELDS = List.of("login", "firstName", "lastName");
+
+    private static final Set<String> TEXT_PROPERTIES = Set.of("login", "firstName", "lastName", "email");
+
     private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
 
-    UserSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
+    private final int trackTotalHits;
+
+    private final int maxTextLength;
+
+    UserSearchRepositoryInternalImpl(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        ApplicationProperties applicationProperties
+    ) {
         this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.trackTotalHits = applicationProperties.getSearch().getTrackTotalHits();
+        this.maxTextLength = applicationProperties.getSearch().getMaxTextLength();
     }
 
     @Override
-    public Flux<User> search(String query) {
-        NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
-        return reactiveElasticsearchTemplate.search(nativeQuery, User.class).map(SearchHit::getContent);
+    public Mono<Page<User>> search(String text, Pageable pageable) {
+        return search(SearchQueries.text(text, maxTextLength, TEXT_FIELDS), pageable);
+    }
+
+    private Mono<Page<User>> search(co.elastic.clients.elasticsearch._types.query_dsl.Query query, Pageable pageable) {
+        NativeQuery nativeQuery = new NativeQuery(query);
+        nativeQuery.setPageable(SearchSort.onKeywords(pageable, TEXT_PROPERTIES));
+        // the total comes with the hits, counted exactly up to track-total-hits
+        nativeQuery.setTrackTotalHitsUpTo(trackTotalHits);
+        return reactiveElasticsearchTemplate.searchForPage(nativeQuery, User.class).map(page -> page.map(SearchHit::getContent));
     }
 }
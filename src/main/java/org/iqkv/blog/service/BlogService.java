@@ -1,6 +1,8 @@
 package org.iqkv.blog.service;
 
+import org.iqkv.blog.repository.Keyset;
 import org.iqkv.blog.service.dto.BlogDTO;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -41,6 +43,14 @@ public interface BlogService {
      */
     Flux<BlogDTO> findAll(Pageable pageable);
 
+    /**
+     * Get a page of the blogs, positioned with a keyset instead of an offset.
+     *
+     * @param keyset the position and size of the page.
+     * @return the list of entities.
+     */
+    Flux<BlogDTO> findAll(Keyset keyset);
+
     /**
      * Get all the blogs with eager load of many-to-many relationships.
      *
@@ -56,12 +66,6 @@ public interface BlogService {
      */
     Mono<Long> countAll();
 
-    /**
-     * Returns the number of blogs available in search repository.
-     *
-     */
-    Mono<Long> searchCount();
-
     /**
      * Get the "id" blog.
      *
@@ -79,12 +83,22 @@ public interface BlogService {
     Mono<Void> delete(Long id);
 
     /**
-     * Search for the blog corresponding to the query.
+     * Search for the blogs matching a free text.
      *
-     * @param query the query of the search.
+     * @param text the free text of the search.
      *
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of entities, with the total of the matching entities.
+     */
+    Mono<Page<BlogDTO>> search(String text, Pageable pageable);
+
+    /**
+     * Search for the blogs corresponding to a raw query_string query.
+     *
+     * @param query the query of the search, in the Lucene syntax.
+     *
+     * @param pageable the pagination information.
+     * @return the page of entities, with the total of the matching entities.
      */
-    Flux<BlogDTO> search(String query, Pageable pageable);
+    Mono<Page<BlogDTO>> searchQueryString(String query, Pageable pageable);
 }
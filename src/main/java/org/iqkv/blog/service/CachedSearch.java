@@ -0,0 +1,43 @@
+package org.iqkv.blog.service;
+
+import java.time.Duration;
+import reactor.core.publisher.Mono;
+
+/**
+ * The result of a search held by a cache: the requests arriving while the search runs share it, and its result is
+ * replayed until it expires. A failed search is not replayed, the caches evict it so the next request runs it again.
+ *
+ * @param <T> the type of the result.
+ */
+final class CachedSearch<T> {
+
+    private final Mono<T> result;
+
+    private final long expiresAt;
+
+    private volatile T value;
+
+    CachedSearch(Mono<T> search, Duration ttl) {
+        this.result = search
+            .doOnNext(loaded -> value = loaded)
+            .cache(loaded -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+        this.expiresAt = System.nanoTime() + ttl.toNanos();
+    }
+
+    Mono<T> result() {
+        return result;
+    }
+
+    /**
+     * The result of the search, once it completed.
+     *
+     * @return the result, {@code null} while the search runs.
+     */
+    T value() {
+        return value;
+    }
+
+    boolean isExpired() {
+        return System.nanoTime() - expiresAt > 0;
+    }
+}
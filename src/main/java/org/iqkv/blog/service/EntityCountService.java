@@ -0,0 +1,116 @@
+package org.iqkv.blog.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.repository.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service providing the total number of entities of the paginated listings.
+ * <p>
+ * The totals are cached for {@code application.count.ttl}: once expired, the last known total is still served
+ * while it is refreshed in the background. The total of an entity is evicted when one of them is created or deleted, once
+ * the transaction committed: a total counted before the commit would otherwise be cached until it expires.
+ */
+@Service
+public class EntityCountService {
+
+    private final Logger log = LoggerFactory.getLogger(EntityCountService.class);
+
+    private final Map<Class<?>, CachedCount> counts = new ConcurrentHashMap<>();
+
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties.Count properties;
+
+    public EntityCountService(EntityManager entityManager, ApplicationProperties applicationProperties) {
+        this.entityManager = entityManager;
+        this.properties = applicationProperties.getCount();
+    }
+
+    /**
+     * Returns the number of entities with the given type, possibly cached or estimated.
+     *
+     * @param entityType the entity type.
+     * @return the number of entities.
+     */
+    public Mono<Long> count(Class<?> entityType) {
+        CachedCount cached = counts.computeIfAbsent(entityType, this::load);
+        if (cached.isExpired() && cached.refreshing.compareAndSet(false, true)) {
+            CachedCount refreshed = load(entityType);
+            refreshed.count.subscribe(
+                count -> counts.replace(entityType, cached, refreshed),
+                error -> {
+                    log.warn("Could not refresh the number of {} : {}", entityType.getSimpleName(), error.getMessage());
+                    cached.refreshing.set(false);
+                }
+            );
+        }
+        // A failed count is not cached: the next request runs it again.
+        return cached.count.doOnError(error -> counts.remove(entityType, cached));
+    }
+
+    /**
+     * Evicts the cached number of entities with the given type, after one of them was created or deleted.
+     *
+     * @param entityType the entity type.
+     */
+    public void invalidate(Class<?> entityType) {
+        counts.remove(entityType);
+    }
+
+    /**
+     * Evicts the cached number of entities with the given type once the current transaction committed, or right away
+     * outside of a transaction.
+     *
+     * @param entityType the entity type.
+     * @return empty, once the eviction is either done or registered.
+     */
+    public Mono<Void> invalidateAfterCommit(Class<?> entityType) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(synchronizationManager ->
+                synchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(() -> invalidate(entityType));
+                        }
+                    }
+                )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .switchIfEmpty(Mono.fromRunnable(() -> invalidate(entityType)))
+            .then();
+    }
+
+    private CachedCount load(Class<?> entityType) {
+        Mono<Long> count = properties.isEstimated() ? entityManager.estimateCount(entityType) : entityManager.count(entityType);
+        return new CachedCount(count, System.nanoTime() + properties.getTtl().toNanos());
+    }
+
+    private static final class CachedCount {
+
+        private final Mono<Long> count;
+        private final long expiresAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CachedCount(Mono<Long> count, long expiresAt) {
+            this.count = count.cache(value -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
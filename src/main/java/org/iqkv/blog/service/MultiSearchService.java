@@ -0,0 +1,69 @@
+package org.iqkv.blog.service;
+
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.repository.search.MultiSearchRepository;
+import org.iqkv.blog.service.dto.MultiSearchResultDTO;
+import org.iqkv.blog.service.dto.UserDTO;
+import org.iqkv.blog.service.mapper.BlogMapper;
+import org.iqkv.blog.service.mapper.PostMapper;
+import org.iqkv.blog.service.mapper.TagMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service searching the posts, blogs, tags and users at once, for the global search box.
+ */
+@Service
+public class MultiSearchService {
+
+    private final Logger log = LoggerFactory.getLogger(MultiSearchService.class);
+
+    private final MultiSearchRepository multiSearchRepository;
+
+    private final PostMapper postMapper;
+
+    private final BlogMapper blogMapper;
+
+    private final TagMapper tagMapper;
+
+    private final ApplicationProperties.Search.Multi properties;
+
+    public MultiSearchService(
+        MultiSearchRepository multiSearchRepository,
+        PostMapper postMapper,
+        BlogMapper blogMapper,
+        TagMapper tagMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.multiSearchRepository = multiSearchRepository;
+        this.postMapper = postMapper;
+        this.blogMapper = blogMapper;
+        this.tagMapper = tagMapper;
+        this.properties = applicationProperties.getSearch().getMulti();
+    }
+
+    /**
+     * Search for the posts, blogs, tags and users matching a free text.
+     *
+     * @param text the free text.
+     * @param size the number of hits per type, {@code null} for {@code application.search.multi.size}; at most
+     * {@code max-size}.
+     * @return the hits, grouped by type.
+     */
+    public Mono<MultiSearchResultDTO> search(String text, Integer size) {
+        log.debug("Request to search for the Posts, Blogs, Tags and Users for text {}", text);
+        int boundedSize = Math.min(Math.max(size == null ? properties.getSize() : size, 1), properties.getMaxSize());
+        return multiSearchRepository
+            .search(text, boundedSize)
+            .map(result ->
+                new MultiSearchResultDTO(
+                    result.posts().map(postMapper::toDto),
+                    result.blogs().map(blogMapper::toDto),
+                    result.tags().map(tagMapper::toDto),
+                    result.users().map(UserDTO::new)
+                )
+            );
+    }
+}
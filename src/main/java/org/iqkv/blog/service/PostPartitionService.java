@@ -0,0 +1,450 @@
+package org.iqkv.blog.service;
+
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import co.elastic.clients.util.ObjectBuilder;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ReactiveIndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service indexing the posts in monthly indexes, by their date, behind the {@code post} alias the searches read.
+ * <p>
+ * With {@code application.search.partition.enabled}, a generation of the post index, {@code post_<timestamp>}, is made
+ * of the monthly indexes {@code post_<timestamp>-<yyyy.MM>}. A post is written to the index of its month, created with
+ * its first post; a post moved to another month by a change of its date is deleted from its previous index. Every
+ * {@code maintenance-interval}, the index of the next month is created ahead, and the writable indexes older than
+ * {@code seal-after-months} are sealed: force merged to a single segment and made read-only. A sealed index is made
+ * writable again to write its posts, and sealed again by the next maintenance.
+ * <p>
+ * The searches read the post alias: the date range of a bounded search lets Elasticsearch skip the shards of the other
+ * months in its can_match phase, which runs as soon as a sealed, read-only, index is searched, so the searched indexes
+ * are always the ones of the alias in the cluster. The updates by query of the denormalized blogs and tags unseal the
+ * indexes holding their posts only.
+ */
+@Service
+public class PostPartitionService implements SmartLifecycle {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy.MM");
+
+    private static final Pattern PARTITION = Pattern.compile("(.+)-(\\d{4}\\.\\d{2})");
+
+    private static final String WRITE_BLOCK_SETTING = "index.blocks.write";
+
+    private final Logger log = LoggerFactory.getLogger(PostPartitionService.class);
+
+    private final PostSearchRepository postSearchRepository;
+
+    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private final ApplicationProperties.Search.Partition properties;
+
+    private final String alias;
+
+    // the monthly indexes known to exist, of any generation
+    private final Set<String> partitions = ConcurrentHashMap.newKeySet();
+
+    private volatile String liveGeneration;
+
+    private Disposable maintaining;
+
+    public PostPartitionService(
+        PostSearchRepository postSearchRepository,
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        ApplicationProperties applicationProperties
+    ) {
+        this.postSearchRepository = postSearchRepository;
+        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.properties = applicationProperties.getSearch().getPartition();
+        this.alias = reactiveElasticsearchTemplate.getIndexCoordinatesFor(Post.class).getIndexName();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        maintaining = Flux.interval(Duration.ZERO, properties.getMaintenanceInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> maintain(), 1)
+            .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        if (maintaining != null) {
+            maintaining.dispose();
+            maintaining = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return maintaining != null && !maintaining.isDisposed();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Reads the monthly indexes behind the post alias, after they were swapped by a reindex.
+     *
+     * @return a Mono to signal the read.
+     */
+    public Mono<Void> refresh() {
+        return indexOps(alias).getAliases(alias).onErrorReturn(Map.of()).doOnNext(this::refresh).then();
+    }
+
+    private void refresh(Map<String, Set<AliasData>> aliases) {
+        List<Matcher> aliased = aliases
+            .entrySet()
+            .stream()
+            .filter(entry -> !entry.getValue().isEmpty())
+            .map(entry -> PARTITION.matcher(entry.getKey()))
+            .filter(Matcher::matches)
+            .toList();
+        aliased.forEach(matcher -> partitions.add(matcher.group()));
+        liveGeneration = aliased.isEmpty() ? null : aliased.get(0).group(1);
+    }
+
+    /**
+     * Whether the post alias points to monthly indexes.
+     *
+     * @return whether the posts are indexed in monthly indexes.
+     */
+    public Mono<Boolean> isPartitioned() {
+        return refresh().then(Mono.fromSupplier(() -> liveGeneration != null));
+    }
+
+    /**
+     * Creates the index of the current month for a generation being rebuilt, so the generation has an index to alias
+     * even without posts.
+     *
+     * @param generation the generation of the monthly indexes.
+     * @return a Mono to signal the creation.
+     */
+    public Mono<Void> prepare(String generation) {
+        return ensureExists(partition(generation, YearMonth.now(ZoneOffset.UTC)), generation);
+    }
+
+    /**
+     * The pattern matching the monthly indexes of a generation.
+     *
+     * @param generation the generation.
+     * @return the index pattern.
+     */
+    public static String indexPattern(String generation) {
+        return generation + "-*";
+    }
+
+    /**
+     * Writes posts to the monthly indexes of the generation behind the post alias, see {@link #save(List, String)}. The
+     * generation is read from the alias before the write, and checked again after it, see {@link #checkLive}.
+     *
+     * @param posts the posts.
+     * @return whether the posts were written, {@code false} when the post alias does not point to monthly indexes.
+     */
+    public Mono<Boolean> saveLive(List<Post> posts) {
+        return refresh()
+            .then(Mono.fromSupplier(() -> liveGeneration))
+            .flatMap(generation -> {
+                Set<String> written = groupByPartition(posts, generation).keySet();
+                return save(posts, generation)
+                    .onErrorResume(e -> checkLive(generation, written).then(Mono.error(e)))
+                    .then(Mono.defer(() -> checkLive(generation, written)))
+                    .thenReturn(true);
+            })
+            .defaultIfEmpty(false);
+    }
+
+    /**
+     * Deletes posts from the monthly indexes of the generation behind the post alias, read like {@link #saveLive(List)}.
+     *
+     * @param ids the ids of the posts.
+     * @return whether the posts were deleted, {@code false} when the post alias does not point to monthly indexes.
+     */
+    public Mono<Boolean> deleteLive(Set<Long> ids) {
+        return refresh()
+            .then(Mono.fromSupplier(() -> liveGeneration))
+            .flatMap(generation -> delete(ids, generation).then(Mono.defer(() -> checkLive(generation, Set.of()))).thenReturn(true))
+            .defaultIfEmpty(false);
+    }
+
+    /**
+     * Writes posts to the monthly indexes of their dates, and deletes them from the indexes of their previous dates.
+     *
+     * @param posts the posts.
+     * @param generation the generation of the monthly indexes.
+     * @return a Mono to signal the write.
+     */
+    public Mono<Void> save(List<Post> posts, String generation) {
+        Map<String, List<Post>> postsByPartition = groupByPartition(posts, generation);
+        return write(postsByPartition, generation, true)
+            .onErrorResume(e -> {
+                // the written posts are still moved, the rejected ones keep their previous document until they are retried
+                Set<Long> rejectedIds = SearchIndexer.rejectedIds(e);
+                return rejectedIds == null ? Mono.error(e) : deleteMoved(postsByPartition, rejectedIds, generation).then(Mono.error(e));
+            })
+            .then(Mono.defer(() -> deleteMoved(postsByPartition, Set.of(), generation)));
+    }
+
+    /**
+     * Writes posts to the monthly indexes of a generation being rebuilt, unless they were indexed there meanwhile, see
+     * {@link SearchReindexService#createAll}.
+     *
+     * @param posts the posts.
+     * @param generation the generation of the monthly indexes.
+     * @return a Mono to signal the write.
+     */
+    public Mono<Void> load(List<Post> posts, String generation) {
+        return write(groupByPartition(posts, generation), generation, false);
+    }
+
+    /**
+     * Deletes posts from the monthly indexes of a generation.
+     *
+     * @param ids the ids of the posts.
+     * @param generation the generation of the monthly indexes.
+     * @return a Mono to signal the deletion.
+     */
+    public Mono<Void> delete(Set<Long> ids, String generation) {
+        return postSearchRepository.findIndexed(ids, IndexCoordinates.of(indexPattern(generation))).concatMap(this::delete).then();
+    }
+
+    /**
+     * Makes some sealed monthly indexes of the post alias writable, before their posts are updated by query.
+     *
+     * @param indexes the indexes holding the updated posts.
+     * @return a Mono to signal the update of the settings.
+     */
+    public Mono<Void> unseal(Collection<String> indexes) {
+        String generation = liveGeneration;
+        if (generation == null) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(indexes)
+            .filter(partition -> partition.startsWith(generation + "-"))
+            .concatMap(this::unseal)
+            .then();
+    }
+
+    /**
+     * Creates the index of the next month, and seals the indexes older than {@code seal-after-months} which are not
+     * sealed yet, or were made writable again by a write.
+     *
+     * @return a Mono to signal the maintenance.
+     */
+    public Mono<Void> maintain() {
+        return refresh()
+            .then(
+                Mono.defer(() -> {
+                    String generation = liveGeneration;
+                    if (generation == null) {
+                        log.debug("The post alias is not partitioned yet, skipping the maintenance of the monthly indexes");
+                        return Mono.empty();
+                    }
+                    YearMonth now = YearMonth.now(ZoneOffset.UTC);
+                    return ensureExists(partition(generation, now), generation)
+                        .then(ensureExists(partition(generation, now.plusMonths(1)), generation))
+                        .thenMany(Flux.fromIterable(List.copyOf(partitions)))
+                        .filter(partition -> partition.startsWith(generation + "-") && isSealable(partition))
+                        .concatMap(partition -> isSealed(partition).flatMap(sealed -> sealed ? Mono.<Void>empty() : seal(partition)))
+                        .then();
+                })
+            )
+            .onErrorResume(e -> {
+                log.warn("Could not maintain the monthly post indexes : {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    static String partition(String generation, YearMonth month) {
+        return generation + "-" + month.format(MONTH);
+    }
+
+    static String partition(String generation, Instant date) {
+        // the posts without date are indexed with the first month
+        return partition(generation, YearMonth.from((date == null ? Instant.EPOCH : date).atZone(ZoneOffset.UTC)));
+    }
+
+    static boolean isSealable(String partition, YearMonth now, int sealAfterMonths) {
+        Matcher matcher = PARTITION.matcher(partition);
+        return matcher.matches() && YearMonth.parse(matcher.group(2), MONTH).isBefore(now.minusMonths(sealAfterMonths));
+    }
+
+    private boolean isSealable(String partition) {
+        return isSealable(partition, YearMonth.now(ZoneOffset.UTC), properties.getSealAfterMonths());
+    }
+
+    private static Map<String, List<Post>> groupByPartition(List<Post> posts, String generation) {
+        return posts
+            .stream()
+            .collect(Collectors.groupingBy(post -> partition(generation, post.getDate()), LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Checks that the generation written to is still behind the post alias. Elasticsearch creates the indexes written to
+     * when they do not exist: a write racing with a reindex swapping the alias on another instance creates the deleted
+     * indexes of the previous generation again, outside of the alias, and its posts are missing from the new generation.
+     * These indexes are deleted, and the write fails, so it is retried on the new generation. The alias read fails the
+     * write too, nothing is deleted on a guess.
+     */
+    private Mono<Void> checkLive(String generation, Collection<String> written) {
+        return indexOps(alias)
+            .getAliases(alias)
+            .flatMap(aliases -> {
+                refresh(aliases);
+                if (generation.equals(liveGeneration)) {
+                    return Mono.empty();
+                }
+                List<String> strays = written
+                    .stream()
+                    .filter(partition -> aliases.getOrDefault(partition, Set.of()).isEmpty())
+                    .toList();
+                log.warn("The post alias was swapped from {} during a write, deleting the indexes {} written to", generation, strays);
+                partitions.removeAll(strays);
+                return Flux.fromIterable(strays)
+                    .concatMap(partition -> indexOps(partition).delete().onErrorReturn(false))
+                    .then(Mono.error(new IllegalStateException("The post alias was swapped from " + generation + " during a write")));
+            });
+    }
+
+    /**
+     * Writes the posts index after index. A bulk request rejecting some posts does not stop the writes to the next
+     * indexes, its failure is signalled once they are written. The live writes unseal the indexes and overwrite the
+     * documents; the loads of a rebuilt generation only create the missing ones.
+     */
+    private Mono<Void> write(Map<String, List<Post>> postsByPartition, String generation, boolean live) {
+        return Flux.fromIterable(postsByPartition.entrySet())
+            .concatMapDelayError(entry -> {
+                String partition = entry.getKey();
+                Mono<Void> prepared = ensureExists(partition, generation).then(live ? unseal(partition) : Mono.empty());
+                IndexCoordinates index = IndexCoordinates.of(partition);
+                Mono<Void> written = live
+                    ? reactiveElasticsearchTemplate.saveAll(entry.getValue(), index).then()
+                    : SearchReindexService.createAll(reactiveElasticsearchTemplate, entry.getValue(), Post::getId, index);
+                return prepared.then(written);
+            })
+            .then();
+    }
+
+    /**
+     * Deletes the documents of the posts from the monthly indexes other than the ones of their current dates.
+     */
+    private Mono<Void> deleteMoved(Map<String, List<Post>> postsByPartition, Set<Long> rejectedIds, String generation) {
+        Map<Long, String> partitionsById = new HashMap<>();
+        postsByPartition.forEach((partition, posts) -> posts.forEach(post -> partitionsById.put(post.getId(), partition)));
+        partitionsById.keySet().removeAll(rejectedIds);
+        if (partitionsById.isEmpty()) {
+            return Mono.empty();
+        }
+        return postSearchRepository
+            .findIndexed(partitionsById.keySet(), IndexCoordinates.of(indexPattern(generation)))
+            .filter(hit -> !hit.getIndex().equals(partitionsById.get(Long.valueOf(hit.getId()))))
+            .doOnNext(hit -> log.debug("Deleting the moved Post {} from {}", hit.getId(), hit.getIndex()))
+            .concatMap(this::delete)
+            .then();
+    }
+
+    private Mono<Void> delete(SearchHit<Post> hit) {
+        return unseal(hit.getIndex()).then(reactiveElasticsearchTemplate.delete(hit.getId(), IndexCoordinates.of(hit.getIndex()))).then();
+    }
+
+    /**
+     * Creates a monthly index, unless it exists. The indexes of the live generation join the post alias; the ones of a
+     * generation being rebuilt are loaded without replicas and refresh, like the rebuilt indexes.
+     */
+    private Mono<Void> ensureExists(String partition, String generation) {
+        if (partitions.contains(partition)) {
+            return Mono.empty();
+        }
+        ReactiveIndexOperations postIndexOps = reactiveElasticsearchTemplate.indexOps(Post.class);
+        ReactiveIndexOperations partitionOps = indexOps(partition);
+        Mono<Void> created = partitionOps
+            .exists()
+            .filter(exists -> !exists)
+            .flatMap(absent -> Mono.zip(postIndexOps.createSettings(), postIndexOps.createMapping()))
+            .flatMap(settingsAndMapping -> partitionOps.create(settingsAndMapping.getT1(), settingsAndMapping.getT2()))
+            .doOnNext(done -> log.info("Created the monthly post index {}", partition))
+            // created meanwhile by another instance
+            .onErrorResume(e -> partitionOps.exists().flatMap(exists -> exists ? Mono.just(false) : Mono.error(e)))
+            .then();
+        Mono<Void> prepared = generation.equals(liveGeneration)
+            ? addAlias(partition)
+            : putSettings(partition, settings -> settings.numberOfReplicas("0").refreshInterval(time -> time.time("-1")));
+        return created.then(prepared).doOnSuccess(done -> partitions.add(partition));
+    }
+
+    private Mono<Void> addAlias(String partition) {
+        AliasActions actions = new AliasActions(
+            new AliasAction.Add(AliasActionParameters.builder().withIndices(partition).withAliases(alias).build())
+        );
+        return indexOps(alias).alias(actions).then();
+    }
+
+    private Mono<Void> unseal(String partition) {
+        return isSealable(partition) ? blockWrites(partition, false) : Mono.empty();
+    }
+
+    private Mono<Boolean> isSealed(String partition) {
+        return indexOps(partition)
+            .getSettings()
+            .map(settings -> Boolean.parseBoolean(String.valueOf(settings.flatten().get(WRITE_BLOCK_SETTING))));
+    }
+
+    private Mono<Void> seal(String partition) {
+        log.debug("Sealing the monthly post index {}", partition);
+        return Mono.from(
+            reactiveElasticsearchTemplate.execute(client ->
+                client.indices().forcemerge(request -> request.index(partition).maxNumSegments(1L))
+            )
+        ).then(blockWrites(partition, true));
+    }
+
+    private Mono<Void> blockWrites(String partition, boolean blocked) {
+        return putSettings(partition, settings -> settings.blocks(blocks -> blocks.write(blocked)));
+    }
+
+    private Mono<Void> putSettings(String index, Function<IndexSettings.Builder, ObjectBuilder<IndexSettings>> settings) {
+        return Mono.from(
+            reactiveElasticsearchTemplate.execute(client ->
+                client.indices().putSettings(request -> request.index(index).settings(settings))
+            )
+        ).then();
+    }
+
+    private ReactiveIndexOperations indexOps(String indexName) {
+        return reactiveElasticsearchTemplate.indexOps(IndexCoordinates.of(indexName));
+    }
+}
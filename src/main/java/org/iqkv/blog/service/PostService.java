@@ -1,19 +1,31 @@
 package org.iqkv.blog.service;
 
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.repository.Keyset;
 import org.iqkv.blog.repository.PostRepository;
+import org.iqkv.blog.repository.search.FacetedSearchPage;
+import org.iqkv.blog.repository.search.PostSearchCriteria;
 import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.iqkv.blog.repository.search.SearchCursor;
+import org.iqkv.blog.repository.search.SearchCursorPage;
 import org.iqkv.blog.service.dto.PostDTO;
 import org.iqkv.blog.service.mapper.PostMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
  * Service Implementation for managing {@link org.iqkv.blog.domain.Post}.
+ * <p>
+ * The searches run outside of a transaction, so they do not hold a database connection while Elasticsearch answers, nor
+ * for a cached page; their PostgreSQL fallback opens its own read-only transaction, see
+ * {@link org.iqkv.blog.repository.search.SearchCircuitBreaker}.
  */
 @Service
 @Transactional
@@ -27,10 +39,30 @@ public class PostService {
 
     private final PostSearchRepository postSearchRepository;
 
-    public PostService(PostRepository postRepository, PostMapper postMapper, PostSearchRepository postSearchRepository) {
+    private final EntityCountService entityCountService;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final SearchResultCache searchResultCache;
+
+    private final SearchCursorLimiter searchCursorLimiter;
+
+    public PostService(
+        PostRepository postRepository,
+        PostMapper postMapper,
+        PostSearchRepository postSearchRepository,
+        EntityCountService entityCountService,
+        SearchOutboxService searchOutboxService,
+        SearchResultCache searchResultCache,
+        SearchCursorLimiter searchCursorLimiter
+    ) {
         this.postRepository = postRepository;
         this.postMapper = postMapper;
         this.postSearchRepository = postSearchRepository;
+        this.entityCountService = entityCountService;
+        this.searchOutboxService = searchOutboxService;
+        this.searchResultCache = searchResultCache;
+        this.searchCursorLimiter = searchCursorLimiter;
     }
 
     /**
@@ -41,7 +73,11 @@ public class PostService {
      */
     public Mono<PostDTO> save(PostDTO postDTO) {
         log.debug("Request to save Post : {}", postDTO);
-        return postRepository.save(postMapper.toEntity(postDTO)).flatMap(postSearchRepository::save).map(postMapper::toDto);
+        return postRepository
+            .save(postMapper.toEntity(postDTO))
+            .flatMap(savedPost -> entityCountService.invalidateAfterCommit(Post.class).thenReturn(savedPost))
+            .flatMap(savedPost -> searchOutboxService.reindex(Post.class, savedPost.getId()).thenReturn(savedPost))
+            .map(postMapper::toDto);
     }
 
     /**
@@ -52,7 +88,10 @@ public class PostService {
      */
     public Mono<PostDTO> update(PostDTO postDTO) {
         log.debug("Request to update Post : {}", postDTO);
-        return postRepository.save(postMapper.toEntity(postDTO)).flatMap(postSearchRepository::save).map(postMapper::toDto);
+        return postRepository
+            .save(postMapper.toEntity(postDTO))
+            .flatMap(savedPost -> searchOutboxService.reindex(Post.class, savedPost.getId()).thenReturn(savedPost))
+            .map(postMapper::toDto);
     }
 
     /**
@@ -65,22 +104,19 @@ public class PostService {
         log.debug("Request to partially update Post : {}", postDTO);
 
         return postRepository
-            .findById(postDTO.getId())
+            .findOneWithEagerRelationships(postDTO.getId())
             .map(existingPost -> {
                 postMapper.partialUpdate(existingPost, postDTO);
 
                 return existingPost;
             })
             .flatMap(postRepository::save)
-            .flatMap(savedPost -> {
-                postSearchRepository.save(savedPost);
-                return Mono.just(savedPost);
-            })
+            .flatMap(savedPost -> searchOutboxService.reindex(Post.class, savedPost.getId()).thenReturn(savedPost))
             .map(postMapper::toDto);
     }
 
     /**
-     * Get all the posts.
+     * Get all the posts, as summaries: the content is not loaded, only its excerpt.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -88,33 +124,49 @@ public class PostService {
     @Transactional(readOnly = true)
     public Flux<PostDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Posts");
-        return postRepository.findAllBy(pageable).map(postMapper::toDto);
+        return postRepository.findAllSummariesBy(pageable).map(postMapper::toDto);
     }
 
     /**
-     * Get all the posts with eager load of many-to-many relationships.
+     * Get a page of the posts, positioned with a keyset instead of an offset, as summaries.
      *
+     * @param keyset the position and size of the page.
      * @return the list of entities.
      */
+    @Transactional(readOnly = true)
+    public Flux<PostDTO> findAll(Keyset keyset) {
+        log.debug("Request to get a keyset page of Posts : {}", keyset);
+        return postRepository.findAllSummariesBy(keyset).map(postMapper::toDto);
+    }
+
+    /**
+     * Get all the posts with eager load of many-to-many relationships, as summaries.
+     *
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
     public Flux<PostDTO> findAllWithEagerRelationships(Pageable pageable) {
-        return postRepository.findAllWithEagerRelationships(pageable).map(postMapper::toDto);
+        return postRepository.findAllSummariesWithEagerRelationships(pageable).map(postMapper::toDto);
     }
 
     /**
-     * Returns the number of posts available.
-     * @return the number of entities in the database.
+     * Get a keyset page of the posts with eager load of many-to-many relationships, as summaries.
      *
+     * @param keyset the position and size of the page.
+     * @return the list of entities.
      */
-    public Mono<Long> countAll() {
-        return postRepository.count();
+    @Transactional(readOnly = true)
+    public Flux<PostDTO> findAllWithEagerRelationshipsBy(Keyset keyset) {
+        return postRepository.findAllSummariesWithEagerRelationshipsBy(keyset).map(postMapper::toDto);
     }
 
     /**
-     * Returns the number of posts available in search repository.
+     * Returns the number of posts available.
+     * @return the number of entities in the database.
      *
      */
-    public Mono<Long> searchCount() {
-        return postSearchRepository.count();
+    public Mono<Long> countAll() {
+        return entityCountService.count(Post.class);
     }
 
     /**
@@ -137,19 +189,87 @@ public class PostService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Post : {}", id);
-        return postRepository.deleteById(id).then(postSearchRepository.deleteById(id));
+        return postRepository
+            .deleteById(id)
+            .then(entityCountService.invalidateAfterCommit(Post.class))
+            .then(searchOutboxService.reindex(Post.class, id));
     }
 
     /**
-     * Search for the post corresponding to the query.
+     * Search for the posts matching the criteria.
+     * The pages are cached, see {@link SearchResultCache}.
      *
-     * @param query the query of the search.
+     * @param criteria the free text and the filters of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of entities, with the total of the matching entities.
      */
-    @Transactional(readOnly = true)
-    public Flux<PostDTO> search(String query, Pageable pageable) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Page<PostDTO>> search(PostSearchCriteria criteria, Pageable pageable) {
+        log.debug("Request to search for a page of Posts for criteria {}", criteria);
+        PostSearchCriteria normalized = new PostSearchCriteria(
+            SearchResultCache.normalize(criteria.text()),
+            criteria.blogId(),
+            criteria.tagIds(),
+            criteria.fromDate(),
+            criteria.toDate()
+        );
+        return searchResultCache.get(Post.class, normalized, pageable, () ->
+            postSearchRepository.search(criteria, pageable).map(page -> page.map(postMapper::toDto))
+        );
+    }
+
+    /**
+     * Search for the posts matching the criteria, with the facets of the whole result set.
+     *
+     * @param criteria the free text and the filters of the search.
+     * @param pageable the pagination information.
+     * @return the page of entities, with the total of the matching entities and the facets.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<FacetedSearchPage<PostDTO>> searchWithFacets(PostSearchCriteria criteria, Pageable pageable) {
+        log.debug("Request to search for a faceted page of Posts for criteria {}", criteria);
+        return postSearchRepository.searchWithFacets(criteria, pageable).map(page -> page.map(postMapper::toDto));
+    }
+
+    /**
+     * Search for the posts corresponding to a raw query_string query.
+     *
+     * @param query the query of the search, in the Lucene syntax.
+     * @param pageable the pagination information.
+     * @return the page of entities, with the total of the matching entities.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Page<PostDTO>> searchQueryString(String query, Pageable pageable) {
         log.debug("Request to search for a page of Posts for query {}", query);
-        return postSearchRepository.search(query, pageable).map(postMapper::toDto);
+        return postSearchRepository.searchQueryString(query, pageable).map(page -> page.map(postMapper::toDto));
+    }
+
+    /**
+     * Search for the posts matching the criteria, from a search cursor.
+     *
+     * @param criteria the free text and the filters of the search.
+     * @param cursor the position of the page.
+     * @return the page of entities, with the cursor of the next page, or a {@link TooManySearchCursorsException} error if the
+     * current user opened too many search cursors.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<SearchCursorPage<PostDTO>> search(PostSearchCriteria criteria, SearchCursor cursor) {
+        log.debug("Request to search for a cursor page of Posts for criteria {} : {}", criteria, cursor);
+        Mono<SearchCursorPage<PostDTO>> page = postSearchRepository.search(criteria, cursor).map(result -> result.map(postMapper::toDto));
+        // the first page opens a point in time
+        return cursor.isFirst() ? searchCursorLimiter.acquire().then(page) : page;
+    }
+
+    /**
+     * Search for all the posts matching the criteria, fetched in batches.
+     *
+     * @param criteria the free text and the filters of the search.
+     * @return the list of entities, or a {@link TooManySearchCursorsException} error if the current user opened too many
+     * search cursors.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<PostDTO> searchAll(PostSearchCriteria criteria) {
+        log.debug("Request to search for all Posts for criteria {}", criteria);
+        return searchCursorLimiter.acquire().thenMany(postSearchRepository.searchAll(criteria)).map(postMapper::toDto);
     }
 }
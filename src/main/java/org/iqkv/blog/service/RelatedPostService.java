@@ -0,0 +1,101 @@
+package org.iqkv.blog.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.iqkv.blog.service.dto.PostDTO;
+import org.iqkv.blog.service.mapper.PostMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service finding the posts related to a post, by the terms of their titles, contents and tags.
+ * <p>
+ * The related posts of a post are cached for {@code application.search.related.cache-ttl}, and evicted when the
+ * {@link SearchIndexer} reindexes or deletes the post or one of its related posts. The requests of a post arriving while
+ * its related posts are searched share that search, see {@link CachedSearch}, so a popular post sends a single query to
+ * Elasticsearch. At most {@code cache-size} posts are cached: the least recently used are evicted first.
+ */
+@Service
+public class RelatedPostService {
+
+    private final Logger log = LoggerFactory.getLogger(RelatedPostService.class);
+
+    private final PostSearchRepository postSearchRepository;
+
+    private final PostMapper postMapper;
+
+    private final ApplicationProperties.Search.Related properties;
+
+    private final Map<Long, CachedSearch<List<PostDTO>>> relatedPosts;
+
+    public RelatedPostService(
+        PostSearchRepository postSearchRepository,
+        PostMapper postMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.postSearchRepository = postSearchRepository;
+        this.postMapper = postMapper;
+        this.properties = applicationProperties.getSearch().getRelated();
+        int cacheSize = properties.getCacheSize();
+        this.relatedPosts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedRelatedPosts> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get the posts related to a post, possibly cached.
+     *
+     * @param id the id of the post.
+     * @return the related posts, at most {@code application.search.related.size}, without their content.
+     */
+    public Mono<List<PostDTO>> findRelated(Long id) {
+        CachedSearch<List<PostDTO>> cached;
+        synchronized (relatedPosts) {
+            cached = relatedPosts.get(id);
+            if (cached == null || cached.isExpired()) {
+                cached = new CachedSearch<>(load(id), properties.getCacheTtl());
+                relatedPosts.put(id, cached);
+            }
+        }
+        CachedSearch<List<PostDTO>> loaded = cached;
+        // A failed search is not cached: the next request runs it again.
+        return loaded.result().doOnError(error -> {
+            synchronized (relatedPosts) {
+                relatedPosts.remove(id, loaded);
+            }
+        });
+    }
+
+    /**
+     * Evicts the related posts of posts, after they were reindexed or deleted, and the related posts listing them. The
+     * searches still running are evicted as well, as they may read the posts before their change.
+     *
+     * @param ids the ids of the posts.
+     */
+    public void invalidate(Collection<Long> ids) {
+        Set<Long> changedIds = Set.copyOf(ids);
+        synchronized (relatedPosts) {
+            relatedPosts.entrySet().removeIf(entry -> changedIds.contains(entry.getKey()) || lists(entry.getValue(), changedIds));
+        }
+    }
+
+    private static boolean lists(CachedSearch<List<PostDTO>> cached, Set<Long> ids) {
+        List<PostDTO> posts = cached.value();
+        return posts == null || posts.stream().anyMatch(post -> ids.contains(post.getId()));
+    }
+
+    private Mono<List<PostDTO>> load(Long id) {
+        log.debug("Request to search for the Posts related to Post : {}", id);
+        return postSearchRepository.searchRelated(id, properties.getSize()).map(postMapper::toDto).collectList();
+    }
+}
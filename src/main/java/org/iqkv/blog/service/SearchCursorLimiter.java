@@ -0,0 +1,58 @@
+package org.iqkv.blog.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.security.SecurityUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limits the points in time opened by each user, with the first page of a cursor based search or with an export.
+ * <p>
+ * A point in time pins the segments of the index until it expires, so each user can open at most
+ * {@code application.search.max-points-in-time-per-user} of them within {@code point-in-time-keep-alive}.
+ */
+@Service
+public class SearchCursorLimiter {
+
+    private final int maxPointsInTime;
+
+    private final long window;
+
+    private final Map<String, Deque<Long>> openedPointsInTime = new ConcurrentHashMap<>();
+
+    public SearchCursorLimiter(ApplicationProperties applicationProperties) {
+        this.maxPointsInTime = applicationProperties.getSearch().getMaxPointsInTimePerUser();
+        this.window = applicationProperties.getSearch().getPointInTimeKeepAlive().toNanos();
+    }
+
+    /**
+     * Counts a point in time opened by the current user.
+     *
+     * @return empty, or a {@link TooManySearchCursorsException} error if the user opened too many points in time.
+     */
+    public Mono<Void> acquire() {
+        return SecurityUtils.getCurrentUserLogin()
+            .defaultIfEmpty("")
+            .flatMap(login -> tryAcquire(login, System.nanoTime()) ? Mono.empty() : Mono.error(new TooManySearchCursorsException()));
+    }
+
+    boolean tryAcquire(String login, long now) {
+        boolean[] acquired = new boolean[1];
+        openedPointsInTime.compute(login, (key, opened) -> {
+            Deque<Long> recent = opened != null ? opened : new ArrayDeque<>();
+            while (!recent.isEmpty() && now - recent.peekFirst() >= window) {
+                recent.pollFirst();
+            }
+            acquired[0] = recent.size() < maxPointsInTime;
+            if (acquired[0]) {
+                recent.addLast(now);
+            }
+            return recent.isEmpty() ? null : recent;
+        });
+        return acquired[0];
+    }
+}
@@ -0,0 +1,529 @@
+package org.iqkv.blog.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.SearchOutboxEntry;
+import org.iqkv.blog.domain.SearchReindex;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.domain.enumeration.ReindexStatus;
+import org.iqkv.blog.repository.BlogRepository;
+import org.iqkv.blog.repository.PostRepository;
+import org.iqkv.blog.repository.SearchOutboxRepository;
+import org.iqkv.blog.repository.SearchReindexRepository;
+import org.iqkv.blog.repository.TagRepository;
+import org.iqkv.blog.repository.search.BlogSearchRepository;
+import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.iqkv.blog.repository.search.TagSearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Background indexer draining the search outbox into Elasticsearch.
+ * <p>
+ * The outbox is read in batches of {@code application.search.indexer.batch-size} entries: a full batch is followed by
+ * the next one right away, otherwise the indexer waits for {@code flush-interval}. A batch is claimed for
+ * {@code lease-duration}, so the instances with the indexer enabled drain the outbox together without indexing the same
+ * entries; the entries of an instance stopped during a batch are claimed again once their lease expired. The entities
+ * of a batch are reloaded from the database, and indexed with one bulk request per type; the entities which no longer
+ * exist are deleted from the index. A failed batch is retried with a backoff, then its entries are counted as failed and retried with the
+ * next batches, up to {@code max-attempts}. When a bulk request rejects some documents only, the other entries of the
+ * batch are indexed, and only the entries of the rejected documents are retried. The entries which failed
+ * {@code max-attempts} times are no longer retried, they are counted by the {@code search.outbox.abandoned} gauge.
+ * <p>
+ * While an index is rebuilt by the {@link SearchReindexService}, the changes are also written to the new index, so it
+ * does not miss the changes made during the reindex. The new index is read from the last {@link SearchReindex} of the
+ * entity type for every batch, after claiming it, so every instance writes to it, also after a restart. The cached
+ * search pages of an index are evicted once it is written to, see {@link SearchResultCache}, and again once the index
+ * was refreshed, so a search run before the writes are visible does not keep the previous results cached. With
+ * {@code application.search.partition.enabled}, the posts are written to the monthly indexes of the
+ * {@link PostPartitionService}.
+ */
+@Service
+public class SearchIndexer implements SmartLifecycle {
+
+    private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
+
+    // the time taken by a refresh, after its interval
+    private static final Duration REFRESH_MARGIN = Duration.ofSeconds(1);
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final SearchReindexRepository searchReindexRepository;
+
+    private final ApplicationProperties.Search.Indexer properties;
+
+    private final Map<String, IndexedType<?>> indexedTypes = new LinkedHashMap<>();
+
+    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private final SearchResultCache searchResultCache;
+
+    private final RelatedPostService relatedPostService;
+
+    private final PostPartitionService postPartitionService;
+
+    private final Map<Class<?>, Mono<Duration>> refreshDelays = new ConcurrentHashMap<>();
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final AtomicLong abandoned = new AtomicLong();
+
+    private final Counter indexedCounter;
+
+    private final Counter failedCounter;
+
+    private Disposable indexing;
+
+    public SearchIndexer(
+        SearchOutboxRepository searchOutboxRepository,
+        SearchReindexRepository searchReindexRepository,
+        PostRepository postRepository,
+        PostSearchRepository postSearchRepository,
+        BlogRepository blogRepository,
+        BlogSearchRepository blogSearchRepository,
+        TagRepository tagRepository,
+        TagSearchRepository tagSearchRepository,
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        SearchResultCache searchResultCache,
+        RelatedPostService relatedPostService,
+        PostPartitionService postPartitionService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.searchReindexRepository = searchReindexRepository;
+        this.properties = applicationProperties.getSearch().getIndexer();
+        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.searchResultCache = searchResultCache;
+        this.relatedPostService = relatedPostService;
+        this.postPartitionService = postPartitionService;
+        IndexWriter<Post> postWriter = new RepositoryIndexWriter<>(postSearchRepository, reactiveElasticsearchTemplate);
+        register(
+            Post.class,
+            postRepository::findAllWithEagerRelationshipsByIdIn,
+            Post::getId,
+            postPartitionService.isEnabled() ? new PartitionedPostWriter(postPartitionService, postWriter) : postWriter,
+            posts -> Mono.empty()
+        );
+        register(
+            Blog.class,
+            blogRepository::findAllWithEagerRelationshipsByIdIn,
+            Blog::getId,
+            new RepositoryIndexWriter<>(blogSearchRepository, reactiveElasticsearchTemplate),
+            blogs -> updatePosts(blogs, Blog::getId, postSearchRepository::findIndexesOfBlogs, postSearchRepository::updateBlog)
+        );
+        register(
+            Tag.class,
+            tagRepository::findAllById,
+            Tag::getId,
+            new RepositoryIndexWriter<>(tagSearchRepository, reactiveElasticsearchTemplate),
+            tags -> updatePosts(tags, Tag::getId, postSearchRepository::findIndexesOfTags, postSearchRepository::updateTag)
+        );
+        Gauge.builder("search.outbox.lag", lagMillis, AtomicLong::get)
+            .description("Age of the oldest search outbox entry waiting to be indexed.")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        Gauge.builder("search.outbox.abandoned", abandoned, AtomicLong::get)
+            .description("Number of search outbox entries no longer retried, after failing max-attempts times.")
+            .register(meterRegistry);
+        this.indexedCounter = Counter.builder("search.outbox.indexed")
+            .description("Number of search outbox entries indexed.")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("search.outbox.failed")
+            .description("Number of search outbox entries which failed to be indexed.")
+            .register(meterRegistry);
+    }
+
+    private <T> void register(
+        Class<T> entityType,
+        Function<Collection<Long>, Flux<T>> loader,
+        Function<T, Long> idGetter,
+        IndexWriter<T> writer,
+        Function<List<T>, Mono<Void>> denormalizer
+    ) {
+        indexedTypes.put(
+            entityType.getSimpleName(),
+            new IndexedType<>(entityType, loader, idGetter, writer, denormalizer)
+        );
+    }
+
+    /**
+     * Updates the posts denormalizing the indexed blogs or tags, in the post index and in the post indexes being rebuilt,
+     * so the renames are visible in the post searches without reindexing the posts from the database. The sealed monthly
+     * post indexes holding their posts are made writable first, the other ones stay sealed.
+     */
+    private <T> Mono<Void> updatePosts(
+        List<T> entities,
+        Function<T, Long> idGetter,
+        BiFunction<Collection<Long>, IndexCoordinates, Mono<Set<String>>> indexFinder,
+        BiFunction<T, IndexCoordinates, Mono<Long>> update
+    ) {
+        boolean partitioned = postPartitionService.isEnabled();
+        IndexCoordinates alias = reactiveElasticsearchTemplate.getIndexCoordinatesFor(Post.class);
+        Mono<List<IndexCoordinates>> indexes = findReindexedIndexes(Post.class)
+            .map(indexName -> IndexCoordinates.of(partitioned ? PostPartitionService.indexPattern(indexName) : indexName))
+            .startWith(alias)
+            .collectList();
+        // the indexes being rebuilt are not sealed
+        Mono<Void> unsealed = partitioned
+            ? indexFinder.apply(entities.stream().map(idGetter).toList(), alias).flatMap(postPartitionService::unseal)
+            : Mono.empty();
+        return unsealed
+            .then(indexes)
+            .flatMapMany(written ->
+                Flux.fromIterable(entities).concatMap(entity -> Flux.fromIterable(written).concatMap(index -> update.apply(entity, index)))
+            )
+            .reduce(0L, Long::sum)
+            .doOnNext(updated -> {
+                if (updated > 0) {
+                    log.debug("Updated {} denormalized posts", updated);
+                    invalidate(Post.class, List.of());
+                }
+            })
+            .then();
+    }
+
+    /**
+     * The index being rebuilt for an entity type, written to in addition to its alias: the index of its last reindex,
+     * while it runs, and after it failed until it is resumed or abandoned.
+     */
+    private Flux<String> findReindexedIndexes(Class<?> entityType) {
+        return searchReindexRepository
+            .findFirstByEntityTypeOrderByIdDesc(entityType.getSimpleName())
+            .filter(reindex -> reindex.getStatus() == ReindexStatus.RUNNING || reindex.getStatus() == ReindexStatus.FAILED)
+            .map(SearchReindex::getIndexName)
+            .flux();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("The search indexer is disabled, the search outbox is drained by another instance");
+            return;
+        }
+        indexing = Flux.interval(properties.getFlushInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> drain(), 1)
+            .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        if (indexing != null) {
+            indexing.dispose();
+            indexing = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return indexing != null && !indexing.isDisposed();
+    }
+
+    /**
+     * Indexes the outbox entries until a batch is not full, then updates the lag and the abandoned entries.
+     *
+     * @return the number of indexed entries.
+     */
+    public Mono<Long> drain() {
+        return indexBatch()
+            .expand(indexed -> indexed >= properties.getBatchSize() ? indexBatch() : Mono.empty())
+            .reduce(0L, Long::sum)
+            .flatMap(indexed -> updateGauges().thenReturn(indexed))
+            .onErrorResume(e -> {
+                log.warn("Could not drain the search outbox : {}", e.getMessage());
+                return Mono.just(0L);
+            });
+    }
+
+    private Mono<Long> indexBatch() {
+        return searchOutboxRepository
+            .claimPending(properties.getMaxAttempts(), properties.getBatchSize(), properties.getLeaseDuration().toSeconds())
+            .collectList()
+            .flatMap(entries -> {
+                if (entries.isEmpty()) {
+                    return Mono.just(0L);
+                }
+                return index(entries)
+                    .flatMap(rejected -> {
+                        Set<Long> rejectedIds = rejected.stream().map(SearchOutboxEntry::getId).collect(Collectors.toSet());
+                        List<Long> indexedIds = entries
+                            .stream()
+                            .map(SearchOutboxEntry::getId)
+                            .filter(id -> !rejectedIds.contains(id))
+                            .toList();
+                        return indexedIds.isEmpty()
+                            ? Mono.just(rejected)
+                            : searchOutboxRepository.deleteAllById(indexedIds).thenReturn(rejected);
+                    })
+                    .retryWhen(Retry.backoff(properties.getRetries(), Duration.ofMillis(200)))
+                    .flatMap(rejected -> {
+                        indexedCounter.increment(entries.size() - rejected.size());
+                        if (!rejected.isEmpty()) {
+                            log.warn("Elasticsearch rejected {} of {} search outbox entries", rejected.size(), entries.size());
+                        }
+                        // a batch with rejected entries stops draining until the next flush, like a failed batch
+                        return fail(rejected).thenReturn((long) (entries.size() - rejected.size()));
+                    })
+                    .onErrorResume(e -> {
+                        log.warn("Could not index {} search outbox entries : {}", entries.size(), e.getMessage());
+                        // stop draining until the next flush, the entries are retried with the next batches
+                        return fail(entries).thenReturn(0L);
+                    });
+            });
+    }
+
+    /**
+     * Counts the attempts of the failed entries, so they are retried with the next batches until {@code max-attempts}.
+     */
+    private Mono<Void> fail(List<SearchOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return Mono.empty();
+        }
+        failedCounter.increment(entries.size());
+        long abandonedEntries = entries.stream().filter(entry -> entry.getAttempts() + 1 >= properties.getMaxAttempts()).count();
+        if (abandonedEntries > 0) {
+            log.error("Abandoned {} search outbox entries after {} attempts", abandonedEntries, properties.getMaxAttempts());
+        }
+        return searchOutboxRepository.incrementAttempts(entries.stream().map(SearchOutboxEntry::getId).toList()).then();
+    }
+
+    /**
+     * Indexes the entities of the entries, type after type.
+     *
+     * @return the entries whose documents were rejected by Elasticsearch.
+     */
+    private Mono<List<SearchOutboxEntry>> index(List<SearchOutboxEntry> entries) {
+        Map<String, Set<Long>> idsByType = entries
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    SearchOutboxEntry::getEntityType,
+                    LinkedHashMap::new,
+                    Collectors.mapping(SearchOutboxEntry::getEntityId, Collectors.toCollection(HashSet::new))
+                )
+            );
+        return Flux.fromIterable(idsByType.entrySet())
+            .concatMap(entry -> {
+                IndexedType<?> indexedType = indexedTypes.get(entry.getKey());
+                if (indexedType == null) {
+                    log.warn("Skipping the search outbox entries of unknown type {}", entry.getKey());
+                    return Mono.empty();
+                }
+                return findReindexedIndexes(indexedType.entityType())
+                    .collectList()
+                    .flatMap(reindexedIndexes -> indexedType.index(entry.getValue(), reindexedIndexes))
+                    .doOnSuccess(rejectedIds ->
+                        invalidate(indexedType.entityType(), indexedType.entityType() == Post.class ? entry.getValue() : List.of())
+                    )
+                    .flatMapMany(rejectedIds ->
+                        Flux.fromIterable(entries)
+                            .filter(outboxEntry -> outboxEntry.getEntityType().equals(entry.getKey()))
+                            .filter(outboxEntry -> rejectedIds.contains(outboxEntry.getEntityId()))
+                    );
+            })
+            .collectList();
+    }
+
+    /**
+     * Evicts the cached searches of an entity type, and the related posts of the written posts, right after the writes
+     * and again once they are visible to the searches, after the refresh interval of the index.
+     */
+    private void invalidate(Class<?> entityType, Collection<Long> postIds) {
+        Runnable eviction = () -> {
+            searchResultCache.invalidate(entityType);
+            if (!postIds.isEmpty()) {
+                relatedPostService.invalidate(postIds);
+            }
+        };
+        eviction.run();
+        refreshDelay(entityType)
+            .flatMap(Mono::delay)
+            .subscribe(
+                refreshed -> eviction.run(),
+                e -> log.warn("Could not evict the {} searches after the refresh : {}", entityType.getSimpleName(), e.getMessage())
+            );
+    }
+
+    /**
+     * The time after which the writes to the index of an entity type are visible, read from its settings; empty when
+     * the index is not refreshed periodically.
+     */
+    private Mono<Duration> refreshDelay(Class<?> entityType) {
+        return refreshDelays.computeIfAbsent(entityType, type ->
+            reactiveElasticsearchTemplate
+                .indexOps(type)
+                .createSettings()
+                .map(settings -> String.valueOf(settings.flatten().getOrDefault(REFRESH_INTERVAL_SETTING, "1s")))
+                .filter(interval -> !interval.startsWith("-"))
+                .map(interval -> DurationStyle.detectAndParse(interval).plus(REFRESH_MARGIN))
+                .cache()
+        );
+    }
+
+    private Mono<Void> updateGauges() {
+        return searchOutboxRepository
+            .findOldestPending(properties.getMaxAttempts())
+            .map(entry -> Duration.between(entry.getCreatedDate(), Instant.now()).toMillis())
+            .defaultIfEmpty(0L)
+            .doOnNext(lagMillis::set)
+            .then(searchOutboxRepository.countAbandoned(properties.getMaxAttempts()))
+            .doOnNext(abandoned::set)
+            .then();
+    }
+
+    /**
+     * The ids of the documents rejected by the bulk requests which failed, or null when the error is not a bulk failure.
+     *
+     * @param error the error of one or more bulk requests.
+     * @return the ids of the rejected documents.
+     */
+    static Set<Long> rejectedIds(Throwable error) {
+        Set<Long> rejectedIds = new HashSet<>();
+        for (Throwable e : Exceptions.unwrapMultiple(error)) {
+            if (!(e instanceof BulkFailureException bulkFailure) || bulkFailure.getFailedDocuments().isEmpty()) {
+                return null;
+            }
+            bulkFailure.getFailedDocuments().keySet().forEach(id -> rejectedIds.add(Long.valueOf(id)));
+        }
+        return rejectedIds;
+    }
+
+    private record IndexedType<T>(
+        Class<T> entityType,
+        Function<Collection<Long>, Flux<T>> loader,
+        Function<T, Long> idGetter,
+        IndexWriter<T> writer,
+        Function<List<T>, Mono<Void>> denormalizer
+    ) {
+        /**
+         * Indexes the entities which still exist with a bulk request, and deletes the others from the index, and from the
+         * indexes being rebuilt. Then updates the documents denormalizing the indexed entities.
+         *
+         * @return the ids of the entities whose documents were rejected by a bulk request.
+         */
+        Mono<Set<Long>> index(Set<Long> ids, List<String> reindexedIndexes) {
+            return loader
+                .apply(ids)
+                .collectList()
+                .flatMap(entities -> {
+                    Set<Long> deletedIds = new HashSet<>(ids);
+                    entities.forEach(entity -> deletedIds.remove(idGetter.apply(entity)));
+                    Set<Long> rejectedIds = ConcurrentHashMap.newKeySet();
+                    return index(entities, deletedIds, null, rejectedIds)
+                        .thenMany(Flux.fromIterable(reindexedIndexes))
+                        .concatMap(indexName -> index(entities, deletedIds, indexName, rejectedIds))
+                        .then(entities.isEmpty() ? Mono.empty() : denormalizer.apply(entities))
+                        .thenReturn(rejectedIds);
+                });
+        }
+
+        /**
+         * Writes the entities to an index. The documents rejected by the bulk request are collected, any other failure
+         * fails the whole batch.
+         */
+        private Mono<Void> index(List<T> entities, Set<Long> deletedIds, String indexName, Set<Long> rejectedIds) {
+            Mono<Void> saved = entities.isEmpty()
+                ? Mono.empty()
+                : writer
+                    .save(entities, indexName)
+                    .onErrorResume(e -> {
+                        Set<Long> rejected = rejectedIds(e);
+                        if (rejected == null) {
+                            return Mono.error(e);
+                        }
+                        rejectedIds.addAll(rejected);
+                        return Mono.empty();
+                    });
+            return saved.then(deletedIds.isEmpty() ? Mono.empty() : writer.delete(deletedIds, indexName));
+        }
+    }
+
+    /**
+     * Writes the documents of an entity type to its alias, or to an index being rebuilt when given its name.
+     */
+    private interface IndexWriter<T> {
+        Mono<Void> save(List<T> entities, String indexName);
+
+        Mono<Void> delete(Set<Long> ids, String indexName);
+    }
+
+    private record RepositoryIndexWriter<T>(
+        ReactiveElasticsearchRepository<T, Long> searchRepository,
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate
+    ) implements IndexWriter<T> {
+        @Override
+        public Mono<Void> save(List<T> entities, String indexName) {
+            if (indexName == null) {
+                return searchRepository.saveAll(entities).then();
+            }
+            return reactiveElasticsearchTemplate.saveAll(entities, IndexCoordinates.of(indexName)).then();
+        }
+
+        @Override
+        public Mono<Void> delete(Set<Long> ids, String indexName) {
+            if (indexName == null) {
+                return searchRepository.deleteAllById(ids);
+            }
+            return Flux.fromIterable(ids)
+                .concatMap(id -> reactiveElasticsearchTemplate.delete(String.valueOf(id), IndexCoordinates.of(indexName)))
+                .then();
+        }
+    }
+
+    /**
+     * Writes the posts to the monthly indexes of their dates, the indexes being rebuilt being generations of monthly
+     * indexes too. The generation behind the alias is read from the alias for every write, so a generation swapped by a
+     * reindex on another instance is not written to. Until the alias points to monthly indexes, the posts are written to
+     * its single index.
+     */
+    private record PartitionedPostWriter(PostPartitionService postPartitionService, IndexWriter<Post> aliasWriter)
+        implements IndexWriter<Post> {
+        @Override
+        public Mono<Void> save(List<Post> posts, String indexName) {
+            if (indexName != null) {
+                return postPartitionService.save(posts, indexName);
+            }
+            return postPartitionService.saveLive(posts).flatMap(written -> written ? Mono.empty() : aliasWriter.save(posts, null));
+        }
+
+        @Override
+        public Mono<Void> delete(Set<Long> ids, String indexName) {
+            if (indexName != null) {
+                return postPartitionService.delete(ids, indexName);
+            }
+            return postPartitionService.deleteLive(ids).flatMap(deleted -> deleted ? Mono.empty() : aliasWriter.delete(ids, null));
+        }
+    }
+}
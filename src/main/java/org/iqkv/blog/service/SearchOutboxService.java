@@ -0,0 +1,38 @@
+package org.iqkv.blog.service;
+
+import org.iqkv.blog.domain.SearchOutboxEntry;
+import org.iqkv.blog.repository.SearchOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service recording the entities to reindex in Elasticsearch, in the transaction of their change.
+ * The outbox is drained by the {@link SearchIndexer}.
+ */
+@Service
+@Transactional
+public class SearchOutboxService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxService.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    public SearchOutboxService(SearchOutboxRepository searchOutboxRepository) {
+        this.searchOutboxRepository = searchOutboxRepository;
+    }
+
+    /**
+     * Records that an entity was created, updated or deleted, and has to be reindexed.
+     *
+     * @param entityType the type of the entity.
+     * @param entityId the id of the entity.
+     * @return a Mono to signal the recording.
+     */
+    public Mono<Void> reindex(Class<?> entityType, Long entityId) {
+        log.debug("Request to reindex {} : {}", entityType.getSimpleName(), entityId);
+        return searchOutboxRepository.save(new SearchOutboxEntry().entityType(entityType.getSimpleName()).entityId(entityId)).then();
+    }
+}
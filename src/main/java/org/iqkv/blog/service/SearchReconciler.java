@@ -0,0 +1,198 @@
+package org.iqkv.blog.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.repository.Keyset;
+import org.iqkv.blog.repository.PostRepository;
+import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Background job repairing the drift between the {@code post} table and the {@code post} index, without rebuilding it.
+ * <p>
+ * Every {@code application.search.reconcile.interval}, the posts are read by ranges of {@code range-size} ids, and the
+ * documents indexed in the same range are read with their {@code hash}. The posts missing from the index, the documents
+ * whose post no longer exists, and the documents whose hash differs from the one of their post are written to the search
+ * outbox, so only they are reindexed or deleted by the {@link SearchIndexer}. The ranges are compared one after the
+ * other, {@code range-delay} apart.
+ */
+@Service
+public class SearchReconciler implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReconciler.class);
+
+    private final PostRepository postRepository;
+
+    private final PostSearchRepository postSearchRepository;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final ElasticsearchConverter elasticsearchConverter;
+
+    private final ApplicationProperties.Search.Reconcile properties;
+
+    private final AtomicLong lastDrift = new AtomicLong();
+
+    private final Counter missingCounter;
+
+    private final Counter staleCounter;
+
+    private final Counter orphanCounter;
+
+    private final Counter rangeCounter;
+
+    private Disposable reconciling;
+
+    public SearchReconciler(
+        PostRepository postRepository,
+        PostSearchRepository postSearchRepository,
+        SearchOutboxService searchOutboxService,
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.postRepository = postRepository;
+        this.postSearchRepository = postSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.elasticsearchConverter = reactiveElasticsearchTemplate.getElasticsearchConverter();
+        this.properties = applicationProperties.getSearch().getReconcile();
+        Gauge.builder("search.reconcile.drift", lastDrift, AtomicLong::get)
+            .description("Number of drifted posts found by the last pass of the reconciler.")
+            .register(meterRegistry);
+        this.missingCounter = driftCounter("missing", meterRegistry);
+        this.staleCounter = driftCounter("stale", meterRegistry);
+        this.orphanCounter = driftCounter("orphan", meterRegistry);
+        this.rangeCounter = Counter.builder("search.reconcile.ranges")
+            .description("Number of ranges of post ids compared with the index.")
+            .register(meterRegistry);
+    }
+
+    private static Counter driftCounter(String kind, MeterRegistry meterRegistry) {
+        return Counter.builder("search.reconcile.drifted")
+            .description("Number of drifted posts written to the search outbox.")
+            .tag("kind", kind)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("The search reconciler is disabled");
+            return;
+        }
+        reconciling = Flux.interval(properties.getInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> reconcile(), 1)
+            .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        if (reconciling != null) {
+            reconciling.dispose();
+            reconciling = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return reconciling != null && !reconciling.isDisposed();
+    }
+
+    /**
+     * Compares all the posts with the index, range after range, and writes the drifted ones to the search outbox.
+     *
+     * @return the number of drifted posts.
+     */
+    public Mono<Long> reconcile() {
+        log.debug("Reconciling the post index with the database");
+        return reconcileRange(null)
+            .expand(range ->
+                range.toId() == null ? Mono.empty() : reconcileRange(range.toId()).delaySubscription(properties.getRangeDelay())
+            )
+            .reduce(0L, (drifted, range) -> drifted + range.drifted())
+            .doOnNext(drifted -> {
+                lastDrift.set(drifted);
+                if (drifted > 0) {
+                    log.info("Found {} posts drifted from the database, they are reindexed", drifted);
+                }
+            })
+            .onErrorResume(e -> {
+                log.warn("Could not reconcile the post index : {}", e.getMessage());
+                return Mono.just(0L);
+            });
+    }
+
+    /**
+     * Compares the posts following an id with the documents indexed in the same range. The last range has no upper
+     * bound, so the documents indexed after the last post are found too.
+     */
+    private Mono<Range> reconcileRange(Long afterId) {
+        Sort.Order order = Sort.Order.asc(Keyset.ID_PROPERTY);
+        int size = properties.getRangeSize();
+        Keyset keyset = afterId == null ? Keyset.first(order, size) : Keyset.after(order, null, afterId, size);
+        return postRepository
+            .findAllWithEagerRelationshipsBy(keyset)
+            .collectList()
+            .flatMap(posts -> {
+                Long toId = posts.size() < size ? null : posts.get(posts.size() - 1).getId();
+                Map<Long, String> hashes = new HashMap<>();
+                posts.forEach(post -> hashes.put(post.getId(), hash(post)));
+                return postSearchRepository
+                    .findHashes(afterId, toId)
+                    .flatMap(indexedHashes -> repair(hashes, indexedHashes))
+                    .map(drifted -> new Range(toId, drifted));
+            })
+            .doOnSuccess(range -> rangeCounter.increment());
+    }
+
+    private Mono<Long> repair(Map<Long, String> hashes, Map<Long, String> indexedHashes) {
+        TreeSet<Long> drifted = new TreeSet<>();
+        hashes.forEach((id, hash) -> {
+            String indexedHash = indexedHashes.get(id);
+            if (indexedHash == null) {
+                missingCounter.increment();
+                drifted.add(id);
+            } else if (!Objects.equals(hash, indexedHash)) {
+                staleCounter.increment();
+                drifted.add(id);
+            }
+        });
+        indexedHashes
+            .keySet()
+            .stream()
+            .filter(id -> !hashes.containsKey(id))
+            .forEach(id -> {
+                orphanCounter.increment();
+                drifted.add(id);
+            });
+        // the indexer reloads the drifted posts, and deletes the ones which no longer exist
+        return Flux.fromIterable(List.copyOf(drifted))
+            .concatMap(id -> searchOutboxService.reindex(Post.class, id))
+            .then(Mono.just((long) drifted.size()));
+    }
+
+    private String hash(Post post) {
+        return (String) elasticsearchConverter.mapObject(post).get("hash");
+    }
+
+    private record Range(Long toId, long drifted) {}
+}
@@ -0,0 +1,601 @@
+package org.iqkv.blog.service;
+
+import co.elastic.clients.json.JsonData;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.SearchReindex;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.domain.User;
+import org.iqkv.blog.domain.enumeration.ReindexStatus;
+import org.iqkv.blog.repository.BlogRepository;
+import org.iqkv.blog.repository.Keyset;
+import org.iqkv.blog.repository.PostRepository;
+import org.iqkv.blog.repository.SearchReindexRepository;
+import org.iqkv.blog.repository.TagRepository;
+import org.iqkv.blog.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ReactiveIndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Service rebuilding the search indexes from the database, without downtime.
+ * <p>
+ * The entities are streamed by id with keyset pages into a new versioned index, {@code <alias>_<timestamp>}, through
+ * {@code application.search.reindex.concurrency} parallel bulk requests, with the refresh and the replicas disabled.
+ * Once loaded, the index gets its refresh and replicas back, and the alias is swapped from the previous index to the new
+ * one with a single atomic aliases update. The entities are loaded with the {@code create} operation, so they do not
+ * overwrite the newer documents written meanwhile by the {@link SearchIndexer}. The last indexed id is recorded as a
+ * {@link SearchReindex}, so a failed reindex is resumed into the same index after that id.
+ * <p>
+ * The changes of the posts, blogs and tags made during the reindex are also written to the new index by the
+ * {@link SearchIndexer}, and keep being written to it after a failure, so the entities loaded before the failure are
+ * kept up to date until the reindex is resumed. The indexer of every instance reads the new index from the last
+ * {@link SearchReindex}, so a failed reindex is resumed after a restart too. An index older than its definition is not
+ * resumed, but rebuilt from scratch into a new index: the abandoned reindex is recorded as such first, so it is no longer
+ * written to, and its index is deleted.
+ * <p>
+ * The settings and mappings of the indexes are defined in {@code config/elasticsearch}, with a {@code _meta.version}:
+ * an index older than its definition is rebuilt on startup.
+ * <p>
+ * With {@code application.search.partition.enabled}, the posts are rebuilt into a generation of monthly indexes,
+ * {@code post_<timestamp>-<yyyy.MM>}, see {@link PostPartitionService}, and the alias is swapped to all of them. The post
+ * index is rebuilt on startup when it is not partitioned as configured.
+ */
+@Service
+public class SearchReindexService {
+
+    private static final DateTimeFormatter INDEX_VERSION = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    private static final String REPLICAS_SETTING = "index.number_of_replicas";
+
+    private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
+
+    private static final String MAPPING_VERSION = "version";
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private final SearchReindexRepository searchReindexRepository;
+
+    private final EntityCountService entityCountService;
+
+    private final SearchResultCache searchResultCache;
+
+    private final PostPartitionService postPartitionService;
+
+    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private final ApplicationProperties.Search.Reindex properties;
+
+    private final Map<String, ReindexedType<?>> reindexedTypes = new LinkedHashMap<>();
+
+    public SearchReindexService(
+        SearchReindexRepository searchReindexRepository,
+        EntityCountService entityCountService,
+        SearchResultCache searchResultCache,
+        PostPartitionService postPartitionService,
+        PostRepository postRepository,
+        BlogRepository blogRepository,
+        TagRepository tagRepository,
+        UserRepository userRepository,
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.searchReindexRepository = searchReindexRepository;
+        this.entityCountService = entityCountService;
+        this.searchResultCache = searchResultCache;
+        this.postPartitionService = postPartitionService;
+        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.properties = applicationProperties.getSearch().getReindex();
+        BiFunction<List<Post>, String, Mono<Void>> postPartitionSaver = postPartitionService.isEnabled()
+            ? postPartitionService::load
+            : null;
+        register(
+            Post.class,
+            (lastId, size) -> postRepository.findAllWithEagerRelationshipsBy(keyset(lastId, size)),
+            Post::getId,
+            postPartitionSaver
+        );
+        register(Blog.class, (lastId, size) -> blogRepository.findAllBy(keyset(lastId, size)), Blog::getId, null);
+        register(Tag.class, (lastId, size) -> tagRepository.findAllBy(keyset(lastId, size)), Tag::getId, null);
+        register(
+            User.class,
+            (lastId, size) ->
+                userRepository.findAllByIdGreaterThan(lastId == null ? Long.MIN_VALUE : lastId, PageRequest.of(0, size, Sort.by("id"))),
+            User::getId,
+            null
+        );
+        reindexedTypes.forEach((alias, reindexedType) -> {
+            Gauge.builder("search.reindex.indexed", reindexedType.indexed, AtomicLong::get)
+                .description("Number of entities indexed by the current or last reindex.")
+                .tag("index", alias)
+                .register(meterRegistry);
+            Gauge.builder("search.reindex.progress", reindexedType, ReindexedType::progress)
+                .description("Progress of the current or last reindex, from 0 to 1.")
+                .tag("index", alias)
+                .register(meterRegistry);
+        });
+    }
+
+    /**
+     * Registers an entity type rebuilt into a versioned index, or into a generation of monthly indexes written by the
+     * partition saver when given.
+     */
+    private <T> void register(
+        Class<T> entityType,
+        BiFunction<Long, Integer, Flux<T>> loader,
+        Function<T, Long> idGetter,
+        BiFunction<List<T>, String, Mono<Void>> partitionSaver
+    ) {
+        String alias = reactiveElasticsearchTemplate.getIndexCoordinatesFor(entityType).getIndexName();
+        BiFunction<List<T>, String, Mono<Void>> saver = partitionSaver != null
+            ? partitionSaver
+            : (page, indexName) -> createAll(reactiveElasticsearchTemplate, page, idGetter, IndexCoordinates.of(indexName));
+        reindexedTypes.put(alias, new ReindexedType<>(alias, entityType, loader, idGetter, saver, partitionSaver != null));
+    }
+
+    /**
+     * Loads entities into a rebuilt index, with the {@code create} operation: the documents already written there by the
+     * {@link SearchIndexer} while the entities were read are newer, and are kept.
+     *
+     * @param reactiveElasticsearchTemplate the template.
+     * @param entities the entities.
+     * @param idGetter the getter of the ids of the entities.
+     * @param index the rebuilt index.
+     * @return a Mono to signal the write.
+     */
+    static <T> Mono<Void> createAll(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        List<T> entities,
+        Function<T, Long> idGetter,
+        IndexCoordinates index
+    ) {
+        List<IndexQuery> queries = entities
+            .stream()
+            .map(entity ->
+                new IndexQueryBuilder()
+                    .withId(String.valueOf(idGetter.apply(entity)))
+                    .withObject(entity)
+                    .withOpType(IndexQuery.OpType.CREATE)
+                    .build()
+            )
+            .toList();
+        return reactiveElasticsearchTemplate
+            .bulkIndex(queries, index)
+            .then()
+            .onErrorResume(SearchReindexService::isExistingDocumentsOnly, e -> Mono.empty());
+    }
+
+    /**
+     * Whether a bulk request only failed to create documents which already exist.
+     *
+     * @param error the error of the bulk request.
+     * @return whether all the rejected documents exist.
+     */
+    static boolean isExistingDocumentsOnly(Throwable error) {
+        return (
+            error instanceof BulkFailureException bulkFailure &&
+            !bulkFailure.getFailedDocuments().isEmpty() &&
+            bulkFailure
+                .getFailedDocuments()
+                .values()
+                .stream()
+                .allMatch(failure -> failure.status() != null && failure.status() == HttpStatus.CONFLICT.value())
+        );
+    }
+
+    private static Keyset keyset(Long lastId, int size) {
+        Sort.Order order = Sort.Order.asc(Keyset.ID_PROPERTY);
+        return lastId == null ? Keyset.first(order, size) : Keyset.after(order, null, lastId, size);
+    }
+
+    /**
+     * The aliases of the indexes which can be rebuilt.
+     *
+     * @return the names of the aliases.
+     */
+    public Set<String> getAliases() {
+        return reindexedTypes.keySet();
+    }
+
+    /**
+     * Whether an index is being rebuilt by this instance.
+     *
+     * @param alias the alias of the index.
+     * @return whether the reindex is running.
+     */
+    public boolean isRunning(String alias) {
+        ReindexedType<?> reindexedType = reindexedTypes.get(alias);
+        return reindexedType != null && reindexedType.running.get();
+    }
+
+    /**
+     * Get the current or last reindex of an index.
+     *
+     * @param alias the alias of the index.
+     * @return the reindex.
+     */
+    public Mono<SearchReindex> findLast(String alias) {
+        ReindexedType<?> reindexedType = reindexedTypes.get(alias);
+        if (reindexedType == null) {
+            return Mono.error(new IllegalArgumentException("Unknown index " + alias));
+        }
+        return searchReindexRepository.findFirstByEntityTypeOrderByIdDesc(reindexedType.entityType.getSimpleName());
+    }
+
+    /**
+     * Rebuilds the indexes whose mapping version is older than the one of their definition, so a changed definition is
+     * applied on startup. The indexes which do not exist yet are created by their repository, with the definition. The
+     * post index is also rebuilt when it is partitioned by month without {@code application.search.partition.enabled},
+     * or the opposite.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!properties.isMigrateOnStartup()) {
+            return;
+        }
+        Flux.fromIterable(reindexedTypes.values())
+            .concatMap(reindexedType ->
+                Mono.zip(
+                    findIndexedVersion(reindexedType.alias),
+                    findDefinedVersion(reindexedType.entityType),
+                    isPartitioned(reindexedType)
+                )
+                    .filter(state -> state.getT1() < state.getT2() || state.getT3() != reindexedType.partitioned)
+                    .flatMap(state -> {
+                        if (state.getT1() < state.getT2()) {
+                            log.info("Migrating the {} index from version {} to {}", reindexedType.alias, state.getT1(), state.getT2());
+                        } else {
+                            String layout = reindexedType.partitioned ? "monthly indexes" : "a single index";
+                            log.info("Migrating the {} index to {}", reindexedType.alias, layout);
+                        }
+                        return reindex(reindexedType.alias);
+                    })
+                    .onErrorResume(e -> {
+                        log.warn("Could not migrate the {} index : {}", reindexedType.alias, e.getMessage());
+                        return Mono.empty();
+                    })
+            )
+            .subscribe();
+    }
+
+    /**
+     * The lowest mapping version of the indexes behind an alias, 0 for the indexes created without a version.
+     */
+    private Mono<Integer> findIndexedVersion(String alias) {
+        return Mono.from(reactiveElasticsearchTemplate.execute(client -> client.indices().getMapping(request -> request.index(alias))))
+            .map(response ->
+                response
+                    .result()
+                    .values()
+                    .stream()
+                    .mapToInt(indexMapping -> {
+                        JsonData version = indexMapping.mappings().meta().get(MAPPING_VERSION);
+                        return version == null ? 0 : version.to(Integer.class);
+                    })
+                    .min()
+                    .orElse(0)
+            );
+    }
+
+    private Mono<Boolean> isPartitioned(ReindexedType<?> reindexedType) {
+        return reindexedType.entityType == Post.class ? postPartitionService.isPartitioned() : Mono.just(false);
+    }
+
+    private Mono<Integer> findDefinedVersion(Class<?> entityType) {
+        return reactiveElasticsearchTemplate
+            .indexOps(entityType)
+            .createMapping()
+            .map(mapping -> {
+                if (mapping.get("_meta") instanceof Map<?, ?> meta && meta.get(MAPPING_VERSION) instanceof Number version) {
+                    return version.intValue();
+                }
+                return 0;
+            });
+    }
+
+    /**
+     * Starts rebuilding an index in the background, or resumes its last reindex if it did not complete.
+     *
+     * @param alias the alias of the index.
+     * @return the started reindex.
+     */
+    public Mono<SearchReindex> reindex(String alias) {
+        ReindexedType<?> reindexedType = reindexedTypes.get(alias);
+        if (reindexedType == null) {
+            return Mono.error(new IllegalArgumentException("Unknown index " + alias));
+        }
+        if (!reindexedType.running.compareAndSet(false, true)) {
+            return Mono.error(new IllegalStateException("The " + alias + " index is already being rebuilt"));
+        }
+        return findLast(alias)
+            .filter(last -> last.getStatus() != ReindexStatus.COMPLETED)
+            .filter(last -> last.getStatus() != ReindexStatus.ABANDONED)
+            .flatMap(last ->
+                isResumable(reindexedType, last).flatMap(resumable ->
+                    resumable ? Mono.just(last) : abandon(reindexedType, last).then(Mono.<SearchReindex>empty())
+                )
+            )
+            .doOnNext(last -> log.info("Resuming the reindex of {} into {} after id {}", alias, last.getIndexName(), last.getLastId()))
+            .switchIfEmpty(Mono.defer(() -> createIndex(reindexedType)))
+            .flatMap(reindex -> searchReindexRepository.save(reindex.status(ReindexStatus.RUNNING).finishedDate(null)))
+            .doOnNext(reindex -> run(reindexedType, reindex))
+            .doOnError(e -> reindexedType.running.set(false));
+    }
+
+    /**
+     * Whether a reindex which did not complete can be resumed: its index still exists, and has the mapping version of the
+     * current definition. It received the changes made since it failed, from the indexers.
+     */
+    private Mono<Boolean> isResumable(ReindexedType<?> reindexedType, SearchReindex last) {
+        String indexExpression = reindexedType.indexExpression(last.getIndexName());
+        return indexOps(indexExpression)
+            .exists()
+            .filter(Boolean::booleanValue)
+            .flatMap(exists -> Mono.zip(findIndexedVersion(indexExpression), findDefinedVersion(reindexedType.entityType)))
+            .map(versions -> {
+                if (versions.getT1() < versions.getT2()) {
+                    log.info("Not resuming the reindex of {} into {}, its mapping is older", reindexedType.alias, last.getIndexName());
+                    return false;
+                }
+                return true;
+            })
+            .defaultIfEmpty(false);
+    }
+
+    /**
+     * Stops writing to the index of a reindex which will not be resumed, and deletes it unless the alias points to it.
+     */
+    private Mono<Void> abandon(ReindexedType<?> reindexedType, SearchReindex last) {
+        String indexName = last.getIndexName();
+        Mono<SearchReindex> abandoned = searchReindexRepository.save(last.status(ReindexStatus.ABANDONED).finishedDate(Instant.now()));
+        return abandoned.then(
+            Mono.zip(
+                indexOps(reindexedType.alias).getAliases(reindexedType.alias).onErrorReturn(Map.of()),
+                Mono.from(
+                    reactiveElasticsearchTemplate.execute(client ->
+                        client
+                            .indices()
+                            .get(request -> request.index(indexName, PostPartitionService.indexPattern(indexName)).ignoreUnavailable(true))
+                    )
+                )
+            )
+                .flatMapMany(aliasesAndIndexes -> {
+                    Map<String, Set<AliasData>> aliases = aliasesAndIndexes.getT1();
+                    return Flux.fromIterable(aliasesAndIndexes.getT2().result().keySet()).filter(index ->
+                        aliases.getOrDefault(index, Set.of()).isEmpty()
+                    );
+                })
+                .doOnNext(index -> log.info("Deleting the index {} of an abandoned reindex of {}", index, reindexedType.alias))
+                .concatMap(index -> indexOps(index).delete())
+                .onErrorResume(e -> {
+                    log.warn("Could not delete the abandoned index {} : {}", indexName, e.getMessage());
+                    return Mono.empty();
+                })
+                .then()
+        );
+    }
+
+    private Mono<SearchReindex> createIndex(ReindexedType<?> reindexedType) {
+        String indexName = reindexedType.alias + "_" + INDEX_VERSION.format(Instant.now());
+        log.info("Rebuilding the {} index into {}", reindexedType.alias, indexName);
+        SearchReindex reindex = new SearchReindex().entityType(reindexedType.entityType.getSimpleName()).indexName(indexName);
+        if (reindexedType.partitioned) {
+            // the monthly indexes of the generation are created with their first posts
+            return postPartitionService.prepare(indexName).thenReturn(reindex);
+        }
+        ReactiveIndexOperations entityIndexOps = reactiveElasticsearchTemplate.indexOps(reindexedType.entityType);
+        return Mono.zip(entityIndexOps.createSettings(), entityIndexOps.createMapping())
+            .flatMap(settingsAndMapping -> indexOps(indexName).create(settingsAndMapping.getT1(), settingsAndMapping.getT2()))
+            .thenReturn(reindex);
+    }
+
+    private <T> void run(ReindexedType<T> reindexedType, SearchReindex reindex) {
+        String indexExpression = reindexedType.indexExpression(reindex.getIndexName());
+        reindexedType.indexed.set(reindex.getIndexed());
+        entityCountService
+            .count(reindexedType.entityType)
+            .flatMap(total -> {
+                reindexedType.total = total;
+                return searchReindexRepository.save(reindex.total(total));
+            })
+            .then(updateSettings(indexExpression, "0", "-1"))
+            .then(Mono.defer(() -> load(reindexedType, reindex)))
+            .then(reactiveElasticsearchTemplate.indexOps(reindexedType.entityType).createSettings())
+            .flatMap(settings -> {
+                // back to the settings of the entity, the ones of the indexes created on startup
+                Settings flattened = settings.flatten();
+                return updateSettings(
+                    indexExpression,
+                    String.valueOf(flattened.getOrDefault(REPLICAS_SETTING, "1")),
+                    String.valueOf(flattened.getOrDefault(REFRESH_INTERVAL_SETTING, "1s"))
+                );
+            })
+            .then(indexOps(indexExpression).refresh())
+            .then(swapAlias(reindexedType, reindex.getIndexName()))
+            .doOnSuccess(swapped -> searchResultCache.invalidate(reindexedType.entityType))
+            .then(Mono.defer(() -> searchReindexRepository.save(reindex.status(ReindexStatus.COMPLETED).finishedDate(Instant.now()))))
+            .doOnNext(completed -> log.info("Rebuilt the {} index with {} entities", reindexedType.alias, completed.getIndexed()))
+            .onErrorResume(e -> {
+                log.error("Could not rebuild the {} index, it can be resumed after id {}", reindexedType.alias, reindex.getLastId(), e);
+                // the index keeps receiving the changes, so the entities already loaded stay up to date until the resume
+                return searchReindexRepository.save(reindex.status(ReindexStatus.FAILED).finishedDate(Instant.now()));
+            })
+            .doFinally(signal -> reindexedType.running.set(false))
+            .subscribe();
+    }
+
+    /**
+     * Streams the entities after the last indexed id into the index, and records the progress after every page.
+     * The pages are read one ahead of the bulk requests, and their progress is recorded in order.
+     */
+    private <T> Mono<Void> load(ReindexedType<T> reindexedType, SearchReindex reindex) {
+        int batchSize = properties.getBatchSize();
+        Flux<List<T>> pages = reindexedType
+            .loadPage(reindex.getLastId(), batchSize)
+            .expand(page -> page.size() < batchSize ? Mono.empty() : reindexedType.loadPage(reindexedType.lastId(page), batchSize))
+            .filter(page -> !page.isEmpty());
+        if (properties.getMaxRate() > 0) {
+            pages = pages.delayElements(Duration.ofNanos(Duration.ofSeconds(1).toNanos() * batchSize / properties.getMaxRate()));
+        }
+        return pages
+            .flatMapSequential(
+                page ->
+                    reindexedType.saver
+                        .apply(page, reindex.getIndexName())
+                        .retryWhen(Retry.backoff(properties.getRetries(), Duration.ofSeconds(1)))
+                        .thenReturn(page),
+                properties.getConcurrency()
+            )
+            .concatMap(page -> {
+                reindexedType.indexed.addAndGet(page.size());
+                return searchReindexRepository.save(
+                    reindex.lastId(reindexedType.lastId(page)).indexed(reindex.getIndexed() + page.size())
+                );
+            })
+            .then();
+    }
+
+    private Mono<Void> updateSettings(String indexName, String replicas, String refreshInterval) {
+        return Mono.from(
+            reactiveElasticsearchTemplate.execute(client ->
+                client
+                    .indices()
+                    .putSettings(request ->
+                        request
+                            .index(indexName)
+                            .settings(settings -> settings.numberOfReplicas(replicas).refreshInterval(time -> time.time(refreshInterval)))
+                    )
+            )
+        ).then();
+    }
+
+    /**
+     * Points the alias to the rebuilt index only, with a single aliases update. An index created on startup with the name
+     * of the alias is deleted by the same update; the previous versioned indexes are deleted once it is applied. The
+     * alias of a partitioned index points to all the monthly indexes of its generation.
+     */
+    private Mono<Void> swapAlias(ReindexedType<?> reindexedType, String indexName) {
+        String alias = reindexedType.alias;
+        ReactiveIndexOperations aliasOps = indexOps(alias);
+        return aliasOps
+            .getAliases(alias)
+            .onErrorReturn(Map.of())
+            .zipWith(aliasOps.exists())
+            .flatMap(aliasesAndExists -> {
+                Map<String, Set<AliasData>> aliases = aliasesAndExists.getT1();
+                List<String> previousIndexes = aliases
+                    .entrySet()
+                    .stream()
+                    .filter(entry -> !entry.getValue().isEmpty() && !entry.getKey().equals(indexName))
+                    .filter(entry -> !reindexedType.partitioned || !entry.getKey().startsWith(indexName + "-"))
+                    .map(Map.Entry::getKey)
+                    .toList();
+                // the monthly indexes are written to by their names, the alias has no write index
+                AliasActionParameters added = reindexedType.partitioned
+                    ? AliasActionParameters.builder().withIndices(PostPartitionService.indexPattern(indexName)).withAliases(alias).build()
+                    : AliasActionParameters.builder().withIndices(indexName).withAliases(alias).withIsWriteIndex(true).build();
+                AliasActions actions = new AliasActions(new AliasAction.Add(added));
+                if (previousIndexes.isEmpty() && aliasesAndExists.getT2()) {
+                    actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(alias).build()));
+                }
+                previousIndexes.forEach(previousIndex ->
+                    actions.add(
+                        new AliasAction.Remove(AliasActionParameters.builder().withIndices(previousIndex).withAliases(alias).build())
+                    )
+                );
+                log.info("Swapping the {} alias from {} to {}", alias, previousIndexes.isEmpty() ? alias : previousIndexes, indexName);
+                return aliasOps
+                    .alias(actions)
+                    .thenMany(Flux.fromIterable(previousIndexes))
+                    .concatMap(previousIndex -> indexOps(previousIndex).delete())
+                    .then(reindexedType.entityType == Post.class ? postPartitionService.refresh() : Mono.empty());
+            });
+    }
+
+    private ReactiveIndexOperations indexOps(String indexName) {
+        return reactiveElasticsearchTemplate.indexOps(IndexCoordinates.of(indexName));
+    }
+
+    private static final class ReindexedType<T> {
+
+        private final String alias;
+        private final Class<T> entityType;
+        private final BiFunction<Long, Integer, Flux<T>> loader;
+        private final Function<T, Long> idGetter;
+        private final BiFunction<List<T>, String, Mono<Void>> saver;
+        private final boolean partitioned;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicLong indexed = new AtomicLong();
+        private volatile long total;
+
+        private ReindexedType(
+            String alias,
+            Class<T> entityType,
+            BiFunction<Long, Integer, Flux<T>> loader,
+            Function<T, Long> idGetter,
+            BiFunction<List<T>, String, Mono<Void>> saver,
+            boolean partitioned
+        ) {
+            this.alias = alias;
+            this.entityType = entityType;
+            this.loader = loader;
+            this.idGetter = idGetter;
+            this.saver = saver;
+            this.partitioned = partitioned;
+        }
+
+        /**
+         * The expression matching the indexes of a rebuilt index: its name, or the pattern of its monthly indexes.
+         */
+        private String indexExpression(String indexName) {
+            return partitioned ? PostPartitionService.indexPattern(indexName) : indexName;
+        }
+
+        private Mono<List<T>> loadPage(Long lastId, int size) {
+            return loader.apply(lastId, size).collectList();
+        }
+
+        private Long lastId(List<T> page) {
+            return idGetter.apply(page.get(page.size() - 1));
+        }
+
+        private double progress() {
+            return total == 0 ? 0 : Math.min(1, (double) indexed.get() / total);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.iqkv.blog.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory cache of the pages of the post, blog and tag searches, keyed by their normalized query and pagination.
+ * <p>
+ * The cache holds at most {@code application.search.cache.max-hits} hits, counted with the sizes of the cached pages:
+ * the least recently used pages are evicted first. The pages of an index are evicted when the {@link SearchIndexer} or
+ * the {@link SearchReindexService} write to it, otherwise they expire after {@code ttl}; the writes made by the indexers
+ * of other instances are only seen once the pages expired.
+ */
+@Service
+public class SearchResultCache {
+
+    private final ApplicationProperties.Search.Cache properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Key, CachedPage> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<Class<?>, Counter> hitCounters = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Counter> missCounters = new ConcurrentHashMap<>();
+
+    private final Counter evictionCounter;
+
+    private long cachedHits;
+
+    public SearchResultCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getSearch().getCache();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("search.cache.size", this, SearchResultCache::getCachedHits)
+            .description("Number of hits held by the cached search pages, counted with the page sizes.")
+            .register(meterRegistry);
+        this.evictionCounter = Counter.builder("search.cache.evictions")
+            .description("Number of search pages evicted to stay within the maximum number of cached hits.")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached page of a search, or runs the search and caches its page. The unpaged searches are not cached.
+     *
+     * @param entityType the type of the searched entities, whose index evicts the page when written to.
+     * @param query the normalized query of the search, see {@link #normalize(String)}.
+     * @param pageable the pagination information.
+     * @param search the search, run on a cache miss.
+     * @param <T> the type of the page content.
+     * @return the page.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<Page<T>> get(Class<?> entityType, Object query, Pageable pageable, Supplier<Mono<Page<T>>> search) {
+        if (!properties.isEnabled() || pageable.isUnpaged()) {
+            return search.get();
+        }
+        Key key = new Key(entityType, query, pageable);
+        CachedPage cached;
+        synchronized (pages) {
+            cached = pages.get(key);
+            if (cached != null && !cached.search.isExpired()) {
+                counter(hitCounters, "search.cache.hits", "Number of searches answered from the cache.", entityType).increment();
+            } else {
+                counter(missCounters, "search.cache.misses", "Number of searches sent to Elasticsearch.", entityType).increment();
+                remove(key);
+                cached = new CachedPage(new CachedSearch<>(search.get(), properties.getTtl()), pageable.getPageSize());
+                pages.put(key, cached);
+                cachedHits += cached.weight;
+                evictEldest();
+            }
+        }
+        CachedPage loaded = cached;
+        // A failed search is not cached: the next request runs it again.
+        return ((Mono<Page<T>>) loaded.search.result()).doOnError(error -> {
+            synchronized (pages) {
+                if (pages.get(key) == loaded) {
+                    remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Evicts the cached pages of an entity type, after its index was written to.
+     *
+     * @param entityType the type of the entities.
+     */
+    public void invalidate(Class<?> entityType) {
+        synchronized (pages) {
+            Iterator<Map.Entry<Key, CachedPage>> iterator = pages.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, CachedPage> entry = iterator.next();
+                if (entry.getKey().entityType == entityType) {
+                    cachedHits -= entry.getValue().weight;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Normalizes the free text of a search, so the texts differing by their case or spacing share their cached pages.
+     *
+     * @param text the free text, possibly {@code null}.
+     * @return the normalized text.
+     */
+    public static String normalize(String text) {
+        return text == null ? null : text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private long getCachedHits() {
+        synchronized (pages) {
+            return cachedHits;
+        }
+    }
+
+    private void remove(Key key) {
+        CachedPage removed = pages.remove(key);
+        if (removed != null) {
+            cachedHits -= removed.weight;
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<CachedPage> iterator = pages.values().iterator();
+        // the page just cached is kept, even when larger than the cache
+        while (cachedHits > properties.getMaxHits() && pages.size() > 1) {
+            cachedHits -= iterator.next().weight;
+            iterator.remove();
+            evictionCounter.increment();
+        }
+    }
+
+    private Counter counter(Map<Class<?>, Counter> counters, String name, String description, Class<?> entityType) {
+        return counters.computeIfAbsent(entityType, type ->
+            Counter.builder(name).description(description).tag("type", type.getSimpleName()).register(meterRegistry)
+        );
+    }
+
+    private record Key(Class<?> entityType, Object query, Pageable pageable) {}
+
+    private record CachedPage(CachedSearch<?> search, int weight) {}
+}
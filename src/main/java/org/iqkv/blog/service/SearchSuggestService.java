@@ -0,0 +1,117 @@
+package org.iqkv.blog.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.repository.search.BlogSearchRepository;
+import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.iqkv.blog.repository.search.TagSearchRepository;
+import org.iqkv.blog.service.dto.SuggestionDTO;
+import org.iqkv.blog.service.dto.SuggestionsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service suggesting the post titles, blog names and tag names starting with the text typed in the search box.
+ * <p>
+ * The suggestions of a prefix are cached for {@code application.search.suggest.cache-ttl}, so that the hot prefixes
+ * are answered from memory. At most {@code application.search.suggest.cache-size} prefixes are cached: the least
+ * recently used are evicted first.
+ */
+@Service
+public class SearchSuggestService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchSuggestService.class);
+
+    private final PostSearchRepository postSearchRepository;
+
+    private final BlogSearchRepository blogSearchRepository;
+
+    private final TagSearchRepository tagSearchRepository;
+
+    private final ApplicationProperties.Search.Suggest properties;
+
+    private final Map<String, CachedSuggestions> suggestions;
+
+    public SearchSuggestService(
+        PostSearchRepository postSearchRepository,
+        BlogSearchRepository blogSearchRepository,
+        TagSearchRepository tagSearchRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.postSearchRepository = postSearchRepository;
+        this.blogSearchRepository = blogSearchRepository;
+        this.tagSearchRepository = tagSearchRepository;
+        this.properties = applicationProperties.getSearch().getSuggest();
+        int cacheSize = properties.getCacheSize();
+        this.suggestions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSuggestions> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the post titles, blog names and tag names starting with the typed text, possibly cached.
+     *
+     * @param prefix the typed text.
+     * @return the suggestions, at most {@code application.search.suggest.size} of each type.
+     */
+    public Mono<SuggestionsDTO> suggest(String prefix) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Mono.just(new SuggestionsDTO());
+        }
+        CachedSuggestions cached;
+        synchronized (suggestions) {
+            cached = suggestions.get(key);
+            if (cached == null || cached.isExpired()) {
+                cached = new CachedSuggestions(load(key), System.nanoTime() + properties.getCacheTtl().toNanos());
+                suggestions.put(key, cached);
+            }
+        }
+        CachedSuggestions loaded = cached;
+        // Failed suggestions are not cached: the next keystroke runs the search again.
+        return loaded.suggestions.doOnError(error -> evict(key, loaded));
+    }
+
+    private Mono<SuggestionsDTO> load(String prefix) {
+        log.debug("Request to suggest the Posts, Blogs and Tags for prefix {}", prefix);
+        int size = properties.getSize();
+        return Mono.zip(
+            postSearchRepository.suggest(prefix, size).map(post -> new SuggestionDTO(post.getId(), post.getTitle())).collectList(),
+            blogSearchRepository.suggest(prefix, size).map(blog -> new SuggestionDTO(blog.getId(), blog.getName())).collectList(),
+            tagSearchRepository.suggest(prefix, size).map(tag -> new SuggestionDTO(tag.getId(), tag.getName())).collectList()
+        ).map(lists -> new SuggestionsDTO(lists.getT1(), lists.getT2(), lists.getT3()));
+    }
+
+    private void evict(String key, CachedSuggestions cached) {
+        synchronized (suggestions) {
+            suggestions.remove(key, cached);
+        }
+    }
+
+    private static String normalize(String prefix) {
+        return prefix == null ? "" : prefix.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class CachedSuggestions {
+
+        private final Mono<SuggestionsDTO> suggestions;
+        private final long expiresAt;
+
+        private CachedSuggestions(Mono<SuggestionsDTO> suggestions, long expiresAt) {
+            this.suggestions = suggestions.cache(value -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
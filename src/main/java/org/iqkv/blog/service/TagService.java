@@ -1,13 +1,17 @@
 package org.iqkv.blog.service;
 
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.repository.Keyset;
 import org.iqkv.blog.repository.TagRepository;
 import org.iqkv.blog.repository.search.TagSearchRepository;
 import org.iqkv.blog.service.dto.TagDTO;
 import org.iqkv.blog.service.mapper.TagMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -27,10 +31,26 @@ public class TagService {
 
     private final TagSearchRepository tagSearchRepository;
 
-    public TagService(TagRepository tagRepository, TagMapper tagMapper, TagSearchRepository tagSearchRepository) {
+    private final EntityCountService entityCountService;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final SearchResultCache searchResultCache;
+
+    public TagService(
+        TagRepository tagRepository,
+        TagMapper tagMapper,
+        TagSearchRepository tagSearchRepository,
+        EntityCountService entityCountService,
+        SearchOutboxService searchOutboxService,
+        SearchResultCache searchResultCache
+    ) {
         this.tagRepository = tagRepository;
         this.tagMapper = tagMapper;
         this.tagSearchRepository = tagSearchRepository;
+        this.entityCountService = entityCountService;
+        this.searchOutboxService = searchOutboxService;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
@@ -41,7 +61,11 @@ public class TagService {
      */
     public Mono<TagDTO> save(TagDTO tagDTO) {
         log.debug("Request to save Tag : {}", tagDTO);
-        return tagRepository.save(tagMapper.toEntity(tagDTO)).flatMap(tagSearchRepository::save).map(tagMapper::toDto);
+        return tagRepository
+            .save(tagMapper.toEntity(tagDTO))
+            .flatMap(savedTag -> entityCountService.invalidateAfterCommit(Tag.class).thenReturn(savedTag))
+            .flatMap(savedTag -> searchOutboxService.reindex(Tag.class, savedTag.getId()).thenReturn(savedTag))
+            .map(tagMapper::toDto);
     }
 
     /**
@@ -52,7 +76,10 @@ public class TagService {
      */
     public Mono<TagDTO> update(TagDTO tagDTO) {
         log.debug("Request to update Tag : {}", tagDTO);
-        return tagRepository.save(tagMapper.toEntity(tagDTO)).flatMap(tagSearchRepository::save).map(tagMapper::toDto);
+        return tagRepository
+            .save(tagMapper.toEntity(tagDTO))
+            .flatMap(savedTag -> searchOutboxService.reindex(Tag.class, savedTag.getId()).thenReturn(savedTag))
+            .map(tagMapper::toDto);
     }
 
     /**
@@ -72,10 +99,7 @@ public class TagService {
                 return existingTag;
             })
             .flatMap(tagRepository::save)
-            .flatMap(savedTag -> {
-                tagSearchRepository.save(savedTag);
-                return Mono.just(savedTag);
-            })
+            .flatMap(savedTag -> searchOutboxService.reindex(Tag.class, savedTag.getId()).thenReturn(savedTag))
             .map(tagMapper::toDto);
     }
 
@@ -92,20 +116,24 @@ public class TagService {
     }
 
     /**
-     * Returns the number of tags available.
-     * @return the number of entities in the database.
+     * Get a page of the tags, positioned with a keyset instead of an offset.
      *
+     * @param keyset the position and size of the page.
+     * @return the list of entities.
      */
-    public Mono<Long> countAll() {
-        return tagRepository.count();
+    @Transactional(readOnly = true)
+    public Flux<TagDTO> findAll(Keyset keyset) {
+        log.debug("Request to get a keyset page of Tags : {}", keyset);
+        return tagRepository.findAllBy(keyset).map(tagMapper::toDto);
     }
 
     /**
-     * Returns the number of tags available in search repository.
+     * Returns the number of tags available.
+     * @return the number of entities in the database.
      *
      */
-    public Mono<Long> searchCount() {
-        return tagSearchRepository.count();
+    public Mono<Long> countAll() {
+        return entityCountService.count(Tag.class);
     }
 
     /**
@@ -128,19 +156,38 @@ public class TagService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Tag : {}", id);
-        return tagRepository.deleteById(id).then(tagSearchRepository.deleteById(id));
+        return tagRepository
+            .deleteById(id)
+            .then(entityCountService.invalidateAfterCommit(Tag.class))
+            .then(searchOutboxService.reindex(Tag.class, id));
     }
 
     /**
-     * Search for the tag corresponding to the query.
+     * Search for the tags matching a free text.
+     * The pages are cached, see {@link SearchResultCache}.
      *
-     * @param query the query of the search.
+     * @param text the free text of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of entities, with the total of the matching entities.
      */
-    @Transactional(readOnly = true)
-    public Flux<TagDTO> search(String query, Pageable pageable) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Page<TagDTO>> search(String text, Pageable pageable) {
+        log.debug("Request to search for a page of Tags for text {}", text);
+        return searchResultCache.get(Tag.class, SearchResultCache.normalize(text), pageable, () ->
+            tagSearchRepository.search(text, pageable).map(page -> page.map(tagMapper::toDto))
+        );
+    }
+
+    /**
+     * Search for the tags corresponding to a raw query_string query.
+     *
+     * @param query the query of the search, in the Lucene syntax.
+     * @param pageable the pagination information.
+     * @return the page of entities, with the total of the matching entities.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Page<TagDTO>> searchQueryString(String query, Pageable pageable) {
         log.debug("Request to search for a page of Tags for query {}", query);
-        return tagSearchRepository.search(query, pageable).map(tagMapper::toDto);
+        return tagSearchRepository.searchQueryString(query, pageable).map(page -> page.map(tagMapper::toDto));
     }
 }
@@ -0,0 +1,10 @@
+package org.iqkv.blog.service;
+
+public class TooManySearchCursorsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TooManySearchCursorsException() {
+        super("Too many search cursors opened");
+    }
+}
@@ -0,0 +1,77 @@
+package org.iqkv.blog.service.dto;
+
+import java.io.Serializable;
+import org.iqkv.blog.repository.search.MultiSearchResult;
+
+/**
+ * A DTO for the result of a search of all the types: the first posts, blogs, tags and users matching a free text.
+ */
+public class MultiSearchResultDTO implements Serializable {
+
+    private MultiSearchResult.Group<PostDTO> posts;
+
+    private MultiSearchResult.Group<BlogDTO> blogs;
+
+    private MultiSearchResult.Group<TagDTO> tags;
+
+    private MultiSearchResult.Group<UserDTO> users;
+
+    public MultiSearchResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public MultiSearchResultDTO(
+        MultiSearchResult.Group<PostDTO> posts,
+        MultiSearchResult.Group<BlogDTO> blogs,
+        MultiSearchResult.Group<TagDTO> tags,
+        MultiSearchResult.Group<UserDTO> users
+    ) {
+        this.posts = posts;
+        this.blogs = blogs;
+        this.tags = tags;
+        this.users = users;
+    }
+
+    public MultiSearchResult.Group<PostDTO> getPosts() {
+        return posts;
+    }
+
+    public void setPosts(MultiSearchResult.Group<PostDTO> posts) {
+        this.posts = posts;
+    }
+
+    public MultiSearchResult.Group<BlogDTO> getBlogs() {
+        return blogs;
+    }
+
+    public void setBlogs(MultiSearchResult.Group<BlogDTO> blogs) {
+        this.blogs = blogs;
+    }
+
+    public MultiSearchResult.Group<TagDTO> getTags() {
+        return tags;
+    }
+
+    public void setTags(MultiSearchResult.Group<TagDTO> tags) {
+        this.tags = tags;
+    }
+
+    public MultiSearchResult.Group<UserDTO> getUsers() {
+        return users;
+    }
+
+    public void setUsers(MultiSearchResult.Group<UserDTO> users) {
+        this.users = users;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MultiSearchResultDTO{" +
+            "posts=" + getPosts() +
+            ", blogs=" + getBlogs() +
+            ", tags=" + getTags() +
+            ", users=" + getUsers() +
+            "}";
+    }
+}
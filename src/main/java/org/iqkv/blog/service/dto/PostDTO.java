@@ -1,5 +1,6 @@
 package org.iqkv.blog.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Lob;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
@@ -22,6 +23,10 @@ public class PostDTO implements Serializable {
     @Lob
     private String content;
 
+    // computed from the content when the post is saved
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String excerpt;
+
     @NotNull(message = "must not be null")
     private Instant date;
 
@@ -53,6 +58,14 @@ public class PostDTO implements Serializable {
         this.content = content;
     }
 
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
     public Instant getDate() {
         return date;
     }
@@ -105,6 +118,7 @@ public class PostDTO implements Serializable {
             "id=" + getId() +
             ", title='" + getTitle() + "'" +
             ", content='" + getContent() + "'" +
+            ", excerpt='" + getExcerpt() + "'" +
             ", date='" + getDate() + "'" +
             ", blog=" + getBlog() +
             ", tags=" + getTags() +
@@ -0,0 +1,50 @@
+package org.iqkv.blog.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import org.iqkv.blog.repository.search.PostSearchFacets;
+
+/**
+ * A DTO for a page of a post search, with its facets.
+ */
+public class PostSearchResultDTO implements Serializable {
+
+    private List<PostDTO> posts = new ArrayList<>();
+
+    private PostSearchFacets facets;
+
+    public PostSearchResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PostSearchResultDTO(List<PostDTO> posts, PostSearchFacets facets) {
+        this.posts = posts;
+        this.facets = facets;
+    }
+
+    public List<PostDTO> getPosts() {
+        return posts;
+    }
+
+    public void setPosts(List<PostDTO> posts) {
+        this.posts = posts;
+    }
+
+    public PostSearchFacets getFacets() {
+        return facets;
+    }
+
+    public void setFacets(PostSearchFacets facets) {
+        this.facets = facets;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PostSearchResultDTO{" +
+            "posts=" + getPosts() +
+            ", facets=" + getFacets() +
+            "}";
+    }
+}
@@ -0,0 +1,122 @@
+package org.iqkv.blog.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.iqkv.blog.domain.SearchReindex;
+import org.iqkv.blog.domain.enumeration.ReindexStatus;
+
+/**
+ * A DTO for the progress of the rebuild of a search index, see {@link SearchReindex}.
+ */
+public class SearchReindexDTO implements Serializable {
+
+    private String entityType;
+
+    private String indexName;
+
+    private ReindexStatus status;
+
+    private Long lastId;
+
+    private Long indexed;
+
+    private Long total;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    public SearchReindexDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public SearchReindexDTO(SearchReindex reindex) {
+        this.entityType = reindex.getEntityType();
+        this.indexName = reindex.getIndexName();
+        this.status = reindex.getStatus();
+        this.lastId = reindex.getLastId();
+        this.indexed = reindex.getIndexed();
+        this.total = reindex.getTotal();
+        this.startedDate = reindex.getStartedDate();
+        this.finishedDate = reindex.getFinishedDate();
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public ReindexStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReindexStatus status) {
+        this.status = status;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(Long lastId) {
+        this.lastId = lastId;
+    }
+
+    public Long getIndexed() {
+        return indexed;
+    }
+
+    public void setIndexed(Long indexed) {
+        this.indexed = indexed;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchReindexDTO{" +
+            "entityType='" + getEntityType() + "'" +
+            ", indexName='" + getIndexName() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", lastId=" + getLastId() +
+            ", indexed=" + getIndexed() +
+            ", total=" + getTotal() +
+            ", startedDate='" + getStartedDate() + "'" +
+            ", finishedDate='" + getFinishedDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,47 @@
+package org.iqkv.blog.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for a suggestion of the search box: the id of the suggested entity and its text.
+ */
+public class SuggestionDTO implements Serializable {
+
+    private Long id;
+
+    private String text;
+
+    public SuggestionDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public SuggestionDTO(Long id, String text) {
+        this.id = id;
+        this.text = text;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SuggestionDTO{" +
+            "id=" + getId() +
+            ", text='" + getText() + "'" +
+            "}";
+    }
+}
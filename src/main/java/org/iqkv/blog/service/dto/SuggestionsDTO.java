@@ -0,0 +1,61 @@
+package org.iqkv.blog.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for the suggestions of a typed prefix: the matching post titles, blog names and tag names.
+ */
+public class SuggestionsDTO implements Serializable {
+
+    private List<SuggestionDTO> posts = new ArrayList<>();
+
+    private List<SuggestionDTO> blogs = new ArrayList<>();
+
+    private List<SuggestionDTO> tags = new ArrayList<>();
+
+    public SuggestionsDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public SuggestionsDTO(List<SuggestionDTO> posts, List<SuggestionDTO> blogs, List<SuggestionDTO> tags) {
+        this.posts = posts;
+        this.blogs = blogs;
+        this.tags = tags;
+    }
+
+    public List<SuggestionDTO> getPosts() {
+        return posts;
+    }
+
+    public void setPosts(List<SuggestionDTO> posts) {
+        this.posts = posts;
+    }
+
+    public List<SuggestionDTO> getBlogs() {
+        return blogs;
+    }
+
+    public void setBlogs(List<SuggestionDTO> blogs) {
+        this.blogs = blogs;
+    }
+
+    public List<SuggestionDTO> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<SuggestionDTO> tags) {
+        this.tags = tags;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SuggestionsDTO{" +
+            "posts=" + getPosts() +
+            ", blogs=" + getBlogs() +
+            ", tags=" + getTags() +
+            "}";
+    }
+}
@@ -1,14 +1,21 @@
 package org.iqkv.blog.service.impl;
 
+import org.iqkv.blog.domain.Blog;
 import org.iqkv.blog.repository.BlogRepository;
+import org.iqkv.blog.repository.Keyset;
 import org.iqkv.blog.repository.search.BlogSearchRepository;
 import org.iqkv.blog.service.BlogService;
+import org.iqkv.blog.service.EntityCountService;
+import org.iqkv.blog.service.SearchOutboxService;
+import org.iqkv.blog.service.SearchResultCache;
 import org.iqkv.blog.service.dto.BlogDTO;
 import org.iqkv.blog.service.mapper.BlogMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -28,22 +35,45 @@ public class BlogServiceImpl implements BlogService {
 
     private final BlogSearchRepository blogSearchRepository;
 
-    public BlogServiceImpl(BlogRepository blogRepository, BlogMapper blogMapper, BlogSearchRepository blogSearchRepository) {
+    private final EntityCountService entityCountService;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final SearchResultCache searchResultCache;
+
+    public BlogServiceImpl(
+        BlogRepository blogRepository,
+        BlogMapper blogMapper,
+        BlogSearchRepository blogSearchRepository,
+        EntityCountService entityCountService,
+        SearchOutboxService searchOutboxService,
+        SearchResultCache searchResultCache
+    ) {
         this.blogRepository = blogRepository;
         this.blogMapper = blogMapper;
         this.blogSearchRepository = blogSearchRepository;
+        this.entityCountService = entityCountService;
+        this.searchOutboxService = searchOutboxService;
+        this.searchResultCache = searchResultCache;
     }
 
     @Override
     public Mono<BlogDTO> save(BlogDTO blogDTO) {
         log.debug("Request to save Blog : {}", blogDTO);
-        return blogRepository.save(blogMapper.toEntity(blogDTO)).flatMap(blogSearchRepository::save).map(blogMapper::toDto);
+        return blogRepository
+            .save(blogMapper.toEntity(blogDTO))
+            .flatMap(savedBlog -> entityCountService.invalidateAfterCommit(Blog.class).thenReturn(savedBlog))
+            .flatMap(savedBlog -> searchOutboxService.reindex(Blog.class, savedBlog.getId()).thenReturn(savedBlog))
+            .map(blogMapper::toDto);
     }
 
     @Override
     public Mono<BlogDTO> update(BlogDTO blogDTO) {
         log.debug("Request to update Blog : {}", blogDTO);
-        return blogRepository.save(blogMapper.toEntity(blogDTO)).flatMap(blogSearchRepository::save).map(blogMapper::toDto);
+        return blogRepository
+            .save(blogMapper.toEntity(blogDTO))
+            .flatMap(savedBlog -> searchOutboxService.reindex(Blog.class, savedBlog.getId()).thenReturn(savedBlog))
+            .map(blogMapper::toDto);
     }
 
     @Override
@@ -58,10 +88,7 @@ public class BlogServiceImpl implements BlogService {
                 return existingBlog;
             })
             .flatMap(blogRepository::save)
-            .flatMap(savedBlog -> {
-                blogSearchRepository.save(savedBlog);
-                return Mono.just(savedBlog);
-            })
+            .flatMap(savedBlog -> searchOutboxService.reindex(Blog.class, savedBlog.getId()).thenReturn(savedBlog))
             .map(blogMapper::toDto);
     }
 
@@ -72,16 +99,20 @@ public class BlogServiceImpl implements BlogService {
         return blogRepository.findAllBy(pageable).map(blogMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Flux<BlogDTO> findAll(Keyset keyset) {
+        log.debug("Request to get a keyset page of Blogs : {}", keyset);
+        return blogRepository.findAllBy(keyset).map(blogMapper::toDto);
+    }
+
+    @Transactional(readOnly = true)
     public Flux<BlogDTO> findAllWithEagerRelationships(Pageable pageable) {
         return blogRepository.findAllWithEagerRelationships(pageable).map(blogMapper::toDto);
     }
 
     public Mono<Long> countAll() {
-        return blogRepository.count();
-    }
-
-    public Mono<Long> searchCount() {
-        return blogSearchRepository.count();
+        return entityCountService.count(Blog.class);
     }
 
     @Override
@@ -94,13 +125,25 @@ public class BlogServiceImpl implements BlogService {
     @Override
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Blog : {}", id);
-        return blogRepository.deleteById(id).then(blogSearchRepository.deleteById(id));
+        return blogRepository
+            .deleteById(id)
+            .then(entityCountService.invalidateAfterCommit(Blog.class))
+            .then(searchOutboxService.reindex(Blog.class, id));
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Flux<BlogDTO> search(String query, Pageable pageable) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Page<BlogDTO>> search(String text, Pageable pageable) {
+        log.debug("Request to search for a page of Blogs for text {}", text);
+        return searchResultCache.get(Blog.class, SearchResultCache.normalize(text), pageable, () ->
+            blogSearchRepository.search(text, pageable).map(page -> page.map(blogMapper::toDto))
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Page<BlogDTO>> searchQueryString(String query, Pageable pageable) {
         log.debug("Request to search for a page of Blogs for query {}", query);
-        return blogSearchRepository.search(query, pageable).map(blogMapper::toDto);
+        return blogSearchRepository.searchQueryString(query, pageable).map(page -> page.map(blogMapper::toDto));
     }
 }
@@ -20,6 +20,7 @@ public interface PostMapper extends EntityMapper<PostDTO, Post> {
     PostDTO toDto(Post s);
 
     @Mapping(target = "removeTag", ignore = true)
+    @Mapping(target = "excerpt", ignore = true)
     Post toEntity(PostDTO postDTO);
 
     @Named("blogName")
@@ -4,16 +4,19 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import org.iqkv.blog.repository.Keyset;
 import org.iqkv.blog.repository.BlogRepository;
 import org.iqkv.blog.service.BlogService;
 import org.iqkv.blog.service.dto.BlogDTO;
 import org.iqkv.blog.web.rest.errors.BadRequestAlertException;
+import org.iqkv.blog.web.rest.errors.ElasticsearchExceptionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -40,6 +43,8 @@ public class BlogResource {
 
     private static final String ENTITY_NAME = "blog";
 
+    private static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("id", "name", "handle");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -170,15 +175,27 @@ public class BlogResource {
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param cursor the opaque cursor of a keyset page: when present, possibly empty for the first page, the listing seeks
+     * to the cursor instead of using an offset, and the next page is linked with a {@code Link} header.
+     * @param count flag to compute the total number of blogs ({@code X-Total-Count} and {@code last} link) of an offset page;
+     * clients which do not display it can skip it.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of blogs in body.
      */
     @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<List<BlogDTO>>> getAllBlogs(
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
         ServerHttpRequest request,
-        @RequestParam(name = "eagerload", required = false, defaultValue = "true") boolean eagerload
+        @RequestParam(name = "eagerload", required = false, defaultValue = "true") boolean eagerload,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(name = "count", required = false, defaultValue = "true") boolean count
     ) {
+        if (cursor != null) {
+            return getAllBlogsByKeyset(cursor, pageable, request);
+        }
         log.debug("REST request to get a page of Blogs");
+        if (!count) {
+            return blogService.findAll(pageable).collectList().map(ResponseEntity::ok);
+        }
         return blogService
             .countAll()
             .zipWith(blogService.findAll(pageable).collectList())
@@ -195,6 +212,27 @@ public class BlogResource {
             );
     }
 
+    private Mono<ResponseEntity<List<BlogDTO>>> getAllBlogsByKeyset(String cursor, Pageable pageable, ServerHttpRequest request) {
+        Keyset keyset = KeysetPaginationUtil.resolveKeyset(cursor, pageable, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        log.debug("REST request to get a keyset page of Blogs : {}", keyset);
+        return blogService
+            .findAll(keyset)
+            .collectList()
+            .map(
+                entities ->
+                    ResponseEntity.ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                keyset,
+                                entities,
+                                BlogDTO::getId
+                            )
+                        )
+                        .body(entities)
+            );
+    }
+
     /**
      * {@code GET  /blogs/:id} : get the "id" blog.
      *
@@ -229,31 +267,39 @@ public class BlogResource {
     }
 
     /**
-     * {@code SEARCH  /blogs/_search?query=:query} : search for the blog corresponding
-     * to the query.
+     * {@code SEARCH  /blogs/_search?text=:text} : search for the blogs matching a free text.
+     * Admins can send a raw {@code query_string} query instead, with the {@code query} parameter.
      *
-     * @param query the query of the blog search.
+     * @param text the free text of the blog search.
+     * @param query the raw query of the blog search, reserved to the admins.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @return the result of the search, with the total of the matching entities in the {@code X-Total-Count} header,
+     * or with status {@code 403 (Forbidden)} if a raw query is sent by another user.
      */
     @GetMapping("/_search")
-    public Mono<ResponseEntity<Flux<BlogDTO>>> searchBlogs(
-        @RequestParam("query") String query,
+    public Mono<ResponseEntity<List<BlogDTO>>> searchBlogs(
+        @RequestParam(name = "text", required = false) String text,
+        @RequestParam(name = SearchQueryUtil.QUERY_STRING_PARAMETER, required = false) String query,
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
         ServerHttpRequest request
     ) {
-        log.debug("REST request to search for a page of Blogs for query {}", query);
-        return blogService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
+        log.debug("REST request to search for a page of Blogs for text {} or query {}", text, query);
+        Mono<Page<BlogDTO>> result = query != null
+            ? SearchQueryUtil.searchQueryString(Mono.defer(() -> blogService.searchQueryString(query, pageable)))
+            : blogService.search(text, pageable);
+        return result
             .map(
                 page ->
-                    PaginationUtil.generatePaginationHttpHeaders(
-                        ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
-                        page
-                    )
+                    ResponseEntity.ok()
+                        .headers(
+                            PaginationUtil.generatePaginationHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                page
+                            )
+                        )
+                        .body(page.getContent())
             )
-            .map(headers -> ResponseEntity.ok().headers(headers).body(blogService.search(query, pageable)));
+            .onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
     }
 }
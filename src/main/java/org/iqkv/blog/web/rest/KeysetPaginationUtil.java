@@ -0,0 +1,126 @@
+package org.iqkv.blog.web.rest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.iqkv.blog.repository.Keyset;
+import org.iqkv.blog.repository.search.SearchCursor;
+import org.iqkv.blog.web.rest.errors.BadRequestAlertException;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (cursor based) pagination.
+ * <p>
+ * The position of the next page is sent to the client as an opaque {@code cursor} query parameter
+ * in a {@code Link} header with {@code rel="next"}.
+ */
+final class KeysetPaginationUtil {
+
+    static final String CURSOR_PARAMETER = "cursor";
+
+    private static final String HEADER_LINK_FORMAT = "<%s>; rel=\"%s\"";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Resolves the keyset of the requested page.
+     *
+     * @param cursor the cursor sent by the client, {@code null} or empty for the first page.
+     * @param pageable the pagination information, its first sort order is used for the first page.
+     * @param allowedProperties the properties which can be used to sort the listing.
+     * @param entityName the name of the entity, used in the error messages.
+     * @return the keyset of the page.
+     * @throws BadRequestAlertException if the cursor is malformed, or the sort property is not allowed.
+     */
+    static Keyset resolveKeyset(String cursor, Pageable pageable, Set<String> allowedProperties, String entityName) {
+        Keyset keyset;
+        if (cursor == null || cursor.isEmpty()) {
+            Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(Keyset.ID_PROPERTY));
+            keyset = Keyset.first(order, pageable.getPageSize());
+        } else {
+            try {
+                keyset = Keyset.fromCursor(cursor, pageable.getPageSize());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+            }
+        }
+        if (!allowedProperties.contains(keyset.getOrder().getProperty())) {
+            throw new BadRequestAlertException("Invalid sort property", entityName, "sortinvalid");
+        }
+        return keyset;
+    }
+
+    /**
+     * Resolves the search cursor of the requested page of a search.
+     *
+     * @param cursor the cursor sent by the client, {@code null} or empty for the first page.
+     * @param pageable the pagination information, only its size is used.
+     * @param entityName the name of the entity, used in the error messages.
+     * @return the search cursor of the page.
+     * @throws BadRequestAlertException if the cursor is malformed.
+     */
+    static SearchCursor resolveSearchCursor(String cursor, Pageable pageable, String entityName) {
+        if (cursor == null || cursor.isEmpty()) {
+            return SearchCursor.first(pageable.getPageSize());
+        }
+        try {
+            return SearchCursor.fromCursor(cursor, pageable.getPageSize());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+    }
+
+    /**
+     * Generate the {@code Link} header pointing to the next page of a search.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param next the search cursor of the next page, {@code null} on the last page.
+     * @return the http headers.
+     */
+    static HttpHeaders generateSearchCursorHttpHeaders(UriComponentsBuilder uriBuilder, SearchCursor next) {
+        if (next == null) {
+            return new HttpHeaders();
+        }
+        return generateCursorHttpHeaders(uriBuilder, next.toCursor(), next.getSize());
+    }
+
+    /**
+     * Generate the {@code Link} header pointing to the next page, if the current page is full.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param keyset the keyset of the current page.
+     * @param content the content of the current page.
+     * @param idExtractor the function returning the id of an element.
+     * @param <T> the type of the elements.
+     * @return the http headers.
+     */
+    static <T> HttpHeaders generateKeysetHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        Keyset keyset,
+        List<T> content,
+        Function<T, Long> idExtractor
+    ) {
+        if (content.size() < keyset.getSize()) {
+            return new HttpHeaders();
+        }
+        T last = content.get(content.size() - 1);
+        Object value = keyset.isSortedById() ? null : new BeanWrapperImpl(last).getPropertyValue(keyset.getOrder().getProperty());
+        Keyset next = Keyset.after(keyset.getOrder(), value != null ? value.toString() : null, idExtractor.apply(last), keyset.getSize());
+        return generateCursorHttpHeaders(uriBuilder, next.toCursor(), keyset.getSize());
+    }
+
+    private static HttpHeaders generateCursorHttpHeaders(UriComponentsBuilder uriBuilder, String cursor, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = uriBuilder
+            .replaceQueryParam(CURSOR_PARAMETER, cursor)
+            .replaceQueryParam("page")
+            .replaceQueryParam("size", size)
+            .toUriString();
+        headers.add(HttpHeaders.LINK, String.format(HEADER_LINK_FORMAT, link, "next"));
+        return headers;
+    }
+}
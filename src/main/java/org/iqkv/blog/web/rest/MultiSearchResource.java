@@ -0,0 +1,42 @@
+package org.iqkv.blog.web.rest;
+
+import org.iqkv.blog.service.MultiSearchService;
+import org.iqkv.blog.service.dto.MultiSearchResultDTO;
+import org.iqkv.blog.web.rest.errors.ElasticsearchExceptionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller searching the posts, blogs, tags and users with a single request, for the global search box.
+ */
+@RestController
+@RequestMapping("/api/_search")
+public class MultiSearchResource {
+
+    private final Logger log = LoggerFactory.getLogger(MultiSearchResource.class);
+
+    private final MultiSearchService multiSearchService;
+
+    public MultiSearchResource(MultiSearchService multiSearchService) {
+        this.multiSearchService = multiSearchService;
+    }
+
+    /**
+     * {@code GET  /_search?text=:text} : search for the posts, blogs, tags and users matching a free text. The indexes
+     * are searched by a single {@code _msearch} request; a type whose search timed out or failed is marked as partial.
+     *
+     * @param text the free text to search.
+     * @param size the number of hits per type.
+     * @return the first hits and the total of each type.
+     */
+    @GetMapping("")
+    public Mono<MultiSearchResultDTO> search(
+        @RequestParam(name = "text", required = false) String text,
+        @RequestParam(name = "size", required = false) Integer size
+    ) {
+        log.debug("REST request to search for all the types for text {}", text);
+        return multiSearchService.search(text, size).onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
+    }
+}
@@ -4,16 +4,23 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import org.iqkv.blog.repository.Keyset;
 import org.iqkv.blog.repository.PostRepository;
+import org.iqkv.blog.repository.search.PostSearchCriteria;
+import org.iqkv.blog.repository.search.SearchCursor;
 import org.iqkv.blog.service.PostService;
+import org.iqkv.blog.service.RelatedPostService;
 import org.iqkv.blog.service.dto.PostDTO;
+import org.iqkv.blog.service.dto.PostSearchResultDTO;
 import org.iqkv.blog.web.rest.errors.BadRequestAlertException;
+import org.iqkv.blog.web.rest.errors.ElasticsearchExceptionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -40,6 +47,8 @@ public class PostResource {
 
     private static final String ENTITY_NAME = "post";
 
+    private static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("id", "title", "date");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -47,9 +56,12 @@ public class PostResource {
 
     private final PostRepository postRepository;
 
-    public PostResource(PostService postService, PostRepository postRepository) {
+    private final RelatedPostService relatedPostService;
+
+    public PostResource(PostService postService, PostRepository postRepository, RelatedPostService relatedPostService) {
         this.postService = postService;
         this.postRepository = postRepository;
+        this.relatedPostService = relatedPostService;
     }
 
     /**
@@ -165,23 +177,37 @@ public class PostResource {
     }
 
     /**
-     * {@code GET  /posts} : get all the posts.
+     * {@code GET  /posts} : get all the posts, as summaries: their content is left out, with its excerpt instead.
+     * The content is only returned by {@code GET  /posts/:id}.
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param cursor the opaque cursor of a keyset page: when present, possibly empty for the first page, the listing seeks
+     * to the cursor instead of using an offset, and the next page is linked with a {@code Link} header.
+     * @param count flag to compute the total number of posts ({@code X-Total-Count} and {@code last} link) of an offset page;
+     * clients which do not display it can skip it.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of posts in body.
      */
     @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<List<PostDTO>>> getAllPosts(
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
         ServerHttpRequest request,
-        @RequestParam(name = "eagerload", required = false, defaultValue = "true") boolean eagerload
+        @RequestParam(name = "eagerload", required = false, defaultValue = "true") boolean eagerload,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(name = "count", required = false, defaultValue = "true") boolean count
     ) {
+        if (cursor != null) {
+            return getAllPostsByKeyset(cursor, pageable, request, eagerload);
+        }
         log.debug("REST request to get a page of Posts");
+        Flux<PostDTO> posts = eagerload ? postService.findAllWithEagerRelationships(pageable) : postService.findAll(pageable);
+        if (!count) {
+            return posts.collectList().map(ResponseEntity::ok);
+        }
         return postService
             .countAll()
-            .zipWith(postService.findAll(pageable).collectList())
+            .zipWith(posts.collectList())
             .map(
                 countWithEntities ->
                     ResponseEntity.ok()
@@ -195,6 +221,32 @@ public class PostResource {
             );
     }
 
+    private Mono<ResponseEntity<List<PostDTO>>> getAllPostsByKeyset(
+        String cursor,
+        Pageable pageable,
+        ServerHttpRequest request,
+        boolean eagerload
+    ) {
+        Keyset keyset = KeysetPaginationUtil.resolveKeyset(cursor, pageable, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        log.debug("REST request to get a keyset page of Posts : {}", keyset);
+        Flux<PostDTO> posts = eagerload ? postService.findAllWithEagerRelationshipsBy(keyset) : postService.findAll(keyset);
+        return posts
+            .collectList()
+            .map(
+                entities ->
+                    ResponseEntity.ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                keyset,
+                                entities,
+                                PostDTO::getId
+                            )
+                        )
+                        .body(entities)
+            );
+    }
+
     /**
      * {@code GET  /posts/:id} : get the "id" post.
      *
@@ -208,6 +260,19 @@ public class PostResource {
         return ResponseUtil.wrapOrNotFound(postDTO);
     }
 
+    /**
+     * {@code GET  /posts/:id/related} : get the posts related to the "id" post, by the terms of their titles, contents
+     * and tags. The related posts are cached until the post is reindexed, see {@link RelatedPostService}.
+     *
+     * @param id the id of the post.
+     * @return the related posts, the most similar first, without their content; none when the post is not indexed.
+     */
+    @GetMapping("/{id}/related")
+    public Mono<List<PostDTO>> getRelatedPosts(@PathVariable("id") Long id) {
+        log.debug("REST request to get the Posts related to Post : {}", id);
+        return relatedPostService.findRelated(id).onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
+    }
+
     /**
      * {@code DELETE  /posts/:id} : delete the "id" post.
      *
@@ -229,31 +294,117 @@ public class PostResource {
     }
 
     /**
-     * {@code SEARCH  /posts/_search?query=:query} : search for the post corresponding
-     * to the query.
+     * {@code SEARCH  /posts/_search?text=:text} : search for the posts matching a free text and filters: {@code blogId},
+     * {@code tagIds} (any of them), {@code fromDate} (inclusive) and {@code toDate} (exclusive).
+     * Admins can send a raw {@code query_string} query instead, with the {@code query} parameter.
      *
-     * @param query the query of the post search.
+     * @param query the raw query of the post search, reserved to the admins.
+     * @param criteria the free text and the filters of the post search.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @param cursor the opaque cursor of a deep search: when present, possibly empty for the first page, the pages are read
+     * with {@code search_after} in a point in time, without the {@code max_result_window} limit and without total, and the
+     * next page is linked with a {@code Link} header.
+     * @return the result of the search, with the total of the matching entities in the {@code X-Total-Count} header,
+     * or with status {@code 403 (Forbidden)} if a raw query is sent by another user.
      */
     @GetMapping("/_search")
-    public Mono<ResponseEntity<Flux<PostDTO>>> searchPosts(
-        @RequestParam("query") String query,
+    public Mono<ResponseEntity<List<PostDTO>>> searchPosts(
+        @RequestParam(name = SearchQueryUtil.QUERY_STRING_PARAMETER, required = false) String query,
+        @org.springdoc.core.annotations.ParameterObject PostSearchCriteria criteria,
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor
+    ) {
+        if (query == null && cursor != null) {
+            return searchPostsByCursor(criteria, cursor, pageable, request);
+        }
+        log.debug("REST request to search for a page of Posts for criteria {} or query {}", criteria, query);
+        Mono<Page<PostDTO>> result = query != null
+            ? SearchQueryUtil.searchQueryString(Mono.defer(() -> postService.searchQueryString(query, pageable)))
+            : postService.search(criteria, pageable);
+        return result
+            .map(
+                page ->
+                    ResponseEntity.ok()
+                        .headers(
+                            PaginationUtil.generatePaginationHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                page
+                            )
+                        )
+                        .body(page.getContent())
+            )
+            .onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
+    }
+
+    private Mono<ResponseEntity<List<PostDTO>>> searchPostsByCursor(
+        PostSearchCriteria criteria,
+        String cursor,
+        Pageable pageable,
         ServerHttpRequest request
     ) {
-        log.debug("REST request to search for a page of Posts for query {}", query);
+        SearchCursor searchCursor = KeysetPaginationUtil.resolveSearchCursor(cursor, pageable, ENTITY_NAME);
+        log.debug("REST request to search for a cursor page of Posts for criteria {} : {}", criteria, searchCursor);
         return postService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
+            .search(criteria, searchCursor)
             .map(
                 page ->
-                    PaginationUtil.generatePaginationHttpHeaders(
-                        ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
-                        page
-                    )
+                    ResponseEntity.ok()
+                        .headers(
+                            KeysetPaginationUtil.generateSearchCursorHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                page.next()
+                            )
+                        )
+                        .body(page.content())
             )
-            .map(headers -> ResponseEntity.ok().headers(headers).body(postService.search(query, pageable)));
+            .onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
+    }
+
+    /**
+     * {@code GET  /posts/_search/faceted?text=:text} : search for the posts matching a free text and filters, with the
+     * facets of the whole result set: the number of matching posts per tag, per blog and per month. The hits and the
+     * facets are read by the same search request.
+     *
+     * @param criteria the free text and the filters of the post search.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the page of posts and the facets, with the total of the matching entities in the {@code X-Total-Count} header.
+     */
+    @GetMapping("/_search/faceted")
+    public Mono<ResponseEntity<PostSearchResultDTO>> searchPostsWithFacets(
+        @org.springdoc.core.annotations.ParameterObject PostSearchCriteria criteria,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search for a faceted page of Posts for criteria {}", criteria);
+        return postService
+            .searchWithFacets(criteria, pageable)
+            .map(
+                result ->
+                    ResponseEntity.ok()
+                        .headers(
+                            PaginationUtil.generatePaginationHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                result.page()
+                            )
+                        )
+                        .body(new PostSearchResultDTO(result.page().getContent(), result.facets()))
+            )
+            .onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
+    }
+
+    /**
+     * {@code GET  /posts/_search/export?text=:text} : stream all the posts matching a free text and filters, as
+     * newline delimited JSON. The result set is read in batches in a point in time of the index.
+     *
+     * @param criteria the free text and the filters of the post search.
+     * @return the stream of the matching posts.
+     */
+    @GetMapping(value = "/_search/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostDTO> exportPosts(@org.springdoc.core.annotations.ParameterObject PostSearchCriteria criteria) {
+        log.debug("REST request to export the Posts for criteria {}", criteria);
+        return postService.searchAll(criteria).onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
     }
 }
@@ -73,13 +73,32 @@ public class PublicUserResource {
     }
 
     /**
-     * {@code SEARCH /users/_search/:query} : search for the User corresponding to the query.
+     * {@code SEARCH /users/_search/:query} : search for the User matching a free text, on their login and names.
      *
-     * @param query the query to search.
-     * @return the result of the search.
+     * @param query the free text to search.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the result of the search, with the total of the matching users in the {@code X-Total-Count} header.
      */
     @GetMapping("/users/_search/{query}")
-    public Mono<List<UserDTO>> search(@PathVariable("query") String query) {
-        return userSearchRepository.search(query).map(UserDTO::new).collectList();
+    public Mono<ResponseEntity<List<UserDTO>>> search(
+        @PathVariable("query") String query,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        return userSearchRepository
+            .search(query, pageable)
+            .map(page -> page.map(UserDTO::new))
+            .map(
+                page ->
+                    ResponseEntity.ok()
+                        .headers(
+                            PaginationUtil.generatePaginationHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                page
+                            )
+                        )
+                        .body(page.getContent())
+            );
     }
 }
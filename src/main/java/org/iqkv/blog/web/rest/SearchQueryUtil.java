@@ -0,0 +1,33 @@
+package org.iqkv.blog.web.rest;
+
+import org.iqkv.blog.security.AuthoritiesConstants;
+import org.iqkv.blog.security.SecurityUtils;
+import org.springframework.security.access.AccessDeniedException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class for the search endpoints.
+ * <p>
+ * The searches take a free text and filters, which can not overload Elasticsearch. The raw {@code query_string} queries,
+ * sent with the {@code query} parameter, can have leading wildcards, regular expressions or fuzzy terms, and are reserved
+ * to the admins.
+ */
+final class SearchQueryUtil {
+
+    static final String QUERY_STRING_PARAMETER = "query";
+
+    private SearchQueryUtil() {}
+
+    /**
+     * Runs a raw {@code query_string} search if the current user is an admin.
+     *
+     * @param search the search.
+     * @param <T> the type of the result.
+     * @return the result of the search, or an {@link AccessDeniedException} error.
+     */
+    static <T> Mono<T> searchQueryString(Mono<T> search) {
+        return SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN).flatMap(admin ->
+            Boolean.TRUE.equals(admin) ? search : Mono.error(new AccessDeniedException("query_string searches are reserved to the admins"))
+        );
+    }
+}
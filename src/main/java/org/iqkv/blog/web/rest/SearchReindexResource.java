@@ -0,0 +1,72 @@
+package org.iqkv.blog.web.rest;
+
+import org.iqkv.blog.security.AuthoritiesConstants;
+import org.iqkv.blog.service.SearchReindexService;
+import org.iqkv.blog.service.dto.SearchReindexDTO;
+import org.iqkv.blog.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.reactive.ResponseUtil;
+
+/**
+ * REST controller rebuilding the search indexes from the database, see {@link SearchReindexService}.
+ */
+@RestController
+@RequestMapping("/api/admin/search/_reindex")
+public class SearchReindexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private static final String ENTITY_NAME = "searchReindex";
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * {@code POST  /admin/search/_reindex/:index} : rebuild the index in the background, or resume its last reindex.
+     *
+     * @param index the alias of the index to rebuild: {@code post}, {@code blog}, {@code tag} or {@code user}.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the started reindex,
+     * or with status {@code 400 (Bad Request)} if the index is unknown or already being rebuilt.
+     */
+    @PostMapping("/{index}")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<SearchReindexDTO>> reindex(@PathVariable("index") String index) {
+        log.debug("REST request to rebuild the search index : {}", index);
+        validateIndex(index);
+        if (searchReindexService.isRunning(index)) {
+            throw new BadRequestAlertException("The index is already being rebuilt", ENTITY_NAME, "reindexrunning");
+        }
+        return searchReindexService
+            .reindex(index)
+            .map(reindex -> ResponseEntity.status(HttpStatus.ACCEPTED).body(new SearchReindexDTO(reindex)));
+    }
+
+    /**
+     * {@code GET  /admin/search/_reindex/:index} : get the progress of the current or last reindex of the index.
+     *
+     * @param index the alias of the index.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the reindex, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{index}")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<SearchReindexDTO>> getReindex(@PathVariable("index") String index) {
+        log.debug("REST request to get the last reindex of the search index : {}", index);
+        validateIndex(index);
+        return ResponseUtil.wrapOrNotFound(searchReindexService.findLast(index).map(SearchReindexDTO::new));
+    }
+
+    private void validateIndex(String index) {
+        if (!searchReindexService.getAliases().contains(index)) {
+            throw new BadRequestAlertException("Unknown index", ENTITY_NAME, "unknownindex");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.iqkv.blog.web.rest;
+
+import org.iqkv.blog.service.SearchSuggestService;
+import org.iqkv.blog.service.dto.SuggestionsDTO;
+import org.iqkv.blog.web.rest.errors.ElasticsearchExceptionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller suggesting the post titles, blog names and tag names while the search box is typed in,
+ * see {@link SearchSuggestService}.
+ */
+@RestController
+@RequestMapping("/api/_suggest")
+public class SearchSuggestResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchSuggestResource.class);
+
+    private final SearchSuggestService searchSuggestService;
+
+    public SearchSuggestResource(SearchSuggestService searchSuggestService) {
+        this.searchSuggestService = searchSuggestService;
+    }
+
+    /**
+     * {@code GET  /_suggest?prefix=:prefix} : get the post titles, blog names and tag names starting with the typed text.
+     *
+     * @param prefix the typed text: the last word is completed, the others are matched as full words.
+     * @return the suggestions, grouped by type.
+     */
+    @GetMapping("")
+    public Mono<SuggestionsDTO> suggest(@RequestParam(name = "prefix", required = false) String prefix) {
+        log.debug("REST request to suggest for prefix {}", prefix);
+        return searchSuggestService.suggest(prefix).onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
+    }
+}
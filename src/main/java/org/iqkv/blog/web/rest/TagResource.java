@@ -4,16 +4,19 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import org.iqkv.blog.repository.Keyset;
 import org.iqkv.blog.repository.TagRepository;
 import org.iqkv.blog.service.TagService;
 import org.iqkv.blog.service.dto.TagDTO;
 import org.iqkv.blog.web.rest.errors.BadRequestAlertException;
+import org.iqkv.blog.web.rest.errors.ElasticsearchExceptionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -40,6 +43,8 @@ public class TagResource {
 
     private static final String ENTITY_NAME = "tag";
 
+    private static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("id", "name");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -169,14 +174,27 @@ public class TagResource {
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
+     * @param cursor the opaque cursor of a keyset page. Keyset pagination is the default for tags, the next page is linked
+     * with a {@code Link} header; offset pagination is only used when a {@code page} parameter is requested.
+     * @param count flag to compute the total number of tags ({@code X-Total-Count} and {@code last} link) of an offset page;
+     * clients which do not display it can skip it.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tags in body.
      */
     @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<List<TagDTO>>> getAllTags(
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
-        ServerHttpRequest request
+        ServerHttpRequest request,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(name = "count", required = false, defaultValue = "true") boolean count
     ) {
+        // Tags are paginated with infinite-scroll: keyset pagination is used, unless a page number is requested
+        if (cursor != null || !request.getQueryParams().containsKey("page")) {
+            return getAllTagsByKeyset(cursor, pageable, request);
+        }
         log.debug("REST request to get a page of Tags");
+        if (!count) {
+            return tagService.findAll(pageable).collectList().map(ResponseEntity::ok);
+        }
         return tagService
             .countAll()
             .zipWith(tagService.findAll(pageable).collectList())
@@ -193,6 +211,27 @@ public class TagResource {
             );
     }
 
+    private Mono<ResponseEntity<List<TagDTO>>> getAllTagsByKeyset(String cursor, Pageable pageable, ServerHttpRequest request) {
+        Keyset keyset = KeysetPaginationUtil.resolveKeyset(cursor, pageable, KEYSET_SORT_PROPERTIES, ENTITY_NAME);
+        log.debug("REST request to get a keyset page of Tags : {}", keyset);
+        return tagService
+            .findAll(keyset)
+            .collectList()
+            .map(
+                entities ->
+                    ResponseEntity.ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                keyset,
+                                entities,
+                                TagDTO::getId
+                            )
+                        )
+                        .body(entities)
+            );
+    }
+
     /**
      * {@code GET  /tags/:id} : get the "id" tag.
      *
@@ -227,31 +266,39 @@ public class TagResource {
     }
 
     /**
-     * {@code SEARCH  /tags/_search?query=:query} : search for the tag corresponding
-     * to the query.
+     * {@code SEARCH  /tags/_search?text=:text} : search for the tags matching a free text.
+     * Admins can send a raw {@code query_string} query instead, with the {@code query} parameter.
      *
-     * @param query the query of the tag search.
+     * @param text the free text of the tag search.
+     * @param query the raw query of the tag search, reserved to the admins.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @return the result of the search, with the total of the matching entities in the {@code X-Total-Count} header,
+     * or with status {@code 403 (Forbidden)} if a raw query is sent by another user.
      */
     @GetMapping("/_search")
-    public Mono<ResponseEntity<Flux<TagDTO>>> searchTags(
-        @RequestParam("query") String query,
+    public Mono<ResponseEntity<List<TagDTO>>> searchTags(
+        @RequestParam(name = "text", required = false) String text,
+        @RequestParam(name = SearchQueryUtil.QUERY_STRING_PARAMETER, required = false) String query,
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
         ServerHttpRequest request
     ) {
-        log.debug("REST request to search for a page of Tags for query {}", query);
-        return tagService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
+        log.debug("REST request to search for a page of Tags for text {} or query {}", text, query);
+        Mono<Page<TagDTO>> result = query != null
+            ? SearchQueryUtil.searchQueryString(Mono.defer(() -> tagService.searchQueryString(query, pageable)))
+            : tagService.search(text, pageable);
+        return result
             .map(
                 page ->
-                    PaginationUtil.generatePaginationHttpHeaders(
-                        ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
-                        page
-                    )
+                    ResponseEntity.ok()
+                        .headers(
+                            PaginationUtil.generatePaginationHttpHeaders(
+                                ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                                page
+                            )
+                        )
+                        .body(page.getContent())
             )
-            .map(headers -> ResponseEntity.ok().headers(headers).body(tagService.search(query, pageable)));
+            .onErrorMap(RuntimeException.class, ElasticsearchExceptionMapper::mapException);
     }
 }
@@ -3,6 +3,7 @@ package org.iqkv.blog.web.rest.errors;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.ErrorCause;
 import java.util.List;
+import org.iqkv.blog.repository.search.UnsupportedSortException;
 import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
 
 public class ElasticsearchExceptionMapper {
@@ -10,6 +11,9 @@ public class ElasticsearchExceptionMapper {
     private ElasticsearchExceptionMapper() {}
 
     public static RuntimeException mapException(RuntimeException originalException) {
+        if (originalException instanceof UnsupportedSortException) {
+            return new BadRequestAlertException("Invalid sort property", "elasticsearch", "sortinvalid");
+        }
         RuntimeException e = originalException;
         if (e.getCause() instanceof UncategorizedElasticsearchException) {
             e = (UncategorizedElasticsearchException) e.getCause();
@@ -19,6 +23,10 @@ public class ElasticsearchExceptionMapper {
             List<ErrorCause> rootCause = esException.response().error().rootCause();
             if (!rootCause.isEmpty()) {
                 String reason = rootCause.get(0).reason();
+                // the point in time of a search cursor expired, or was released after the last page
+                if ("search_context_missing_exception".equals(rootCause.get(0).type())) {
+                    return new SearchCursorExpiredException();
+                }
                 if (reason != null && reason.startsWith("Failed to parse query [")) {
                     return new QuerySyntaxException();
                 }
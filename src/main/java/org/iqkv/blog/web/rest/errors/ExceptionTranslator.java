@@ -100,6 +100,9 @@ public class ExceptionTranslator extends ResponseEntityExceptionHandler implemen
             .getBody();
         if (ex instanceof org.iqkv.blog.service.InvalidPasswordException) return (ProblemDetailWithCause) new InvalidPasswordException()
             .getBody();
+        if (
+            ex instanceof org.iqkv.blog.service.TooManySearchCursorsException
+        ) return (ProblemDetailWithCause) new TooManySearchCursorsException().getBody();
 
         if (ex instanceof AuthenticationException) {
             // Ensure no information about existing users is revealed via failed authentication attempts
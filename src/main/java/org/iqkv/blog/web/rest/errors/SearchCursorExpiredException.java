@@ -0,0 +1,11 @@
+package org.iqkv.blog.web.rest.errors;
+
+@SuppressWarnings("java:S110") // Inheritance tree of classes should not be too deep
+public class SearchCursorExpiredException extends BadRequestAlertException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SearchCursorExpiredException() {
+        super("Expired search cursor, restart the search from its first page", "elasticsearch", "cursorexpired");
+    }
+}
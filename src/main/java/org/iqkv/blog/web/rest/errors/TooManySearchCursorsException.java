@@ -0,0 +1,24 @@
+package org.iqkv.blog.web.rest.errors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.ErrorResponseException;
+import tech.jhipster.web.rest.errors.ProblemDetailWithCause.ProblemDetailWithCauseBuilder;
+
+@SuppressWarnings("java:S110") // Inheritance tree of classes should not be too deep
+public class TooManySearchCursorsException extends ErrorResponseException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TooManySearchCursorsException() {
+        super(
+            HttpStatus.TOO_MANY_REQUESTS,
+            ProblemDetailWithCauseBuilder.instance()
+                .withStatus(HttpStatus.TOO_MANY_REQUESTS.value())
+                .withType(ErrorConstants.DEFAULT_TYPE)
+                .withTitle("Too many search cursors opened, read the pages of the open ones or retry later")
+                .withProperty("message", "error.toomanycursors")
+                .build(),
+            null
+        );
+    }
+}
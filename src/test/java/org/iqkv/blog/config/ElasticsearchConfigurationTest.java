@@ -0,0 +1,110 @@
+package org.iqkv.blog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+/**
+ * Test class for the Elasticsearch conversions of the {@link ElasticsearchConfiguration}.
+ */
+class ElasticsearchConfigurationTest {
+
+    private MappingElasticsearchConverter converter;
+
+    @BeforeEach
+    void setup() {
+        ElasticsearchCustomConversions conversions = new ElasticsearchConfiguration().elasticsearchCustomConversions();
+        SimpleElasticsearchMappingContext mappingContext = new SimpleElasticsearchMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingElasticsearchConverter(mappingContext);
+        converter.setConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void testPostIsDenormalizedWithItsBlogAndTags() {
+        Post post = new Post()
+            .id(1L)
+            .title("title")
+            .date(Instant.parse("2024-05-01T10:00:00Z"))
+            .blog(new Blog().id(2L).name("Blog").handle("blog"))
+            .addTag(new Tag().id(3L).name("tag"));
+
+        Document document = Document.create();
+        converter.write(post, document);
+
+        assertThat(document)
+            .containsEntry("blogId", 2L)
+            .containsEntry("blogName", "Blog")
+            .containsEntry("blogHandle", "blog")
+            .containsEntry("tagIds", List.of(3L))
+            .containsEntry("tagNames", List.of("tag"));
+    }
+
+    @Test
+    void testPostIsReadWithItsBlogAndTags() {
+        Document document = Document.from(
+            Map.of(
+                "id",
+                1,
+                "title",
+                "title",
+                "date",
+                "2024-05-01T10:00:00Z",
+                "blogId",
+                2,
+                "blogName",
+                "Blog",
+                "blogHandle",
+                "blog",
+                "tagIds",
+                List.of(3, 4),
+                "tagNames",
+                List.of("tag", "other")
+            )
+        );
+
+        Post post = converter.read(Post.class, document);
+
+        assertThat(post.getId()).isEqualTo(1L);
+        assertThat(post.getDate()).isEqualTo(Instant.parse("2024-05-01T10:00:00Z"));
+        assertThat(post.getBlogId()).isEqualTo(2L);
+        assertThat(post.getBlog().getName()).isEqualTo("Blog");
+        assertThat(post.getBlog().getHandle()).isEqualTo("blog");
+        assertThat(post.getTags()).extracting(Tag::getId, Tag::getName).containsExactlyInAnyOrder(tuple(3L, "tag"), tuple(4L, "other"));
+    }
+
+    @Test
+    void testPostHashIgnoresTheTagOrderAndNames() {
+        Post post = new Post().id(1L).title("title").date(Instant.parse("2024-05-01T10:00:00Z")).blog(new Blog().id(2L));
+        Document document = Document.create();
+        converter.write(post.addTag(new Tag().id(3L).name("tag")).addTag(new Tag().id(4L).name("other")), document);
+        Post reordered = new Post().id(1L).title("title").date(Instant.parse("2024-05-01T10:00:00Z")).blog(new Blog().id(2L));
+        Document reorderedDocument = Document.create();
+        converter.write(reordered.addTag(new Tag().id(4L).name("renamed")).addTag(new Tag().id(3L).name("tag")), reorderedDocument);
+
+        assertThat(document.get("hash")).isNotNull().isEqualTo(reorderedDocument.get("hash"));
+    }
+
+    @Test
+    void testPostHashChangesWithItsContent() {
+        Document document = Document.create();
+        converter.write(new Post().id(1L).title("title").content("content"), document);
+        Document changedDocument = Document.create();
+        converter.write(new Post().id(1L).title("title").content("changed"), changedDocument);
+
+        assertThat(document.get("hash")).isNotEqualTo(changedDocument.get("hash"));
+    }
+}
@@ -0,0 +1,97 @@
+package org.iqkv.blog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Test class for the {@link ReadReplicaRoutingConnectionFactory} routing, and its replication lag guard.
+ */
+class ReadReplicaRoutingConnectionFactoryTest {
+
+    private final ReadReplicaRoutingConnectionFactory connectionFactory = new ReadReplicaRoutingConnectionFactory(
+        mock(ConnectionPool.class),
+        List.of(mock(ConnectionPool.class), mock(ConnectionPool.class)),
+        Duration.ofSeconds(5),
+        Duration.ofSeconds(5)
+    );
+
+    @Test
+    void testReadWriteTransactionUsesPrimary() {
+        assertThat(connectionFactory.determineCurrentLookupKey().block()).isEqualTo("primary");
+        Context readWrite = Context.of(ReadReplicaRoutingConnectionFactory.READ_ONLY_CONTEXT_KEY, false);
+        assertThat(connectionFactory.determineCurrentLookupKey().contextWrite(readWrite).block()).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadOnlyTransactionsAlternateReplicas() {
+        Context readOnly = Context.of(ReadReplicaRoutingConnectionFactory.READ_ONLY_CONTEXT_KEY, true);
+
+        Object first = connectionFactory.determineCurrentLookupKey().contextWrite(readOnly).block();
+        Object second = connectionFactory.determineCurrentLookupKey().contextWrite(readOnly).block();
+
+        assertThat(List.of(first, second)).containsExactlyInAnyOrder("replica-0", "replica-1");
+    }
+
+    @Test
+    void testLaggingReplicaIsSkipped() {
+        ReadReplicaRoutingConnectionFactory lagging = new ReadReplicaRoutingConnectionFactory(
+            mock(ConnectionPool.class),
+            List.of(replicaLagging(10_000L), replicaLagging(0L)),
+            Duration.ofSeconds(5),
+            Duration.ofSeconds(5)
+        );
+        Context readOnly = Context.of(ReadReplicaRoutingConnectionFactory.READ_ONLY_CONTEXT_KEY, true);
+
+        lagging.checkLag().block();
+
+        assertThat(lagging.determineCurrentLookupKey().contextWrite(readOnly).block()).isEqualTo("replica-1");
+        assertThat(lagging.determineCurrentLookupKey().contextWrite(readOnly).block()).isEqualTo("replica-1");
+    }
+
+    @Test
+    void testReadsFallBackToPrimaryWhenNoReplicaIsInSync() {
+        ConnectionPool unreachable = mock(ConnectionPool.class);
+        when(unreachable.create()).thenReturn(Mono.error(new IllegalStateException("connection refused")));
+        ReadReplicaRoutingConnectionFactory lagging = new ReadReplicaRoutingConnectionFactory(
+            mock(ConnectionPool.class),
+            List.of(replicaLagging(10_000L), unreachable),
+            Duration.ofSeconds(5),
+            Duration.ofSeconds(5)
+        );
+        Context readOnly = Context.of(ReadReplicaRoutingConnectionFactory.READ_ONLY_CONTEXT_KEY, true);
+
+        lagging.checkLag().block();
+
+        assertThat(lagging.determineCurrentLookupKey().contextWrite(readOnly).block()).isEqualTo("primary");
+        assertThat(lagging.determineCurrentLookupKey().contextWrite(readOnly).block()).isEqualTo("primary");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConnectionPool replicaLagging(long lagMillis) {
+        Result result = mock(Result.class);
+        when(result.map(any(BiFunction.class))).thenAnswer(invocation -> Flux.just(lagMillis));
+        Statement statement = mock(Statement.class);
+        when(statement.execute()).thenAnswer(invocation -> Flux.just(result));
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement(anyString())).thenReturn(statement);
+        when(connection.close()).thenAnswer(invocation -> Mono.empty());
+        ConnectionPool pool = mock(ConnectionPool.class);
+        when(pool.create()).thenReturn(Mono.just(connection));
+        return pool;
+    }
+}
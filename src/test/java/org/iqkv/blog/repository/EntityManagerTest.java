@@ -0,0 +1,109 @@
+package org.iqkv.blog.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.List;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.query.UpdateMapper;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
+import org.springframework.data.relational.core.sql.Condition;
+import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.SQL;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Test class for the select statements rendered and cached by the {@link EntityManager}.
+ */
+class EntityManagerTest {
+
+    private static final Table TAG_TABLE = Table.aliased("tag", EntityManager.ENTITY_ALIAS);
+
+    private static final Condition ID_CONDITION = Conditions.isEqual(TAG_TABLE.column("id"), SQL.bindMarker(":id"));
+
+    private static final Condition NAME_CONDITION = Conditions.isEqual(TAG_TABLE.column("name"), SQL.bindMarker(":name"));
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setup() {
+        DatabaseClient databaseClient = DatabaseClient.create(mock(ConnectionFactory.class));
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(databaseClient, PostgresDialect.INSTANCE);
+        entityManager = new EntityManager(
+            SqlRenderer.create(new RenderContextFactory(PostgresDialect.INSTANCE).createRenderContext()),
+            new UpdateMapper(PostgresDialect.INSTANCE, (R2dbcConverter) template.getConverter()),
+            template,
+            PostgresDialect.INSTANCE
+        );
+    }
+
+    @Test
+    void testDifferentSelectsNeverShareTheirStatement() {
+        Pageable page = PageRequest.of(0, 20);
+        Pageable sorted = PageRequest.of(0, 20, Sort.by("name"));
+        Keyset first = Keyset.first(Sort.Order.asc("id"), 20);
+        Keyset next = Keyset.after(Sort.Order.asc("id"), null, 1L, 20);
+        List<String> selects = List.of(
+            entityManager.createSelect("all", EntityManagerTest::createSelectFrom, Tag.class, page, null),
+            entityManager.createSelect("all", EntityManagerTest::createSelectFrom, Tag.class, (Pageable) null, null),
+            entityManager.createSelect("all", EntityManagerTest::createSelectFrom, Tag.class, sorted, null),
+            entityManager.createSelect("all", EntityManagerTest::createSelectFrom, Tag.class, first, null),
+            entityManager.createSelect("all", EntityManagerTest::createSelectFrom, Tag.class, next, null),
+            entityManager.createSelect("byId", EntityManagerTest::createSelectFrom, Tag.class, page, ID_CONDITION),
+            entityManager.createSelect("byName", EntityManagerTest::createSelectFrom, Tag.class, page, NAME_CONDITION)
+        );
+
+        assertThat(selects).doesNotHaveDuplicates();
+        assertThat(selects.get(5)).contains("e.id = :id").doesNotContain(":name");
+        assertThat(selects.get(6)).contains("e.name = :name").doesNotContain(":id");
+    }
+
+    @Test
+    void testSameSelectIsRenderedOnce() {
+        Pageable page = PageRequest.of(0, 20, Sort.by("name"));
+
+        String first = entityManager.createSelect("byName", EntityManagerTest::createSelectFrom, Tag.class, page, NAME_CONDITION);
+        String next = entityManager.createSelect("byName", EntityManagerTest::createSelectFrom, Tag.class, page.next(), NAME_CONDITION);
+
+        assertThat(next).isSameAs(first);
+    }
+
+    @Test
+    void testKeysetIsSortedByNotNullPropertiesOnly() {
+        Keyset byName = Keyset.after(Sort.Order.asc("name"), "java", 1L, 20);
+        Keyset byContent = Keyset.first(Sort.Order.asc("content"), 20);
+
+        assertThat(entityManager.createSelect("all", EntityManagerTest::createSelectFrom, Tag.class, byName, null)).contains(
+            "(e.name, e.id) > (:keysetValue, :keysetId)"
+        );
+        assertThatIllegalArgumentException().isThrownBy(() ->
+            entityManager.createSelect("all", EntityManagerTest::createPostSelectFrom, Post.class, byContent, null)
+        );
+    }
+
+    private static SelectFromAndJoin createPostSelectFrom() {
+        Table postTable = Table.aliased("post", EntityManager.ENTITY_ALIAS);
+        return Select.builder().select(PostSqlHelper.getColumns(postTable, EntityManager.ENTITY_ALIAS)).from(postTable);
+    }
+
+    private static SelectFromAndJoin createSelectFrom() {
+        List<Expression> columns = TagSqlHelper.getColumns(TAG_TABLE, EntityManager.ENTITY_ALIAS);
+        return Select.builder().select(columns).from(TAG_TABLE);
+    }
+}
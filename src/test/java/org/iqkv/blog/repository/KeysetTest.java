@@ -0,0 +1,56 @@
+package org.iqkv.blog.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Test class for the {@link Keyset} cursor encoding.
+ */
+class KeysetTest {
+
+    @Test
+    void testCursorRoundTrip() {
+        Keyset keyset = Keyset.after(Sort.Order.desc("title"), "Hello, world\nagain", 1500L, 20);
+
+        Keyset decoded = Keyset.fromCursor(keyset.toCursor(), 20);
+
+        assertThat(decoded.getOrder()).isEqualTo(Sort.Order.desc("title"));
+        assertThat(decoded.getValue()).isEqualTo("Hello, world\nagain");
+        assertThat(decoded.getId()).isEqualTo(1500L);
+        assertThat(decoded.getSort()).containsExactly(Sort.Order.desc("title"), Sort.Order.desc("id"));
+    }
+
+    @Test
+    void testCursorSortedById() {
+        Keyset keyset = Keyset.after(Sort.Order.asc("id"), "ignored", 42L, 10);
+
+        Keyset decoded = Keyset.fromCursor(keyset.toCursor(), 10);
+
+        assertThat(decoded.isSortedById()).isTrue();
+        assertThat(decoded.getValue()).isNull();
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getSort()).containsExactly(Sort.Order.asc("id"));
+    }
+
+    @Test
+    void testFirstPage() {
+        Keyset keyset = Keyset.first(Sort.Order.asc("name"), 20);
+
+        assertThat(keyset.isFirst()).isTrue();
+        assertThat(keyset.getSort()).containsExactly(Sort.Order.asc("name"), Sort.Order.asc("id"));
+    }
+
+    @Test
+    void testMalformedCursor() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Keyset.fromCursor("not a cursor", 20));
+        assertThatIllegalArgumentException().isThrownBy(() -> Keyset.fromCursor("dGl0bGUKQVNDCjE", 20));
+    }
+
+    @Test
+    void testNullSortValueIsRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Keyset.after(Sort.Order.asc("title"), null, 1500L, 20));
+    }
+}
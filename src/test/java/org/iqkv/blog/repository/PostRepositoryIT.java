@@ -0,0 +1,180 @@
+package org.iqkv.blog.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.iqkv.blog.IntegrationTest;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.repository.rowmapper.BlogRowMapper;
+import org.iqkv.blog.repository.rowmapper.PostRowMapper;
+import org.iqkv.blog.repository.rowmapper.TagRowMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the tags of the posts, written and read by the {@link PostRepository} and the
+ * {@link EntityManager}.
+ */
+@IntegrationTest
+class PostRepositoryIT {
+
+    private static final EntityManager.LinkTable TAG_LINK = new EntityManager.LinkTable("rel_post__tag", "post_id", "tag_id");
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private DatabaseClient db;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private R2dbcConverter converter;
+
+    @Autowired
+    private BlogRowMapper blogMapper;
+
+    @Autowired
+    private PostRowMapper postMapper;
+
+    @Autowired
+    private TagRowMapper tagMapper;
+
+    private List<Tag> tags;
+
+    @BeforeEach
+    void initTest() {
+        tags = Stream.of("java", "spring", "reactor").map(name -> tagRepository.save(new Tag().name(name)).block()).toList();
+    }
+
+    @AfterEach
+    void cleanup() {
+        em.deleteAll("rel_post__tag").block();
+        em.deleteAll(Post.class).block();
+        em.deleteAll(Tag.class).block();
+    }
+
+    @Test
+    void testUnchangedLinksAreKept() {
+        Post post = postRepository.save(post(0).addTag(tags.get(0)).addTag(tags.get(1))).block();
+        String keptLink = linkLocation(post, tags.get(1));
+
+        Long changed = em.updateLinkTable(TAG_LINK, post.getId(), Stream.of(tags.get(1).getId(), tags.get(2).getId())).block();
+
+        // the removed and the added links only
+        assertThat(changed).isEqualTo(2L);
+        assertThat(linkedTagIds(post)).containsExactlyInAnyOrder(tags.get(1).getId(), tags.get(2).getId());
+        // the row of the kept link was neither deleted nor inserted again
+        assertThat(linkLocation(post, tags.get(1))).isEqualTo(keptLink);
+        assertThat(em.updateLinkTable(TAG_LINK, post.getId(), Stream.of(tags.get(2).getId(), tags.get(1).getId())).block()).isZero();
+    }
+
+    @Test
+    void testPageOfPostsLoadsItsTagsWithOneQuery() {
+        IntStream.range(0, 50).forEach(i -> postRepository.save(post(i).addTag(tags.get(i % 3)).addTag(tags.get((i + 1) % 3))).block());
+        AtomicInteger statements = new AtomicInteger();
+        R2dbcEntityTemplate countingTemplate = new R2dbcEntityTemplate(counting(connectionFactory, statements), PostgresDialect.INSTANCE);
+        PostRepositoryInternalImpl countedRepository = new PostRepositoryInternalImpl(
+            countingTemplate,
+            em,
+            blogMapper,
+            postMapper,
+            tagMapper,
+            countingTemplate,
+            converter
+        );
+
+        List<Post> posts = countedRepository.findAllWithEagerRelationships(PageRequest.of(0, 50, Sort.by("id"))).collectList().block();
+
+        assertThat(posts).hasSize(50).allSatisfy(post -> assertThat(post.getTags()).hasSize(2));
+        // the page, then the tags of all its posts
+        assertThat(statements.get()).isEqualTo(2);
+    }
+
+    private static Post post(int i) {
+        return new Post().title("post " + i).content("content").date(Instant.now());
+    }
+
+    private List<Long> linkedTagIds(Post post) {
+        return db
+            .sql("SELECT tag_id FROM rel_post__tag WHERE post_id = :postId")
+            .bind("postId", post.getId())
+            .map(row -> row.get("tag_id", Long.class))
+            .all()
+            .collectList()
+            .block();
+    }
+
+    /**
+     * The physical location of a link row, which changes when the row is deleted and inserted again.
+     */
+    private String linkLocation(Post post, Tag tag) {
+        return db
+            .sql("SELECT ctid::text AS location FROM rel_post__tag WHERE post_id = :postId AND tag_id = :tagId")
+            .bind("postId", post.getId())
+            .bind("tagId", tag.getId())
+            .map(row -> row.get("location", String.class))
+            .one()
+            .block();
+    }
+
+    /**
+     * Counts the statements created on the connections of a connection factory.
+     */
+    private static ConnectionFactory counting(ConnectionFactory connectionFactory, AtomicInteger statements) {
+        return proxy(ConnectionFactory.class, connectionFactory, (method, result) ->
+            "create".equals(method.getName())
+                ? Mono.from((Publisher<?>) result).map(connection ->
+                    proxy(Connection.class, (Connection) connection, (connectionMethod, connectionResult) -> {
+                        if ("createStatement".equals(connectionMethod.getName())) {
+                            statements.incrementAndGet();
+                        }
+                        return connectionResult;
+                    })
+                )
+                : result
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, ResultDecorator decorator) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            try {
+                return decorator.decorate(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private interface ResultDecorator {
+        Object decorate(Method method, Object result);
+    }
+}
@@ -0,0 +1,37 @@
+package org.iqkv.blog.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the excerpt of the content computed by the {@link PostRepositoryInternalImpl}.
+ */
+class PostRepositoryInternalImplTest {
+
+    @Test
+    void testShortContentIsItsOwnExcerpt() {
+        String content = "a".repeat(PostRepositoryInternalImpl.EXCERPT_LENGTH);
+
+        assertThat(PostRepositoryInternalImpl.createExcerpt(content)).isEqualTo(content);
+        assertThat(PostRepositoryInternalImpl.createExcerpt(null)).isNull();
+    }
+
+    @Test
+    void testLongContentIsCutWithAnEllipsis() {
+        String excerpt = PostRepositoryInternalImpl.createExcerpt("a".repeat(PostRepositoryInternalImpl.EXCERPT_LENGTH + 1));
+
+        assertThat(excerpt).isEqualTo("a".repeat(PostRepositoryInternalImpl.EXCERPT_LENGTH - 1) + "…");
+    }
+
+    @Test
+    void testExcerptCountsCodePointsAsTheDatabase() {
+        // 300 emojis are 600 chars, but 300 characters for PostgreSQL
+        String emojis = "😀".repeat(PostRepositoryInternalImpl.EXCERPT_LENGTH);
+
+        assertThat(PostRepositoryInternalImpl.createExcerpt(emojis)).isEqualTo(emojis);
+        String excerpt = PostRepositoryInternalImpl.createExcerpt(emojis + "a");
+        assertThat(excerpt.codePointCount(0, excerpt.length())).isEqualTo(PostRepositoryInternalImpl.EXCERPT_LENGTH);
+        assertThat(excerpt).endsWith("😀…");
+    }
+}
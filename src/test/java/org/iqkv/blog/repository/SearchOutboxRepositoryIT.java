@@ -0,0 +1,68 @@
+package org.iqkv.blog.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import org.iqkv.blog.IntegrationTest;
+import org.iqkv.blog.domain.SearchOutboxEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the claims of the search outbox entries by the {@link SearchOutboxRepository}.
+ */
+@IntegrationTest
+class SearchOutboxRepositoryIT {
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    private static final long LEASE_SECONDS = 300;
+
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @BeforeEach
+    void initTest() {
+        IntStream.range(0, 4).forEach(i ->
+            searchOutboxRepository.save(new SearchOutboxEntry().entityType("Post").entityId((long) i)).block()
+        );
+    }
+
+    @AfterEach
+    void cleanup() {
+        searchOutboxRepository.deleteAll().block();
+    }
+
+    @Test
+    void testClaimedEntriesAreNotClaimedAgain() {
+        List<Long> first = claim(2);
+        List<Long> second = claim(10);
+
+        assertThat(first).hasSize(2);
+        assertThat(second).hasSize(2).doesNotContainAnyElementsOf(first);
+        assertThat(claim(10)).isEmpty();
+    }
+
+    @Test
+    void testFailedEntriesAreReleased() {
+        List<Long> claimed = claim(10);
+
+        searchOutboxRepository.incrementAttempts(claimed.subList(0, 1)).block();
+
+        assertThat(claim(10)).containsExactly(claimed.get(0));
+    }
+
+    @Test
+    void testExpiredLeaseIsClaimedAgain() {
+        List<Long> claimed = searchOutboxRepository.claimPending(MAX_ATTEMPTS, 10, 0).map(SearchOutboxEntry::getId).collectList().block();
+
+        assertThat(claim(10)).containsExactlyInAnyOrderElementsOf(claimed);
+    }
+
+    private List<Long> claim(int limit) {
+        return searchOutboxRepository.claimPending(MAX_ATTEMPTS, limit, LEASE_SECONDS).map(SearchOutboxEntry::getId).collectList().block();
+    }
+}
@@ -0,0 +1,64 @@
+package org.iqkv.blog.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.iqkv.blog.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveSelectOperation;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Test class for the page of users selected by the {@link UserRepositoryInternalImpl}.
+ */
+class UserRepositoryInternalImplTest {
+
+    private ReactiveSelectOperation.ReactiveSelect<User> select;
+
+    private UserRepositoryInternalImpl userRepository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        R2dbcEntityTemplate r2dbcEntityTemplate = mock(R2dbcEntityTemplate.class);
+        select = mock(ReactiveSelectOperation.ReactiveSelect.class);
+        ReactiveSelectOperation.TerminatingSelect<User> terminatingSelect = mock(ReactiveSelectOperation.TerminatingSelect.class);
+        when(r2dbcEntityTemplate.select(User.class)).thenReturn(select);
+        when(select.matching(any(Query.class))).thenReturn(terminatingSelect);
+        when(terminatingSelect.all()).thenReturn(Flux.empty());
+        userRepository = new UserRepositoryInternalImpl(mock(DatabaseClient.class), r2dbcEntityTemplate);
+    }
+
+    @Test
+    void testPageIsSortedAndLimitedInSql() {
+        userRepository.findAllWithAuthorities(PageRequest.of(2, 20, Sort.by(Sort.Order.desc("login")))).blockLast();
+
+        Query query = selectedQuery();
+        assertThat(query.getLimit()).isEqualTo(20);
+        assertThat(query.getOffset()).isEqualTo(40L);
+        assertThat(query.getSort()).containsExactly(Sort.Order.desc("login"), Sort.Order.asc("id"));
+    }
+
+    @Test
+    void testIdSortIsNotRepeated() {
+        userRepository.findAllWithAuthorities(PageRequest.of(0, 20, Sort.by(Sort.Order.desc("id")))).blockLast();
+
+        assertThat(selectedQuery().getSort()).containsExactly(Sort.Order.desc("id"));
+    }
+
+    private Query selectedQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(select).matching(query.capture());
+        return query.getValue();
+    }
+}
@@ -0,0 +1,78 @@
+package org.iqkv.blog.repository.rowmapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link ColumnReader}.
+ */
+class ColumnReaderTest {
+
+    private ColumnConverter converter;
+    private RowMetadata metadata;
+
+    @BeforeEach
+    void init() {
+        converter = mock(ColumnConverter.class);
+        metadata = mock(RowMetadata.class);
+        ColumnMetadata id = column("E_ID", Long.class);
+        ColumnMetadata date = column("E_DATE", null);
+        doReturn(List.of(id, date)).when(metadata).getColumnMetadatas();
+    }
+
+    @Test
+    void testReadsCompatibleColumnByIndex() {
+        Row row = mock(Row.class);
+        when(row.get(0, Long.class)).thenReturn(42L);
+
+        ColumnReader<Long> reader = ColumnReader.of(metadata, "e_id", Long.class, converter);
+
+        assertThat(reader.read(row)).isEqualTo(42L);
+        verify(row).get(0, Long.class);
+    }
+
+    @Test
+    void testConvertsAfterFailedProbe() {
+        Row row = mock(Row.class);
+        when(row.get(1, String.class)).thenThrow(new IllegalArgumentException("Cannot decode"));
+        when(row.get(1)).thenReturn(7);
+        when(converter.convert(eq(7), eq(String.class))).thenReturn("7");
+
+        ColumnReader<String> reader = ColumnReader.of(metadata, "e_date", String.class, converter);
+
+        assertThat(reader.read(row)).isEqualTo("7");
+        assertThat(reader.read(row)).isEqualTo("7");
+        verify(row, times(1)).get(anyInt(), any());
+        verify(converter, times(2)).convert(7, String.class);
+    }
+
+    @Test
+    void testUnknownColumn() {
+        assertThatExceptionOfType(NoSuchElementException.class).isThrownBy(() ->
+            ColumnReader.of(metadata, "e_title", String.class, converter)
+        );
+    }
+
+    private static ColumnMetadata column(String name, Class<?> javaType) {
+        ColumnMetadata column = mock(ColumnMetadata.class);
+        when(column.getName()).thenReturn(name);
+        doReturn(javaType).when(column).getJavaType();
+        return column;
+    }
+}
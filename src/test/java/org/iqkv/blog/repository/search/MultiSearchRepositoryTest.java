@@ -0,0 +1,85 @@
+package org.iqkv.blog.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.repository.BlogRepository;
+import org.iqkv.blog.repository.PostRepository;
+import org.iqkv.blog.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the fallback of the {@link MultiSearchRepository}.
+ */
+class MultiSearchRepositoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MultiSearchRepository multiSearchRepository;
+
+    @BeforeEach
+    void setup() {
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate = mock(ReactiveElasticsearchTemplate.class);
+        when(reactiveElasticsearchTemplate.getIndexCoordinatesFor(any())).thenReturn(IndexCoordinates.of("index"));
+        when(reactiveElasticsearchTemplate.execute(any())).thenAnswer(invocation ->
+            Mono.error(new DataAccessResourceFailureException("Connection refused"))
+        );
+        PostRepository postRepository = mock(PostRepository.class);
+        when(postRepository.searchText(any(PostSearchCriteria.class), any(Pageable.class))).thenAnswer(invocation ->
+            Mono.just(new PageImpl<>(List.of(new Post().title("java")), invocation.getArgument(1), 3))
+        );
+        BlogRepository blogRepository = mock(BlogRepository.class);
+        when(blogRepository.findAllByNameLike(anyString(), any(Pageable.class))).thenAnswer(invocation ->
+            Flux.just(new Blog().name("java"))
+        );
+        when(blogRepository.countByNameLike("%java%")).thenReturn(Mono.just(1L));
+        TagRepository tagRepository = mock(TagRepository.class);
+        when(tagRepository.findAllByNameLike(anyString(), any(Pageable.class))).thenAnswer(invocation -> Flux.empty());
+        when(tagRepository.countByNameLike("%java%")).thenReturn(Mono.just(0L));
+        ReactiveTransactionManager transactionManager = mock(ReactiveTransactionManager.class);
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        multiSearchRepository = new MultiSearchRepository(
+            reactiveElasticsearchTemplate,
+            postRepository,
+            blogRepository,
+            tagRepository,
+            new SearchCircuitBreaker(applicationProperties, meterRegistry, transactionManager),
+            applicationProperties
+        );
+    }
+
+    @Test
+    void testUnavailableElasticsearchIsAnsweredByTheDatabase() {
+        MultiSearchResult result = multiSearchRepository.search("java", 5).block();
+
+        assertThat(result.posts().content()).extracting(Post::getTitle).containsExactly("java");
+        assertThat(result.posts().total()).isEqualTo(3);
+        assertThat(result.blogs().content()).extracting(Blog::getName).containsExactly("java");
+        assertThat(result.tags().content()).isEmpty();
+        // the users have no database search
+        assertThat(result.users().content()).isEmpty();
+        assertThat(result.users().partial()).isTrue();
+        assertThat(meterRegistry.get("search.fallback").tag("type", "MultiSearchResult").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,145 @@
+package org.iqkv.blog.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link SearchCircuitBreaker}.
+ */
+class SearchCircuitBreakerTest {
+
+    private ApplicationProperties.Search.Fallback properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReactiveTransactionManager transactionManager;
+
+    private SearchCircuitBreaker searchCircuitBreaker;
+
+    private AtomicInteger searches;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        properties = applicationProperties.getSearch().getFallback();
+        properties.setWindowSize(4);
+        properties.setFailureRateThreshold(50);
+        properties.setOpenDuration(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        transactionManager = mock(ReactiveTransactionManager.class);
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        searchCircuitBreaker = new SearchCircuitBreaker(applicationProperties, meterRegistry, transactionManager);
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    void testFailedSearchIsAnsweredByTheFallback() {
+        assertThat(run(unavailable())).isEqualTo("database");
+        assertThat(searchCircuitBreaker.getState()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.get("search.fallback").tag("type", "Post").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCircuitOpensAboveTheFailureRate() {
+        run(Mono.just("elasticsearch"));
+        run(Mono.just("elasticsearch"));
+        run(unavailable());
+        run(unavailable());
+        assertThat(searchCircuitBreaker.getState()).isEqualTo(SearchCircuitBreaker.State.OPEN);
+
+        // the open circuit does not send the searches to Elasticsearch
+        searches.set(0);
+        assertThat(run(Mono.fromCallable(() -> "elasticsearch"))).isEqualTo("database");
+        assertThat(searches.get()).isZero();
+        assertThat(meterRegistry.get("search.circuit.state").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("search.circuit.transitions").tag("state", "open").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSlowSearchesOpenTheCircuit() {
+        properties.setSlowCallDuration(Duration.ZERO);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(run(Mono.just("elasticsearch").delayElement(Duration.ofMillis(5)))).isEqualTo("elasticsearch");
+        }
+
+        assertThat(searchCircuitBreaker.getState()).isEqualTo(SearchCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void testProbeClosesTheCircuitOnceRecovered() {
+        properties.setOpenDuration(Duration.ZERO);
+        for (int i = 0; i < 4; i++) {
+            run(unavailable());
+        }
+
+        assertThat(run(Mono.fromCallable(() -> "elasticsearch"))).isEqualTo("elasticsearch");
+        assertThat(searchCircuitBreaker.getState()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.get("search.circuit.transitions").tag("state", "closed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRejectedSearchIsPassedToTheCaller() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> run(rejected(400))).isInstanceOf(UncategorizedElasticsearchException.class);
+        }
+
+        assertThat(searchCircuitBreaker.getState()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.find("search.fallback").counter()).isNull();
+    }
+
+    @Test
+    void testServerErrorsAndOverloadAreFailures() {
+        assertThat(run(rejected(503))).isEqualTo("database");
+        assertThat(run(rejected(429))).isEqualTo("database");
+        assertThat(run(Mono.<String>never().timeout(Duration.ZERO))).isEqualTo("database");
+        assertThat(SearchCircuitBreaker.isUnavailable(new IllegalArgumentException("invalid sort"))).isFalse();
+    }
+
+    @Test
+    void testOnlyTheFallbackRunsInAReadOnlyTransaction() {
+        assertThat(run(Mono.just("elasticsearch"))).isEqualTo("elasticsearch");
+        verify(transactionManager, never()).getReactiveTransaction(any());
+
+        assertThat(run(unavailable())).isEqualTo("database");
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getReactiveTransaction(definition.capture());
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+    }
+
+    private static Mono<String> unavailable() {
+        return Mono.error(new DataAccessResourceFailureException("Connection refused", new ConnectException("Connection refused")));
+    }
+
+    private static Mono<String> rejected(int status) {
+        return Mono.error(new UncategorizedElasticsearchException("rejected", status, null, null));
+    }
+
+    private String run(Mono<String> search) {
+        return searchCircuitBreaker
+            .run(Post.class, search.doOnSubscribe(subscription -> searches.incrementAndGet()), () -> Mono.just("database"))
+            .block();
+    }
+}
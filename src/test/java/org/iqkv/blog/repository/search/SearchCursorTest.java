@@ -0,0 +1,45 @@
+package org.iqkv.blog.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SearchCursor} cursor encoding.
+ */
+class SearchCursorTest {
+
+    @Test
+    void testCursorRoundTrip() {
+        SearchCursor cursor = SearchCursor.after("46ToAwMDaWR5BXV1aWQy", List.of(1.25d, 1500L, 42L), 20);
+
+        SearchCursor decoded = SearchCursor.fromCursor(cursor.toCursor(), 20);
+
+        assertThat(decoded.isFirst()).isFalse();
+        assertThat(decoded.getPointInTimeId()).isEqualTo("46ToAwMDaWR5BXV1aWQy");
+        assertThat(decoded.getSearchAfter()).containsExactly(1.25d, 1500L, 42L);
+        assertThat(decoded.getSize()).isEqualTo(20);
+    }
+
+    @Test
+    void testFirstPage() {
+        SearchCursor cursor = SearchCursor.first(50);
+
+        assertThat(cursor.isFirst()).isTrue();
+        assertThat(cursor.getSearchAfter()).isEmpty();
+        assertThat(cursor.getSize()).isEqualTo(50);
+    }
+
+    @Test
+    void testMalformedCursor() {
+        String withoutSortValues = Base64.getUrlEncoder().encodeToString("pit".getBytes());
+        String notANumber = Base64.getUrlEncoder().encodeToString("pit\nabc".getBytes());
+
+        assertThatIllegalArgumentException().isThrownBy(() -> SearchCursor.fromCursor("not base64!", 20));
+        assertThatIllegalArgumentException().isThrownBy(() -> SearchCursor.fromCursor(withoutSortValues, 20));
+        assertThatIllegalArgumentException().isThrownBy(() -> SearchCursor.fromCursor(notANumber, 20));
+    }
+}
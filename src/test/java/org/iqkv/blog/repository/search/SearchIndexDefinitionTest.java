@@ -0,0 +1,98 @@
+package org.iqkv.blog.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import java.util.Map;
+import org.apache.http.HttpHost;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.elasticsearch.client.RestClient;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+/**
+ * Test class for the index definitions of {@code config/elasticsearch}, as read from the entities.
+ * The index operations used here do not send any request.
+ */
+class SearchIndexDefinitionTest {
+
+    private ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    @BeforeEach
+    void setup() {
+        RestClient restClient = RestClient.builder(new HttpHost("localhost")).build();
+        RestClientTransport transport = new RestClientTransport(restClient, new JacksonJsonpMapper());
+        reactiveElasticsearchTemplate = new ReactiveElasticsearchTemplate(
+            new ReactiveElasticsearchClient(transport),
+            new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext())
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = { Post.class, Blog.class, Tag.class, User.class })
+    void testMappingIsVersionedAndNotDynamic(Class<?> entityType) {
+        Document mapping = reactiveElasticsearchTemplate.indexOps(entityType).createMapping().block();
+
+        assertThat(((Map<?, ?>) mapping.get("_meta")).get("version")).isInstanceOf(Integer.class);
+        assertThat(mapping.get("dynamic")).isEqualTo(false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = { Post.class, Blog.class, Tag.class, User.class })
+    void testSettings(Class<?> entityType) {
+        Settings settings = reactiveElasticsearchTemplate.indexOps(entityType).createSettings().block().flatten();
+
+        assertThat(settings.get("index.number_of_shards")).isEqualTo(1);
+        assertThat(settings.get("index.refresh_interval")).isEqualTo("5s");
+        assertThat(settings.get("index.analysis.normalizer.sort.type")).isEqualTo("custom");
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = { Post.class, Blog.class, Tag.class })
+    void testLanguageAnalyzers(Class<?> entityType) {
+        Settings settings = reactiveElasticsearchTemplate.indexOps(entityType).createSettings().block().flatten();
+
+        assertThat(settings.get("index.analysis.analyzer.ukrainian.tokenizer")).isEqualTo("standard");
+        assertThat(settings.get("index.analysis.filter.ukrainian_stop.stopwords"))
+            .asInstanceOf(InstanceOfAssertFactories.LIST)
+            .contains("що", "це");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "title", "content", "blogName", "tagNames" })
+    @SuppressWarnings("unchecked")
+    void testPostTextFields(String field) {
+        Document mapping = reactiveElasticsearchTemplate.indexOps(Post.class).createMapping().block();
+
+        Map<?, ?> property = (Map<?, ?>) ((Map<?, ?>) mapping.get("properties")).get(field);
+        Map<String, Object> subfields = (Map<String, Object>) property.get("fields");
+        assertThat(subfields).containsKeys("en", "ru", "uk");
+        // the content is not sorted on a keyword, and only the content is long enough to skip the norms
+        assertThat(subfields.containsKey("keyword")).isEqualTo(!"content".equals(field));
+        assertThat(property.get("norms")).isEqualTo("content".equals(field) ? false : null);
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = { Post.class, Blog.class, Tag.class })
+    @SuppressWarnings("unchecked")
+    void testSuggestFields(Class<?> entityType) {
+        Document mapping = reactiveElasticsearchTemplate.indexOps(entityType).createMapping().block();
+
+        String field = entityType == Post.class ? "title" : "name";
+        Map<?, ?> property = (Map<?, ?>) ((Map<?, ?>) mapping.get("properties")).get(field);
+        Map<String, Object> subfields = (Map<String, Object>) property.get("fields");
+        assertThat((Map<String, Object>) subfields.get("suggest")).containsEntry("type", "search_as_you_type");
+    }
+}
@@ -0,0 +1,34 @@
+package org.iqkv.blog.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Test class for the {@link SearchSort} utility class.
+ */
+class SearchSortTest {
+
+    @Test
+    void testTextPropertiesAreSortedOnKeywords() {
+        Pageable pageable = PageRequest.of(2, 20, Sort.by(Sort.Order.desc("title"), Sort.Order.asc("id")));
+
+        Pageable sorted = SearchSort.onKeywords(pageable, Set.of("title"));
+
+        assertThat(sorted.getPageNumber()).isEqualTo(2);
+        assertThat(sorted.getPageSize()).isEqualTo(20);
+        assertThat(sorted.getSort()).containsExactly(Sort.Order.desc("title.keyword"), Sort.Order.asc("id"));
+    }
+
+    @Test
+    void testUnsortedPage() {
+        Pageable pageable = PageRequest.of(0, 20);
+
+        assertThat(SearchSort.onKeywords(pageable, Set.of("title"))).isSameAs(pageable);
+        assertThat(SearchSort.onKeywords(Pageable.unpaged(), Set.of("title"))).isEqualTo(Pageable.unpaged());
+    }
+}
@@ -0,0 +1,136 @@
+package org.iqkv.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.repository.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the totals cached by the {@link EntityCountService}.
+ */
+class EntityCountServiceTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private EntityManager entityManager;
+
+    private AtomicLong posts;
+
+    private AtomicLong counts;
+
+    private EntityCountService entityCountService;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getCount().setTtl(Duration.ofHours(1));
+        entityManager = mock(EntityManager.class);
+        posts = new AtomicLong(10);
+        counts = new AtomicLong();
+        when(entityManager.count(Post.class)).thenAnswer(invocation ->
+            Mono.fromSupplier(() -> {
+                counts.incrementAndGet();
+                return posts.get();
+            })
+        );
+        entityCountService = new EntityCountService(entityManager, applicationProperties);
+    }
+
+    @Test
+    void testCountIsCachedUntilItExpires() {
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(10);
+        posts.set(11);
+
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(10);
+        assertThat(counts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testExpiredCountIsServedWhileRefreshed() {
+        applicationProperties.getCount().setTtl(Duration.ZERO);
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(10);
+        posts.set(11);
+
+        // the expired total is served, and refreshed in the background
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(10);
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(11);
+    }
+
+    @Test
+    void testCountIsEvictedAfterTheCommit() {
+        entityCountService.count(Post.class).block();
+        posts.set(11);
+        TransactionalOperator transactionalOperator = TransactionalOperator.create(new NoOpTransactionManager());
+
+        Mono<Long> countInTransaction = entityCountService
+            .invalidateAfterCommit(Post.class)
+            .then(Mono.defer(() -> entityCountService.count(Post.class)));
+        assertThat(transactionalOperator.transactional(countInTransaction).block()).isEqualTo(10);
+
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(11);
+    }
+
+    @Test
+    void testCountIsKeptAfterARollback() {
+        entityCountService.count(Post.class).block();
+        posts.set(11);
+        TransactionalOperator transactionalOperator = TransactionalOperator.create(new NoOpTransactionManager());
+
+        Mono<Void> rolledBack = entityCountService
+            .invalidateAfterCommit(Post.class)
+            .then(Mono.error(new IllegalStateException("rollback")));
+        transactionalOperator.transactional(rolledBack).onErrorResume(IllegalStateException.class, e -> Mono.empty()).block();
+
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(10);
+    }
+
+    @Test
+    void testCountIsEvictedRightAwayOutsideOfATransaction() {
+        entityCountService.count(Post.class).block();
+        posts.set(11);
+
+        entityCountService.invalidateAfterCommit(Post.class).block();
+
+        assertThat(entityCountService.count(Post.class).block()).isEqualTo(11);
+    }
+
+    private static final class NoOpTransactionManager extends AbstractReactiveTransactionManager {
+
+        @Override
+        protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+            return new Object();
+        }
+
+        @Override
+        protected Mono<Void> doBegin(
+            TransactionSynchronizationManager synchronizationManager,
+            Object transaction,
+            TransactionDefinition definition
+        ) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager, GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+    }
+}
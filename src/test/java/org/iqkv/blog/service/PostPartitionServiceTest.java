@@ -0,0 +1,38 @@
+package org.iqkv.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the naming and the sealing of the monthly indexes of the {@link PostPartitionService}.
+ */
+class PostPartitionServiceTest {
+
+    private static final String GENERATION = "post_20260101000000";
+
+    @Test
+    void testPostIsIndexedInTheIndexOfItsMonth() {
+        assertThat(PostPartitionService.partition(GENERATION, Instant.parse("2026-03-31T23:59:59Z"))).isEqualTo(
+            "post_20260101000000-2026.03"
+        );
+        assertThat(PostPartitionService.partition(GENERATION, Instant.parse("2026-04-01T00:00:00Z"))).isEqualTo(
+            "post_20260101000000-2026.04"
+        );
+        assertThat(PostPartitionService.partition(GENERATION, (Instant) null)).isEqualTo("post_20260101000000-1970.01");
+        assertThat(PostPartitionService.indexPattern(GENERATION)).isEqualTo("post_20260101000000-*");
+    }
+
+    @Test
+    void testOnlyTheIndexesOlderThanTheRetainedMonthsAreSealable() {
+        YearMonth now = YearMonth.of(2026, 10);
+
+        assertThat(PostPartitionService.isSealable(GENERATION + "-2026.06", now, 3)).isTrue();
+        assertThat(PostPartitionService.isSealable(GENERATION + "-2026.07", now, 3)).isFalse();
+        assertThat(PostPartitionService.isSealable(GENERATION + "-2026.10", now, 3)).isFalse();
+        assertThat(PostPartitionService.isSealable(GENERATION + "-2026.11", now, 3)).isFalse();
+        assertThat(PostPartitionService.isSealable(GENERATION, now, 3)).isFalse();
+    }
+}
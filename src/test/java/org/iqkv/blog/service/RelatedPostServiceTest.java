@@ -0,0 +1,81 @@
+package org.iqkv.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.iqkv.blog.service.dto.PostDTO;
+import org.iqkv.blog.service.mapper.PostMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+/**
+ * Test class for the caching of the {@link RelatedPostService}.
+ */
+class RelatedPostServiceTest {
+
+    private PostSearchRepository postSearchRepository;
+
+    private RelatedPostService relatedPostService;
+
+    @BeforeEach
+    void setup() {
+        postSearchRepository = mock(PostSearchRepository.class);
+        PostMapper postMapper = mock(PostMapper.class);
+        when(postMapper.toDto(any(Post.class))).thenAnswer(invocation -> {
+            PostDTO postDTO = new PostDTO();
+            postDTO.setId(invocation.<Post>getArgument(0).getId());
+            return postDTO;
+        });
+        when(postSearchRepository.searchRelated(eq(1L), anyInt())).thenAnswer(invocation -> Flux.just(post(2L), post(3L)));
+        when(postSearchRepository.searchRelated(eq(4L), anyInt())).thenAnswer(invocation -> Flux.just(post(5L)));
+        relatedPostService = new RelatedPostService(postSearchRepository, postMapper, new ApplicationProperties());
+    }
+
+    @Test
+    void testRelatedPostsAreSearchedOnce() {
+        assertThat(relatedPostService.findRelated(1L).block()).extracting(PostDTO::getId).containsExactly(2L, 3L);
+        assertThat(relatedPostService.findRelated(1L).block()).extracting(PostDTO::getId).containsExactly(2L, 3L);
+
+        verify(postSearchRepository, times(1)).searchRelated(eq(1L), anyInt());
+    }
+
+    @Test
+    void testDeletedPostIsEvictedFromTheListsOfTheOtherPosts() {
+        relatedPostService.findRelated(1L).block();
+        relatedPostService.findRelated(4L).block();
+
+        relatedPostService.invalidate(List.of(3L));
+        relatedPostService.findRelated(1L).block();
+        relatedPostService.findRelated(4L).block();
+
+        verify(postSearchRepository, times(2)).searchRelated(eq(1L), anyInt());
+        verify(postSearchRepository, times(1)).searchRelated(eq(4L), anyInt());
+    }
+
+    @Test
+    void testReindexedPostIsEvicted() {
+        relatedPostService.findRelated(4L).block();
+
+        relatedPostService.invalidate(List.of(4L));
+        relatedPostService.findRelated(4L).block();
+
+        verify(postSearchRepository, times(2)).searchRelated(eq(4L), anyInt());
+    }
+
+    private static Post post(Long id) {
+        Post post = new Post();
+        post.setId(id);
+        return post;
+    }
+}
@@ -0,0 +1,40 @@
+package org.iqkv.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SearchCursorLimiter}.
+ */
+class SearchCursorLimiterTest {
+
+    private static final long KEEP_ALIVE = Duration.ofMinutes(1).toNanos();
+
+    private SearchCursorLimiter searchCursorLimiter;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().setPointInTimeKeepAlive(Duration.ofNanos(KEEP_ALIVE));
+        applicationProperties.getSearch().setMaxPointsInTimePerUser(2);
+        searchCursorLimiter = new SearchCursorLimiter(applicationProperties);
+    }
+
+    @Test
+    void testUserCanOpenALimitedNumberOfPointsInTimePerKeepAlive() {
+        assertThat(searchCursorLimiter.tryAcquire("user", 0)).isTrue();
+        assertThat(searchCursorLimiter.tryAcquire("user", 1)).isTrue();
+        assertThat(searchCursorLimiter.tryAcquire("user", 2)).isFalse();
+
+        // the other users have their own limit
+        assertThat(searchCursorLimiter.tryAcquire("admin", 2)).isTrue();
+
+        // the first point in time expired
+        assertThat(searchCursorLimiter.tryAcquire("user", KEEP_ALIVE)).isTrue();
+        assertThat(searchCursorLimiter.tryAcquire("user", KEEP_ALIVE + 1)).isFalse();
+    }
+}
@@ -0,0 +1,42 @@
+package org.iqkv.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import reactor.core.Exceptions;
+
+/**
+ * Test class for the bulk failures handled by the {@link SearchIndexer}.
+ */
+class SearchIndexerTest {
+
+    @Test
+    void testRejectedDocumentsAreReadFromTheBulkFailures() {
+        BulkFailureException januaryFailure = bulkFailure("1", "2");
+        BulkFailureException februaryFailure = bulkFailure("3");
+
+        assertThat(SearchIndexer.rejectedIds(januaryFailure)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(SearchIndexer.rejectedIds(Exceptions.multiple(januaryFailure, februaryFailure))).containsExactlyInAnyOrder(
+            1L,
+            2L,
+            3L
+        );
+    }
+
+    @Test
+    void testOtherFailuresFailTheWholeBatch() {
+        assertThat(SearchIndexer.rejectedIds(new IllegalStateException("unavailable"))).isNull();
+        assertThat(SearchIndexer.rejectedIds(Exceptions.multiple(bulkFailure("1"), new IllegalStateException("unavailable")))).isNull();
+    }
+
+    private static BulkFailureException bulkFailure(String... ids) {
+        Map<String, BulkFailureException.FailureDetails> failedDocuments = new HashMap<>();
+        for (String id : ids) {
+            failedDocuments.put(id, new BulkFailureException.FailureDetails(400, "mapper_parsing_exception"));
+        }
+        return new BulkFailureException("Bulk operation has failures", failedDocuments);
+    }
+}
@@ -0,0 +1,44 @@
+package org.iqkv.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.BulkFailureException;
+
+/**
+ * Test class for the loads of the {@link SearchReindexService} into the rebuilt indexes.
+ */
+class SearchReindexServiceTest {
+
+    @Test
+    void testDocumentsWrittenByTheIndexerAreKept() {
+        BulkFailureException conflicts = new BulkFailureException(
+            "Bulk operation has failures",
+            Map.of(
+                "1",
+                new BulkFailureException.FailureDetails(409, "version_conflict_engine_exception"),
+                "2",
+                new BulkFailureException.FailureDetails(409, "version_conflict_engine_exception")
+            )
+        );
+
+        assertThat(SearchReindexService.isExistingDocumentsOnly(conflicts)).isTrue();
+    }
+
+    @Test
+    void testOtherRejectionsFailTheLoad() {
+        BulkFailureException rejections = new BulkFailureException(
+            "Bulk operation has failures",
+            Map.of(
+                "1",
+                new BulkFailureException.FailureDetails(409, "version_conflict_engine_exception"),
+                "2",
+                new BulkFailureException.FailureDetails(429, "es_rejected_execution_exception")
+            )
+        );
+
+        assertThat(SearchReindexService.isExistingDocumentsOnly(rejections)).isFalse();
+        assertThat(SearchReindexService.isExistingDocumentsOnly(new IllegalStateException("Connection refused"))).isFalse();
+    }
+}
@@ -0,0 +1,105 @@
+package org.iqkv.blog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.iqkv.blog.config.ApplicationProperties;
+import org.iqkv.blog.domain.Blog;
+import org.iqkv.blog.domain.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link SearchResultCache}.
+ */
+class SearchResultCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SearchResultCache searchResultCache;
+
+    private AtomicInteger searches;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().getCache().setMaxHits(50);
+        meterRegistry = new SimpleMeterRegistry();
+        searchResultCache = new SearchResultCache(applicationProperties, meterRegistry);
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    void testSameNormalizedQueryIsSearchedOnce() {
+        search(Tag.class, "Spring  Boot ", PageRequest.of(0, 20));
+        search(Tag.class, "spring boot", PageRequest.of(0, 20));
+
+        assertThat(searches.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.cache.hits").tag("type", "Tag").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.cache.misses").tag("type", "Tag").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testOtherPagesAreSearched() {
+        search(Tag.class, "java", PageRequest.of(0, 20));
+        search(Tag.class, "java", PageRequest.of(1, 20));
+
+        assertThat(searches.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidateEvictsTheIndexPagesOnly() {
+        search(Tag.class, "java", PageRequest.of(0, 20));
+        search(Blog.class, "java", PageRequest.of(0, 20));
+
+        searchResultCache.invalidate(Tag.class);
+        search(Tag.class, "java", PageRequest.of(0, 20));
+        search(Blog.class, "java", PageRequest.of(0, 20));
+
+        assertThat(searches.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testLeastRecentlyUsedPagesAreEvictedBeyondMaxHits() {
+        search(Tag.class, "java", PageRequest.of(0, 20));
+        search(Tag.class, "spring", PageRequest.of(0, 20));
+        search(Tag.class, "java", PageRequest.of(0, 20));
+        // 60 hits: the page of "spring" is the least recently used
+        search(Tag.class, "kotlin", PageRequest.of(0, 20));
+
+        search(Tag.class, "java", PageRequest.of(0, 20));
+        assertThat(searches.get()).isEqualTo(3);
+        search(Tag.class, "spring", PageRequest.of(0, 20));
+        assertThat(searches.get()).isEqualTo(4);
+        assertThat(meterRegistry.get("search.cache.size").gauge().value()).isLessThanOrEqualTo(50);
+    }
+
+    @Test
+    void testFailedSearchIsNotCached() {
+        Mono<Page<String>> failed = searchResultCache.get(Tag.class, "java", PageRequest.of(0, 20), () -> {
+            searches.incrementAndGet();
+            return Mono.error(new IllegalStateException("unavailable"));
+        });
+        assertThatThrownBy(failed::block).isInstanceOf(IllegalStateException.class);
+
+        search(Tag.class, "java", PageRequest.of(0, 20));
+
+        assertThat(searches.get()).isEqualTo(2);
+    }
+
+    private Page<String> search(Class<?> entityType, String text, PageRequest pageable) {
+        return searchResultCache
+            .get(entityType, SearchResultCache.normalize(text), pageable, () -> {
+                searches.incrementAndGet();
+                return Mono.just((Page<String>) new PageImpl<>(List.of(text), pageable, 1));
+            })
+            .block();
+    }
+}
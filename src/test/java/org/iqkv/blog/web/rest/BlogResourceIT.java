@@ -20,6 +20,7 @@ import org.iqkv.blog.repository.BlogRepository;
 import org.iqkv.blog.repository.EntityManager;
 import org.iqkv.blog.repository.UserRepository;
 import org.iqkv.blog.repository.search.BlogSearchRepository;
+import org.iqkv.blog.security.AuthoritiesConstants;
 import org.iqkv.blog.service.BlogService;
 import org.iqkv.blog.service.dto.BlogDTO;
 import org.iqkv.blog.service.mapper.BlogMapper;
@@ -591,11 +592,16 @@ class BlogResourceIT {
 
         // Validate the database contains one less item
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
-        int searchDatabaseSizeAfter = IterableUtil.sizeOf(blogSearchRepository.findAll().collectList().block());
-        assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .untilAsserted(() -> {
+                int searchDatabaseSizeAfter = IterableUtil.sizeOf(blogSearchRepository.findAll().collectList().block());
+                assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+            });
     }
 
     @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
     void searchBlog() {
         // Initialize the database
         insertedBlog = blogRepository.save(blog).block();
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.iqkv.blog.domain.PostAsserts.*;
 import static org.iqkv.blog.web.rest.TestUtil.createUpdateProxyForBean;
 import static org.mockito.Mockito.*;
@@ -18,9 +19,11 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.assertj.core.util.IterableUtil;
 import org.iqkv.blog.IntegrationTest;
 import org.iqkv.blog.domain.Post;
+import org.iqkv.blog.domain.Tag;
 import org.iqkv.blog.repository.EntityManager;
 import org.iqkv.blog.repository.PostRepository;
 import org.iqkv.blog.repository.search.PostSearchRepository;
+import org.iqkv.blog.security.AuthoritiesConstants;
 import org.iqkv.blog.service.PostService;
 import org.iqkv.blog.service.dto.PostDTO;
 import org.iqkv.blog.service.mapper.PostMapper;
@@ -60,6 +63,9 @@ class PostResourceIT {
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
     private static final String ENTITY_SEARCH_API_URL = "/api/posts/_search";
 
+    // a tag which is only indexed, the filters on it match the tested post only
+    private static final Long SEARCHED_TAG_ID = Long.MAX_VALUE;
+
     private static Random random = new Random();
     private static AtomicLong longCount = new AtomicLong(random.nextInt() + (2 * Integer.MAX_VALUE));
 
@@ -265,7 +271,7 @@ class PostResourceIT {
             .value(hasItem(post.getId().intValue()))
             .jsonPath("$.[*].title")
             .value(hasItem(DEFAULT_TITLE))
-            .jsonPath("$.[*].content")
+            .jsonPath("$.[*].excerpt")
             .value(hasItem(DEFAULT_CONTENT.toString()))
             .jsonPath("$.[*].date")
             .value(hasItem(DEFAULT_DATE.toString()));
@@ -595,11 +601,16 @@ class PostResourceIT {
 
         // Validate the database contains one less item
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
-        int searchDatabaseSizeAfter = IterableUtil.sizeOf(postSearchRepository.findAll().collectList().block());
-        assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .untilAsserted(() -> {
+                int searchDatabaseSizeAfter = IterableUtil.sizeOf(postSearchRepository.findAll().collectList().block());
+                assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+            });
     }
 
     @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
     void searchPost() {
         // Initialize the database
         insertedPost = postRepository.save(post).block();
@@ -614,6 +625,8 @@ class PostResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(post.getId().intValue()))
@@ -625,6 +638,133 @@ class PostResourceIT {
             .value(hasItem(DEFAULT_DATE.toString()));
     }
 
+    @Test
+    void getRelatedPosts() {
+        // Initialize the database with two posts sharing their title and content
+        insertedPost = postRepository.save(post).block();
+        postSearchRepository.save(post).block();
+        Post relatedPost = postRepository.save(createEntity(em)).block();
+        postSearchRepository.save(relatedPost).block();
+
+        try {
+            // Get the posts related to the first one
+            webTestClient
+                .get()
+                .uri(ENTITY_API_URL_ID + "/related", post.getId())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.[*].id")
+                .value(hasItem(relatedPost.getId().intValue()))
+                .jsonPath("$.[*].id")
+                .value(not(hasItem(post.getId().intValue())));
+        } finally {
+            postRepository.delete(relatedPost).block();
+            postSearchRepository.delete(relatedPost).block();
+        }
+    }
+
+    @Test
+    void searchPostByTextAndFilters() {
+        // Initialize the database, the post is indexed with the ids of its tags
+        insertedPost = postRepository.save(post).block();
+        postSearchRepository.save(post.addTag(new Tag().id(SEARCHED_TAG_ID))).block();
+
+        // Search the post
+        webTestClient
+            .get()
+            .uri(
+                ENTITY_SEARCH_API_URL +
+                "?text=" +
+                DEFAULT_TITLE +
+                "&tagIds=" +
+                SEARCHED_TAG_ID +
+                "&fromDate=" +
+                DEFAULT_DATE.minus(1, ChronoUnit.DAYS) +
+                "&toDate=" +
+                DEFAULT_DATE.plus(1, ChronoUnit.DAYS)
+            )
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(post.getId().intValue()));
+
+        // The filters exclude the post
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?tagIds=" + SEARCHED_TAG_ID + "&fromDate=" + DEFAULT_DATE.plus(1, ChronoUnit.DAYS))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "0");
+    }
+
+    @Test
+    void searchPostWithFacets() {
+        // Initialize the database, the post is indexed with the ids of its tags
+        insertedPost = postRepository.save(post).block();
+        postSearchRepository.save(post.addTag(new Tag().id(SEARCHED_TAG_ID))).block();
+
+        // Search the post, the facets count it
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "/faceted?tagIds=" + SEARCHED_TAG_ID)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectBody()
+            .jsonPath("$.posts.[*].id")
+            .value(hasItem(post.getId().intValue()))
+            .jsonPath("$.facets.tags.[0].key")
+            .isEqualTo(SEARCHED_TAG_ID)
+            .jsonPath("$.facets.tags.[0].count")
+            .isEqualTo(1)
+            .jsonPath("$.facets.months.[0].count")
+            .isEqualTo(1);
+    }
+
+    @Test
+    void searchPostWithQueryStringIsForbidden() {
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "?query=title:A*").exchange().expectStatus().isForbidden();
+    }
+
+    @Test
+    void searchPostByCursor() {
+        // Initialize the database
+        insertedPost = postRepository.save(post).block();
+        postSearchRepository.save(post.addTag(new Tag().id(SEARCHED_TAG_ID))).block();
+
+        // Search the first page, the post is the only hit so there is no next page
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?tagIds=" + SEARCHED_TAG_ID + "&size=20&cursor=")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectHeader()
+            .doesNotExist("Link")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(post.getId().intValue()));
+    }
+
+    @Test
+    void searchPostWithInvalidCursor() {
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "?text=A&cursor=invalid").exchange().expectStatus().isBadRequest();
+    }
+
     protected long getRepositoryCount() {
         return postRepository.count().block();
     }
@@ -0,0 +1,84 @@
+package org.iqkv.blog.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.concurrent.TimeUnit;
+import org.iqkv.blog.IntegrationTest;
+import org.iqkv.blog.domain.Tag;
+import org.iqkv.blog.domain.enumeration.ReindexStatus;
+import org.iqkv.blog.repository.EntityManager;
+import org.iqkv.blog.repository.TagRepository;
+import org.iqkv.blog.repository.search.TagSearchRepository;
+import org.iqkv.blog.security.AuthoritiesConstants;
+import org.iqkv.blog.service.dto.SearchReindexDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the {@link SearchReindexResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient(timeout = IntegrationTest.DEFAULT_TIMEOUT)
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class SearchReindexResourceIT {
+
+    private static final String REINDEX_API_URL = "/api/admin/search/_reindex/{index}";
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private TagSearchRepository tagSearchRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Tag insertedTag;
+
+    @AfterEach
+    public void cleanup() {
+        if (insertedTag != null) {
+            tagSearchRepository.delete(insertedTag).block();
+            insertedTag = null;
+        }
+        TagResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void reindexIndexesTheDatabaseAndSwapsTheAlias() {
+        // A tag missing from the index, as after a data loss
+        insertedTag = tagRepository.save(TagResourceIT.createEntity(em)).block();
+
+        webTestClient.post().uri(REINDEX_API_URL, "tag").exchange().expectStatus().isAccepted();
+
+        await()
+            .atMost(30, TimeUnit.SECONDS)
+            .untilAsserted(() -> {
+                SearchReindexDTO reindex = webTestClient
+                    .get()
+                    .uri(REINDEX_API_URL, "tag")
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBody(SearchReindexDTO.class)
+                    .returnResult()
+                    .getResponseBody();
+                assertThat(reindex.getStatus()).isEqualTo(ReindexStatus.COMPLETED);
+                assertThat(reindex.getIndexed()).isPositive();
+            });
+        assertThat(tagSearchRepository.findById(insertedTag.getId()).block()).isNotNull();
+    }
+
+    @Test
+    void reindexUnknownIndex() {
+        webTestClient.post().uri(REINDEX_API_URL, "unknown").exchange().expectStatus().isBadRequest();
+    }
+}
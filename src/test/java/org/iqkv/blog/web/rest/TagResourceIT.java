@@ -9,16 +9,20 @@ import static org.iqkv.blog.web.rest.TestUtil.createUpdateProxyForBean;
 import static org.mockito.Mockito.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.assertj.core.util.IterableUtil;
 import org.iqkv.blog.IntegrationTest;
+import org.iqkv.blog.domain.Post;
 import org.iqkv.blog.domain.Tag;
 import org.iqkv.blog.repository.EntityManager;
 import org.iqkv.blog.repository.TagRepository;
+import org.iqkv.blog.repository.search.PostSearchRepository;
 import org.iqkv.blog.repository.search.TagSearchRepository;
+import org.iqkv.blog.security.AuthoritiesConstants;
 import org.iqkv.blog.service.dto.TagDTO;
 import org.iqkv.blog.service.mapper.TagMapper;
 import org.junit.jupiter.api.AfterEach;
@@ -61,6 +65,9 @@ class TagResourceIT {
     @Autowired
     private TagSearchRepository tagSearchRepository;
 
+    @Autowired
+    private PostSearchRepository postSearchRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -296,6 +303,36 @@ class TagResourceIT {
             });
     }
 
+    @Test
+    void putExistingTagUpdatesItsPosts() throws Exception {
+        // Initialize the database, and a post denormalizing the tag in the index
+        insertedTag = tagRepository.save(tag).block();
+        Post post = new Post().id(Long.MAX_VALUE).title("title").date(Instant.now()).addTag(new Tag().id(tag.getId()).name(DEFAULT_NAME));
+        postSearchRepository.save(post).block();
+
+        // Rename the tag
+        TagDTO tagDTO = tagMapper.toDto(tagRepository.findById(tag.getId()).block().name(UPDATED_NAME));
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, tagDTO.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(om.writeValueAsBytes(tagDTO))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        try {
+            await()
+                .atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> {
+                    Post indexedPost = postSearchRepository.findById(post.getId()).block();
+                    assertThat(indexedPost.getTags()).extracting(Tag::getName).containsExactly(UPDATED_NAME);
+                });
+        } finally {
+            postSearchRepository.delete(post).block();
+        }
+    }
+
     @Test
     void putNonExistingTag() throws Exception {
         long databaseSizeBeforeUpdate = getRepositoryCount();
@@ -524,11 +561,16 @@ class TagResourceIT {
 
         // Validate the database contains one less item
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
-        int searchDatabaseSizeAfter = IterableUtil.sizeOf(tagSearchRepository.findAll().collectList().block());
-        assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .untilAsserted(() -> {
+                int searchDatabaseSizeAfter = IterableUtil.sizeOf(tagSearchRepository.findAll().collectList().block());
+                assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+            });
     }
 
     @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
     void searchTag() {
         // Initialize the database
         insertedTag = tagRepository.save(tag).block();
@@ -550,6 +592,56 @@ class TagResourceIT {
             .value(hasItem(DEFAULT_NAME));
     }
 
+    @Test
+    void suggestTag() {
+        // Initialize the database
+        insertedTag = tagRepository.save(tag).block();
+        tagSearchRepository.save(tag).block();
+
+        // Suggest the tag from the first letters of its name
+        webTestClient
+            .get()
+            .uri("/api/_suggest?prefix=" + DEFAULT_NAME.substring(0, 3).toLowerCase())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$.tags[*].id")
+            .value(hasItem(tag.getId().intValue()))
+            .jsonPath("$.tags[*].text")
+            .value(hasItem(DEFAULT_NAME));
+    }
+
+    @Test
+    void searchTagWithAllTypes() {
+        // Initialize the database
+        insertedTag = tagRepository.save(tag).block();
+        tagSearchRepository.save(tag).block();
+
+        // Search the tag with the posts, blogs and users, in a single request
+        webTestClient
+            .get()
+            .uri("/api/_search?text=" + DEFAULT_NAME)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$.tags.content[*].id")
+            .value(hasItem(tag.getId().intValue()))
+            .jsonPath("$.tags.content[*].name")
+            .value(hasItem(DEFAULT_NAME))
+            .jsonPath("$.tags.partial")
+            .isEqualTo(false)
+            .jsonPath("$.posts.content")
+            .isArray()
+            .jsonPath("$.users.content")
+            .isArray();
+    }
+
     protected long getRepositoryCount() {
         return tagRepository.count().block();
     }
@@ -24,4 +24,19 @@ class ElasticsearchExceptionMapperTest {
             ElasticsearchExceptionMapper.mapException(new UncategorizedElasticsearchException("", cause))
         );
     }
+
+    @Test
+    void testMapSearchContextMissingException() {
+        ErrorCause rootCause = new ErrorCause.Builder().type("search_context_missing_exception").reason("No search context found").build();
+        ErrorResponse response = new ErrorResponse.Builder()
+            .error(new ErrorCause.Builder().reason("").rootCause(rootCause).build())
+            .status(404)
+            .build();
+        ElasticsearchException esException = new ElasticsearchException("", response);
+        UncategorizedElasticsearchException cause = new UncategorizedElasticsearchException("", esException);
+        assertInstanceOf(
+            SearchCursorExpiredException.class,
+            ElasticsearchExceptionMapper.mapException(new UncategorizedElasticsearchException("", cause))
+        );
+    }
 }